@@ -1,17 +1,46 @@
 import models.*;
 import models.exceptions.*;
 import services.AccountManager;
+import services.BatchCommandRunner;
+import services.BatchStatementJob;
+import services.HoldManager;
+import services.InterestAccrualEngine;
+import services.LedgerExporter;
+import services.MonthlyFeeEngine;
+import services.ReportingEngine;
+import services.StandingOrderScheduler;
+import services.StatementCache;
 import services.StatementGenerator;
 import services.TransactionManager;
+import utils.CachedClock;
 import utils.ConcurrencyUtils;
 import utils.ValidationUtils;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Scanner;
 public class Main {
     private static final AccountManager accountManager = new AccountManager();
-    private static final TransactionManager transactionManager = new TransactionManager();
-    private static final StatementGenerator statementGenerator = new StatementGenerator(accountManager, transactionManager);
+    private static final TransactionManager transactionManager =
+            new TransactionManager(Paths.get("src", "data"), accountManager.getAccountHandles());
+    private static final StatementGenerator statementGenerator =
+            new StatementGenerator(accountManager, transactionManager, new StatementCache(16L << 20));
+    private static final ReportingEngine reportingEngine = new ReportingEngine(accountManager, transactionManager);
     private static final ConcurrencyUtils concurrencyUtils = new ConcurrencyUtils(accountManager, transactionManager);
+    private static final StandingOrderScheduler standingOrders =
+            new StandingOrderScheduler(accountManager, transactionManager, Paths.get("src", "data"), 2);
+    private static final HoldManager holds =
+            new HoldManager(accountManager, transactionManager, Paths.get("src", "data"));
     private static final Scanner sc = new Scanner(System.in);
     private static final ValidationUtils validation = new ValidationUtils(sc);
     //...........................Sample customer data........................................
@@ -40,6 +69,10 @@ public class Main {
     //...........................main method..................
     public static void main (String[] args) throws InsufficientFundsException, OverdraftExceededException {
 
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args.length > 1 ? args[1] : "-"));
+        }
+
         try {
             accountManager.loadAccountsFromFile();           
             transactionManager.loadTransactionsFromFile();
@@ -55,10 +88,24 @@ public class Main {
             initializeSampleData();
         }
 
+        try {
+            standingOrders.load();
+        } catch (IOException e) {
+            System.out.println("Error loading standing orders: " + e.getMessage());
+        }
+        standingOrders.start();
+
+        try {
+            holds.load();
+        } catch (IOException e) {
+            System.out.println("Error loading holds: " + e.getMessage());
+        }
+        holds.start();
+
         while (true) {
 
             System.out.println("=======================================\n  BANK ACCOUNT MANAGEMENT - MAIN MENU \n=======================================");
-            System.out.println(" \t1. Manage Accounts \n \t2. Perform Transactions \n \t3. Generate Account Statements (using Stream filtering) \n \t4. Save/Load Data \n \t5. Run Concurrent Simulation \n\t6. Exit");
+            System.out.println(" \t1. Manage Accounts \n \t2. Perform Transactions \n \t3. Generate Account Statements (using Stream filtering) \n \t4. Save/Load Data \n \t5. Run Concurrent Simulation \n \t6. Bank-wide Reports \n\t7. Exit");
             System.out.print("\nEnter choice: ");
             if (!sc.hasNextInt()) {
                 System.out.println("Invalid input! Enter a number.");
@@ -86,10 +133,13 @@ public class Main {
                     runConcurrentSimulation();
                     break;
                 case 6:
+                    generateBankReport();
+                    break;
+                case 7:
                     System.out.println("\nThank you for using Bank Account Management System. Goodbye!");
                     return;
                 default:
-                    System.out.println("Invalid choice! Please choose a number between 1-6.");
+                    System.out.println("Invalid choice! Please choose a number between 1-7.");
                     pressEnterToContinue();
                     continue;
             }
@@ -97,6 +147,38 @@ public class Main {
 
     }
 
+    /**
+     * Runs a command script headless: no menu, no sample data, no standing order or hold
+     * expiry ticker.
+     * Statements go to standard output; errors and the summary go to standard error.
+     *
+     * @param source the script file, or "-" for standard input
+     * @return the process exit code: 0 if every command succeeded, 1 otherwise
+     */
+    private static int runBatch(String source) {
+        try {
+            accountManager.loadAccountsFromFile();
+            transactionManager.loadTransactionsFromFile();
+            // held funds must not be spent by the script
+            holds.load();
+        } catch (IOException e) {
+            System.err.println("Error loading data from files: " + e.getMessage());
+            return 1;
+        }
+        BatchCommandRunner runner = new BatchCommandRunner(accountManager, transactionManager, statementGenerator);
+        Writer statements = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (BufferedReader script = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(source))) {
+            BatchCommandRunner.Result result = runner.run(script, statements, System.err);
+            System.err.println(result);
+            return result.getFailed() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Error running batch: " + e.getMessage());
+            return 1;
+        }
+    }
+
 
     //........reusable press enter to continue.........................
     private static void pressEnterToContinue() {
@@ -111,7 +193,7 @@ public class Main {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("MANAGE ACCOUNT");
         System.out.println("=".repeat(50));
-        System.out.println("\n \t1. Create Account \n \t2. View All Accounts \n \t3. Back to Main Menu");
+        System.out.println("\n \t1. Create Account \n \t2. View All Accounts \n \t3. Search Customers \n \t4. Back to Main Menu");
         System.out.print("\nEnter choice: ");
         
         if (!sc.hasNextInt()) {
@@ -133,9 +215,12 @@ public class Main {
                 viewAccounts();
                 break;
             case 3:
+                searchCustomers();
+                break;
+            case 4:
                 return;
             default:
-                System.out.println("Invalid choice! Please choose a number between 1-3.");
+                System.out.println("Invalid choice! Please choose a number between 1-4.");
                 pressEnterToContinue();
                 break;
         }
@@ -179,7 +264,13 @@ public class Main {
             account = new CheckingAccount(customer, initialDeposit, "Active");
         }
 
-        accountManager.addAccount(account);
+        try {
+            accountManager.addAccount(account);
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n✗ Error: " + e.getMessage());
+            pressEnterToContinue();
+            return;
+        }
         account.displayAccountDetail();
         System.out.println("\n✓ Account created successfully!");
         pressEnterToContinue();
@@ -199,11 +290,32 @@ public class Main {
         pressEnterToContinue();
     }
 
+    private static void searchCustomers() {
+        System.out.println("\n" + "=".repeat(50));
+        System.out.println("CUSTOMER SEARCH");
+        System.out.println("=".repeat(50));
+        System.out.println();
+        String query = validation.readNonEmptyString("Enter name, email or phone: ");
+
+        List<Customer> matches = accountManager.getCustomerManager().search(query, 10);
+        if (matches.isEmpty()) {
+            System.out.println("\nNo customers found.");
+        }
+        for (Customer customer : matches) {
+            System.out.println("\n" + customer.getName() + " | " + customer.getEmail() + " | " + customer.getContact());
+            for (Account account : accountManager.getAccountsOfCustomer(customer)) {
+                System.out.println("   " + account.getAccountNumber() + " | " + account.getAccountType()
+                        + " | $" + account.getBalance() + " | " + account.getStatus());
+            }
+        }
+        pressEnterToContinue();
+    }
+
     private static void performTransaction() throws InsufficientFundsException, OverdraftExceededException {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("PERFORM TRANSACTION");
         System.out.println("=".repeat(50));
-        System.out.println("\n \t1. Deposit \n \t2. Withdrawal \n \t3. Wire Money Between Accounts \n \t4. Back to Main Menu");
+        System.out.println("\n \t1. Deposit \n \t2. Withdrawal \n \t3. Wire Money Between Accounts \n \t4. Standing Orders \n \t5. Back to Main Menu");
         System.out.print("\nEnter choice: ");
         
         if (!sc.hasNextInt()) {
@@ -228,9 +340,12 @@ public class Main {
                 processWireTransfer();
                 break;
             case 4:
+                manageStandingOrders();
+                break;
+            case 5:
                 return;
             default:
-                System.out.println("Invalid choice! Please choose a number between 1-4.");
+                System.out.println("Invalid choice! Please choose a number between 1-5.");
                 pressEnterToContinue();
                 break;
         }
@@ -268,10 +383,10 @@ public class Main {
 
             if (confirm.equalsIgnoreCase("Y")) {
                 try {
-                    boolean success = account.processTransaction(amount, "DEPOSIT");
+                    boolean success = account.processTransaction(amount, TransactionType.DEPOSIT);
                     if (success) {
                         double newBalance = account.getBalance();
-                        Transaction transaction = new Transaction(accountNumber, "DEPOSIT", amount, newBalance);
+                        Transaction transaction = new Transaction(accountNumber, TransactionType.DEPOSIT, amount, newBalance);
                         transactionManager.addTransaction(transaction);
                         System.out.println("\n✓ Transaction completed successfully!");
                         System.out.println("New Balance: $" + newBalance);
@@ -323,10 +438,10 @@ public class Main {
 
             if (confirm.equalsIgnoreCase("Y")) {
                 try {
-                    boolean success = account.processTransaction(amount, "WITHDRAWAL");
+                    boolean success = account.processTransaction(amount, TransactionType.WITHDRAWAL);
                     if (success) {
                         double newBalance = account.getBalance();
-                        Transaction transaction = new Transaction(accountNumber, "WITHDRAWAL", amount, newBalance);
+                        Transaction transaction = new Transaction(accountNumber, TransactionType.WITHDRAWAL, amount, newBalance);
                         transactionManager.addTransaction(transaction);
                         System.out.println("\n✓ Transaction completed successfully!");
                         System.out.println("New Balance: $" + newBalance);
@@ -409,6 +524,52 @@ public class Main {
         pressEnterToContinue();
     }
     
+    private static void manageStandingOrders() {
+        System.out.println("\n" + "=".repeat(50));
+        System.out.println("STANDING ORDERS");
+        System.out.println("=".repeat(50));
+        System.out.println("\n \t1. Create Standing Order \n \t2. View Standing Orders \n \t3. Cancel Standing Order \n \t4. Back");
+        int choice = validation.readInt("\nEnter choice: ", 1, 4);
+
+        try {
+            switch (choice) {
+                case 1:
+                    System.out.print("Enter Source Account Number (blank for a recurring deposit): ");
+                    String from = sc.nextLine().trim();
+                    String to = validation.readAccountNumber("Enter Destination Account Number: ");
+                    double amount = validation.readDouble("Enter amount: $", 0);
+                    StandingOrder.Frequency frequency = StandingOrder.Frequency.values()[
+                            validation.readInt("Frequency (1. Daily  2. Weekly  3. Monthly): ", 1, 3) - 1];
+                    LocalDate first = validation.readDate("Enter first run date (YYYY-MM-DD): ");
+                    long firstRun = Math.max(CachedClock.startOfDayMillis(first.toEpochDay()),
+                            CachedClock.currentTimeMillis());
+                    StandingOrder order = standingOrders.schedule(from.isEmpty() ? null : from, to, amount,
+                            frequency, firstRun);
+                    System.out.println("\n✓ Standing order created: " + order);
+                    break;
+                case 2:
+                    String accountNumber = validation.readAccountNumber("Enter Account Number: ");
+                    List<StandingOrder> orders = standingOrders.getOrders(accountNumber);
+                    if (orders.isEmpty()) {
+                        System.out.println("\nNo standing orders for this account.");
+                    }
+                    orders.forEach(o -> System.out.println(o));
+                    break;
+                case 3:
+                    String orderId = validation.readNonEmptyString("Enter Order ID: ");
+                    System.out.println(standingOrders.cancel(orderId)
+                            ? "\n✓ Standing order cancelled." : "\n✗ Standing order not found.");
+                    break;
+                default:
+                    return;
+            }
+        } catch (InvalidAccountException | InvalidAmountException | IOException e) {
+            System.out.println("\n✗ Error: " + e.getMessage());
+        }
+
+        pressEnterToContinue();
+    }
+
     private static void generateAccountStatement() {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("GENERATE ACCOUNT STATEMENT");
@@ -417,7 +578,15 @@ public class Main {
 
         try {
             String accountNumber = validation.readAccountNumber("Enter Account Number: ");
-            statementGenerator.generateAccountStatement(accountNumber);
+            System.out.println("\n \t1. Full History \n \t2. Date Range");
+            int period = validation.readInt("\nSelect statement period (1-2): ", 1, 2);
+            if (period == 1) {
+                statementGenerator.generateAccountStatement(accountNumber);
+            } else {
+                LocalDate from = validation.readDate("Enter start date (YYYY-MM-DD): ");
+                LocalDate to = validation.readDate("Enter end date (YYYY-MM-DD): ");
+                statementGenerator.generatePeriodStatement(accountNumber, from, to);
+            }
         } catch (InvalidAccountException e) {
             System.out.println("\n✗ Error: " + e.getMessage());
         }
@@ -425,6 +594,70 @@ public class Main {
         pressEnterToContinue();
     }
     
+    private static void generateBankReport() {
+        System.out.println("\n" + "=".repeat(50));
+        System.out.println("BANK-WIDE REPORTS");
+        System.out.println("=".repeat(50));
+        System.out.println("\n \t1. Volume Reports \n \t2. Month-end Statements for All Accounts \n \t3. Export Ledger (CSV/JSON)"
+                + " \n \t4. Post Interest to Savings Accounts \n \t5. Month-end Fees for Checking Accounts");
+        int report = validation.readInt("\nSelect report (1-5): ", 1, 5);
+
+        if (report == 1) {
+            reportingEngine.printBankReport();
+            System.out.println("Statement cache: " + statementGenerator.getCache());
+        } else if (report == 3) {
+            exportLedger();
+        } else if (report == 4) {
+            try {
+                InterestAccrualEngine.Result result = new InterestAccrualEngine(accountManager, transactionManager).post();
+                System.out.println("\n✓ " + result);
+            } catch (IOException e) {
+                System.out.println("\n✗ Interest posted, but the ledger file could not be written: " + e.getMessage());
+            }
+        } else if (report == 5) {
+            YearMonth month = YearMonth.from(validation.readDate("Enter any date in the month to close (YYYY-MM-DD): "));
+            try {
+                MonthlyFeeEngine.Result result = new MonthlyFeeEngine(accountManager, transactionManager).run(month);
+                System.out.println("\n✓ " + result);
+            } catch (IOException e) {
+                System.out.println("\n✗ Fees charged, but the ledger file could not be written: " + e.getMessage());
+            }
+        } else {
+            YearMonth month = YearMonth.from(validation.readDate("Enter any date in the statement month (YYYY-MM-DD): "));
+            BatchStatementJob job = new BatchStatementJob(accountManager, transactionManager,
+                    Runtime.getRuntime().availableProcessors());
+            try {
+                job.run(month, Paths.get("src", "data", "statements"), System.out::println);
+                System.out.println("\n✓ Statements written to src/data/statements/" + month);
+            } catch (IOException e) {
+                System.out.println("\n✗ Error writing statements: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("\n✗ Statement run interrupted; run it again to finish the remaining accounts.");
+            }
+        }
+
+        pressEnterToContinue();
+    }
+
+    private static void exportLedger() {
+        LocalDate from = validation.readDate("Enter start date (YYYY-MM-DD): ");
+        LocalDate to = validation.readDate("Enter end date (YYYY-MM-DD): ");
+        if (to.isBefore(from)) {
+            System.out.println("\n✗ End date cannot be before start date.");
+            return;
+        }
+        LedgerExporter.Format format = validation.readInt("Format (1. CSV  2. JSON): ", 1, 2) == 1
+                ? LedgerExporter.Format.CSV : LedgerExporter.Format.JSON;
+        Path file = Paths.get("src", "data", "ledger_" + from + "_" + to + "." + format.name().toLowerCase());
+        try {
+            long records = new LedgerExporter(transactionManager).exportLedger(from, to, format, file);
+            System.out.println("\n✓ " + records + " transaction(s) exported to " + file);
+        } catch (IOException e) {
+            System.out.println("\n✗ Error exporting ledger: " + e.getMessage());
+        }
+    }
+
     private static void saveLoadData() {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("SAVE/LOAD DATA");
@@ -463,6 +696,8 @@ public class Main {
             case 3:
                 try {
                     accountManager.loadAccountsFromFile();
+                    // the loaded accounts replace the ones the open holds were placed on
+                    holds.load();
                     System.out.println("\n✓ Accounts loaded from file successfully!");
                     System.out.println("Total accounts loaded: " + accountManager.getAccountCount());
                 } catch (IOException e) {
@@ -491,6 +726,7 @@ public class Main {
                 try {
                     accountManager.loadAccountsFromFile();
                     transactionManager.loadTransactionsFromFile();
+                    holds.load();
                     System.out.println("\n✓ All data loaded from files successfully!");
                     System.out.println("Total accounts loaded: " + accountManager.getAccountCount());
                     System.out.println("Total transactions loaded: " + transactionManager.getTransactionCount());
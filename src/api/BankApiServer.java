@@ -0,0 +1,482 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import models.Account;
+import models.CheckingAccount;
+import models.Customer;
+import models.Hold;
+import models.PremiumCustomer;
+import models.RegularCustomer;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAccountException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import services.AccountManager;
+import services.HoldManager;
+import services.StatementCache;
+import services.StatementGenerator;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP/JSON API over the account services, for integration and load testing
+ * without the interactive menu. Built on the JDK's {@code com.sun.net.httpserver}; every
+ * request runs on its own virtual thread.
+ *
+ * Endpoints:
+ * <pre>
+ *   POST /accounts                          create an account
+ *   GET  /accounts/{number}                 look up an account
+ *   POST /accounts/{number}/deposit         {"amount": 100.00}
+ *   POST /accounts/{number}/withdraw        {"amount": 100.00}
+ *   GET  /accounts/{number}/statement       plain-text statement, optionally ?from=YYYY-MM-DD&amp;to=YYYY-MM-DD
+ *   POST /transfers                         {"from": "ACC001", "to": "ACC002", "amount": 100.00}
+ *   POST /holds                             {"account": "ACC001", "amount": 100.00, "expiresInSeconds": 604800}
+ *   POST /holds/{id}/capture                {"amount": 80.00}
+ *   DELETE /holds/{id}                      release a hold
+ * </pre>
+ * The hold endpoints exist only when the server is given a {@link HoldManager}.
+ * Account creation takes {@code name, age, email, contact, address, customerType}
+ * ("Regular" or "Premium"), {@code accountType} ("Savings" or "Checking") and
+ * {@code initialDeposit}, with the same minimum deposits as the menu.
+ *
+ * Amounts must be finite and in whole cents. Errors are answered as {@code {"error": "..."}}:
+ * 400 for invalid input or amounts, 404 for unknown accounts, holds or paths, 405 for a
+ * wrong method and 422 when a withdrawal, transfer or hold breaks an account rule.
+ */
+public class BankApiServer {
+    private static final int BACKLOG = 1024;
+
+    static {
+        // the server writes headers and body separately; with Nagle's algorithm on, small
+        // responses wait for the client's delayed ACK (about 40 ms on Linux)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final StatementGenerator statementGenerator;
+    private final HoldManager holdManager;
+    private final InetSocketAddress address;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a BankApiServer.
+     *
+     * @param accountManager the accounts
+     * @param transactionManager the ledger
+     * @param statementGenerator renders statements
+     * @param address the address to listen on; port 0 picks a free port
+     */
+    public BankApiServer(AccountManager accountManager, TransactionManager transactionManager,
+                         StatementGenerator statementGenerator, InetSocketAddress address) {
+        this(accountManager, transactionManager, statementGenerator, null, address);
+    }
+
+    /**
+     * Constructs a BankApiServer that also serves the hold endpoints.
+     *
+     * @param accountManager the accounts
+     * @param transactionManager the ledger
+     * @param statementGenerator renders statements
+     * @param holdManager places, captures and releases holds, or null for no hold endpoints
+     * @param address the address to listen on; port 0 picks a free port
+     */
+    public BankApiServer(AccountManager accountManager, TransactionManager transactionManager,
+                         StatementGenerator statementGenerator, HoldManager holdManager, InetSocketAddress address) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.statementGenerator = statementGenerator;
+        this.holdManager = holdManager;
+        this.address = address;
+    }
+
+    /**
+     * Starts listening.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(address, BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/accounts", this::handleAccounts);
+        server.createContext("/transfers", this::handleTransfers);
+        if (holdManager != null) {
+            server.createContext("/holds", this::handleHolds);
+        }
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving requests in progress up to the given time to finish.
+     *
+     * @param delaySeconds the longest time to wait, in seconds
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server == null) {
+            return;
+        }
+        server.stop(delaySeconds);
+        executor.shutdown();
+        server = null;
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the bound port
+     */
+    public synchronized int getPort() {
+        return server == null ? address.getPort() : server.getAddress().getPort();
+    }
+
+    private void handleAccounts(HttpExchange exchange) throws IOException {
+        // "/accounts/ACC001/deposit" splits into "", "accounts", "ACC001", "deposit"
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String method = exchange.getRequestMethod();
+        try {
+            if (path.length < 2 || !path[1].equals("accounts")) {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            } else if (path.length == 2) {
+                requireMethod(exchange, "POST");
+                createAccount(exchange);
+            } else if (path.length == 3) {
+                requireMethod(exchange, "GET");
+                Account account = accountManager.findAccount(path[2]);
+                try (JsonWriter json = new JsonWriter(exchange, 200)) {
+                    writeAccount(json, account);
+                }
+            } else if (path.length == 4 && path[3].equals("deposit")) {
+                requireMethod(exchange, "POST");
+                post(exchange, path[2], TransactionType.DEPOSIT);
+            } else if (path.length == 4 && path[3].equals("withdraw")) {
+                requireMethod(exchange, "POST");
+                post(exchange, path[2], TransactionType.WITHDRAWAL);
+            } else if (path.length == 4 && path[3].equals("statement")) {
+                requireMethod(exchange, "GET");
+                writeStatement(exchange, path[2]);
+            } else {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (RuntimeException | InvalidAccountException | InvalidAmountException | InsufficientFundsException
+                 | OverdraftExceededException e) {
+            sendError(exchange, e);
+        }
+    }
+
+    private void handleTransfers(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals("/transfers")) {
+                sendError(exchange, 404, "No such endpoint: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            requireMethod(exchange, "POST");
+            JsonRequest request = JsonRequest.read(exchange.getRequestBody());
+            String from = request.getString("from");
+            String to = request.getString("to");
+            double amount = request.getAmount("amount");
+            if (!transactionManager.wireTransfer(accountManager, from, to, amount)) {
+                sendError(exchange, 422, "Transfer failed");
+                return;
+            }
+            double fromBalance = accountManager.findAccount(from).getBalance();
+            double toBalance = accountManager.findAccount(to).getBalance();
+            try (JsonWriter json = new JsonWriter(exchange, 200)) {
+                json.beginObject()
+                        .name("from").value(from)
+                        .name("to").value(to)
+                        .name("amount").money(amount)
+                        .name("fromBalance").money(fromBalance)
+                        .name("toBalance").money(toBalance)
+                        .endObject();
+            }
+        } catch (RuntimeException | InvalidAccountException | InvalidAmountException | InsufficientFundsException
+                 | OverdraftExceededException e) {
+            sendError(exchange, e);
+        }
+    }
+
+    private void handleHolds(HttpExchange exchange) throws IOException {
+        // "/holds/HLD001/capture" splits into "", "holds", "HLD001", "capture"
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String method = exchange.getRequestMethod();
+        try {
+            if (path.length < 2 || !path[1].equals("holds")) {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            } else if (path.length == 2) {
+                requireMethod(exchange, "POST");
+                placeHold(exchange);
+            } else if (path.length == 3) {
+                requireMethod(exchange, "DELETE");
+                if (!holdManager.release(path[2])) {
+                    sendError(exchange, 404, "No open hold: " + path[2]);
+                    return;
+                }
+                try (JsonWriter json = new JsonWriter(exchange, 200)) {
+                    json.beginObject().name("holdId").value(path[2]).name("released").value(true).endObject();
+                }
+            } else if (path.length == 4 && path[3].equals("capture")) {
+                requireMethod(exchange, "POST");
+                double amount = JsonRequest.read(exchange.getRequestBody()).getAmount("amount");
+                Transaction transaction = holdManager.capture(path[2], amount);
+                if (transaction == null) {
+                    sendError(exchange, 404, "No open hold: " + path[2]);
+                    return;
+                }
+                try (JsonWriter json = new JsonWriter(exchange, 200)) {
+                    writeTransaction(json, transaction);
+                }
+            } else {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (RuntimeException | InvalidAccountException | InvalidAmountException | InsufficientFundsException
+                 | OverdraftExceededException e) {
+            sendError(exchange, e);
+        }
+    }
+
+    private void placeHold(HttpExchange exchange) throws IOException, InvalidAccountException,
+            InvalidAmountException, InsufficientFundsException, OverdraftExceededException {
+        JsonRequest request = JsonRequest.read(exchange.getRequestBody());
+        String accountNumber = request.getString("account");
+        double amount = request.getAmount("amount");
+        int expiresInSeconds = request.getInt("expiresInSeconds");
+        if (expiresInSeconds <= 0) {
+            throw new IllegalArgumentException("expiresInSeconds must be positive");
+        }
+        Hold hold = holdManager.placeHold(accountNumber, amount,
+                CachedClock.currentTimeMillis() + expiresInSeconds * 1000L);
+        exchange.getResponseHeaders().set("Location", "/holds/" + hold.getHoldId());
+        try (JsonWriter json = new JsonWriter(exchange, 201)) {
+            json.beginObject()
+                    .name("holdId").value(hold.getHoldId())
+                    .name("accountNumber").value(hold.getAccountNumber())
+                    .name("amount").money(hold.getAmount())
+                    .name("expiresAt").value(hold.getExpiresAtMillis())
+                    .name("availableBalance").money(accountManager.findAccount(accountNumber).getAvailableBalance())
+                    .endObject();
+        }
+    }
+
+    private void createAccount(HttpExchange exchange) throws IOException {
+        JsonRequest request = JsonRequest.read(exchange.getRequestBody());
+        String name = request.getString("name");
+        int age = request.getInt("age");
+        if (age < 1 || age > 120) {
+            throw new IllegalArgumentException("Age must be between 1 and 120");
+        }
+        boolean premium = parseChoice(request.getString("customerType", "Regular"), "Regular", "Premium");
+        boolean checking = parseChoice(request.getString("accountType"), "Savings", "Checking");
+        double initialDeposit = request.getAmount("initialDeposit");
+        double minimumDeposit = !premium ? 500 : checking ? 0 : 10000;
+        if (initialDeposit < minimumDeposit) {
+            throw new IllegalArgumentException("Initial deposit must be at least $" + minimumDeposit);
+        }
+
+        String email = request.getString("email");
+        String contact = request.getString("contact");
+        String address = request.getString("address");
+        Customer customer = premium
+                ? new PremiumCustomer(name, age, email, contact, address)
+                : new RegularCustomer(name, age, email, contact, address);
+        Account account = checking
+                ? new CheckingAccount(customer, initialDeposit, "Active")
+                : new SavingsAccount(customer, initialDeposit, "Active");
+        accountManager.addAccount(account);
+        exchange.getResponseHeaders().set("Location", "/accounts/" + account.getAccountNumber());
+        try (JsonWriter json = new JsonWriter(exchange, 201)) {
+            writeAccount(json, account);
+        }
+    }
+
+    private static boolean parseChoice(String value, String first, String second) {
+        if (value.equalsIgnoreCase(first)) {
+            return false;
+        }
+        if (value.equalsIgnoreCase(second)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Expected " + first + " or " + second + " but got " + value);
+    }
+
+    private void post(HttpExchange exchange, String accountNumber, TransactionType type) throws IOException,
+            InvalidAccountException, InvalidAmountException, InsufficientFundsException, OverdraftExceededException {
+        Account account = accountManager.findAccount(accountNumber);
+        double amount = JsonRequest.read(exchange.getRequestBody()).getAmount("amount");
+        Transaction transaction;
+        synchronized (account) {
+            account.processTransaction(amount, type);
+            transaction = new Transaction(account.getAccountNumber(), type, amount, account.getBalance());
+            // appended under the account lock so the account's rows stay in execution order
+            transactionManager.appendBatch(List.of(transaction));
+        }
+        try {
+            transactionManager.flushJournal();
+        } catch (IOException e) {
+            System.out.println("Error saving transactions to file :" + e.getMessage());
+        }
+        try (JsonWriter json = new JsonWriter(exchange, 200)) {
+            writeTransaction(json, transaction);
+        }
+    }
+
+    private void writeStatement(HttpExchange exchange, String accountNumber) throws IOException,
+            InvalidAccountException {
+        accountManager.findAccount(accountNumber);
+        LocalDate from = null;
+        LocalDate to = null;
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                String key = equals < 0 ? parameter : parameter.substring(0, equals);
+                String value = equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+                try {
+                    if (key.equals("from")) {
+                        from = LocalDate.parse(value);
+                    } else if (key.equals("to")) {
+                        to = LocalDate.parse(value);
+                    }
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Dates must be in YYYY-MM-DD format");
+                }
+            }
+        }
+        if ((from == null) != (to == null) || (from != null && to.isBefore(from))) {
+            throw new IllegalArgumentException("Give both from and to, with to not before from");
+        }
+
+        // everything that can be answered with an error status is checked above; once the
+        // 200 is sent, a failure can only abort the response
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        try {
+            if (from == null) {
+                statementGenerator.writeAccountStatement(accountNumber, out);
+            } else {
+                statementGenerator.writePeriodStatement(accountNumber, from, to, out);
+            }
+        } catch (RuntimeException | InvalidAccountException e) {
+            // not closing the body leaves the chunked response without its last chunk, so the
+            // server drops the connection and the client sees a broken response, not a short one
+            throw new IOException("Statement for " + accountNumber + " failed after the response started", e);
+        }
+        out.close();
+    }
+
+    private static void writeTransaction(JsonWriter json, Transaction transaction) throws IOException {
+        json.beginObject()
+                .name("transactionId").value(transaction.getTransactionId())
+                .name("accountNumber").value(transaction.getAccountNumber())
+                .name("type").value(transaction.getType().name())
+                .name("amount").money(transaction.getAmount())
+                .name("balanceAfter").money(transaction.getBalanceAfter())
+                .name("timestamp").value(transaction.getTimestamp())
+                .endObject();
+    }
+
+    private static void writeAccount(JsonWriter json, Account account) throws IOException {
+        Customer customer = account.getCustomer();
+        json.beginObject()
+                .name("accountNumber").value(account.getAccountNumber())
+                .name("accountType").value(account.getAccountType())
+                .name("status").value(account.getStatus())
+                .name("balance").money(account.getBalance())
+                .name("availableBalance").money(account.getAvailableBalance())
+                .name("customer").beginObject()
+                    .name("customerId").value(customer.getCustomerId())
+                    .name("name").value(customer.getName())
+                    .name("customerType").value(customer.getCustomerType())
+                .endObject()
+                .endObject();
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new MethodNotAllowed(exchange.getRequestMethod());
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, Exception e) throws IOException {
+        int status;
+        if (e instanceof MethodNotAllowed) {
+            status = 405;
+        } else if (e instanceof InvalidAccountException) {
+            status = 404;
+        } else if (e instanceof InsufficientFundsException || e instanceof OverdraftExceededException) {
+            status = 422;
+        } else if (e instanceof InvalidAmountException || e instanceof IllegalArgumentException) {
+            status = 400;
+        } else {
+            status = 500;
+        }
+        sendError(exchange, status, e.getMessage());
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        try (JsonWriter json = new JsonWriter(exchange, status)) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+
+    private static final class MethodNotAllowed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private MethodNotAllowed(String method) {
+            super("Method not allowed: " + method);
+        }
+    }
+
+    /**
+     * Runs the API server on the bank's data files.
+     *
+     * Run with: java -cp out api.BankApiServer [port]
+     *
+     * @param args the port, 8080 by default
+     * @throws IOException if the data files cannot be read or the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path dataDir = Paths.get("src", "data");
+        AccountManager accountManager = new AccountManager();
+        TransactionManager transactionManager = new TransactionManager(dataDir, accountManager.getAccountHandles());
+        accountManager.loadAccountsFromFile();
+        transactionManager.loadTransactionsFromFile();
+        StatementGenerator statementGenerator =
+                new StatementGenerator(accountManager, transactionManager, new StatementCache(16L << 20));
+        HoldManager holdManager = new HoldManager(accountManager, transactionManager, dataDir);
+        holdManager.load();
+        holdManager.start();
+        BankApiServer server = new BankApiServer(accountManager, transactionManager, statementGenerator,
+                holdManager, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Bank API listening on port " + server.getPort());
+    }
+}
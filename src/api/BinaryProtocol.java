@@ -0,0 +1,82 @@
+package api;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format of the binary account protocol served by {@link BinaryProtocolServer}.
+ *
+ * Every message is a frame: a 4-byte big-endian length followed by that many bytes.
+ * Accounts are identified by the number behind their account number (7 for "ACC007") and
+ * amounts are in cents.
+ * <pre>
+ *   request  = opcode:u8  requestId:i32  account:i64  [amount:i64]  [toAccount:i64]
+ *              BALANCE carries no amount, TRANSFER carries both
+ *   response = requestId:i32  status:u8  balance:i64
+ * </pre>
+ * The balance in a response is the account's balance after the command; for a transfer
+ * it is the source account's. A client may send any number of requests without waiting
+ * for responses (pipelining); responses come back in request order on the same connection.
+ */
+public final class BinaryProtocol {
+    public static final byte BALANCE = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte TRANSFER = 4;
+
+    public static final byte OK = 0;
+    public static final byte UNKNOWN_ACCOUNT = 1;
+    public static final byte INVALID_AMOUNT = 2;
+    public static final byte INSUFFICIENT_FUNDS = 3;
+    public static final byte OVERDRAFT_EXCEEDED = 4;
+    public static final byte BAD_REQUEST = 5;
+
+    /** Size of a response frame, length prefix included. */
+    public static final int RESPONSE_SIZE = 4 + 4 + 1 + 8;
+    /** Largest request frame, length prefix included. */
+    public static final int MAX_REQUEST_SIZE = 4 + 1 + 4 + 8 + 8 + 8;
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Writes a request frame.
+     *
+     * @param out the buffer, with at least {@link #MAX_REQUEST_SIZE} bytes remaining
+     * @param opcode the command
+     * @param requestId an id echoed in the response
+     * @param account the account id
+     * @param amountCents the amount in cents; ignored for BALANCE
+     * @param toAccount the destination account id; only used for TRANSFER
+     */
+    public static void putRequest(ByteBuffer out, byte opcode, int requestId, long account, long amountCents,
+                                  long toAccount) {
+        int length = bodyLength(opcode);
+        out.putInt(length).put(opcode).putInt(requestId).putLong(account);
+        if (opcode != BALANCE) {
+            out.putLong(amountCents);
+        }
+        if (opcode == TRANSFER) {
+            out.putLong(toAccount);
+        }
+    }
+
+    /**
+     * Returns the length of a request body, after the length prefix.
+     *
+     * @param opcode the command
+     * @return the body length, or -1 for an unknown command
+     */
+    static int bodyLength(byte opcode) {
+        switch (opcode) {
+            case BALANCE:
+                return 1 + 4 + 8;
+            case DEPOSIT:
+            case WITHDRAW:
+                return 1 + 4 + 8 + 8;
+            case TRANSFER:
+                return 1 + 4 + 8 + 8 + 8;
+            default:
+                return -1;
+        }
+    }
+}
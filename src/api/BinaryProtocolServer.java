@@ -0,0 +1,359 @@
+package api;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAccountException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import services.AccountHandles;
+import services.AccountManager;
+import services.PostingEngine;
+import services.TransactionManager;
+import utils.IdGenerator;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server for the compact binary protocol described in {@link BinaryProtocol}, meant for
+ * batch clients for which HTTP/JSON costs too much per command.
+ *
+ * One selector thread accepts connections and moves bytes, using direct buffers. All
+ * complete requests that have arrived on a connection, up to {@value #MAX_BATCH}, are
+ * decoded into the connection's preallocated command arrays and executed as one batch
+ * on a virtual thread, while reading from that connection pauses. Each command adds its
+ * ledger rows to the ledger as it runs, so the ledger keeps execution order; the rows of
+ * a batch are written to the ledger file with one append before any of its responses are
+ * sent, so a client that pipelines many requests pays for one file write per batch
+ * instead of one per command.
+ */
+public class BinaryProtocolServer {
+    private static final int MAX_BATCH = 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int BACKLOG = 1024;
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final PostingEngine postingEngine;
+    private final AccountHandles handles;
+    private final InetSocketAddress address;
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private Thread loop;
+    private volatile boolean running;
+
+    /**
+     * Constructs a BinaryProtocolServer.
+     *
+     * @param accountManager the accounts
+     * @param transactionManager the ledger
+     * @param address the address to listen on; port 0 picks a free port
+     */
+    public BinaryProtocolServer(AccountManager accountManager, TransactionManager transactionManager,
+                                InetSocketAddress address) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.postingEngine = new PostingEngine(accountManager, transactionManager);
+        this.handles = accountManager.getAccountHandles();
+        this.address = address;
+    }
+
+    /**
+     * Starts listening.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+        running = true;
+        loop = new Thread(this::run, "binary-protocol-selector");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    /**
+     * Stops the server and closes all connections.
+     *
+     * @throws InterruptedException if interrupted while waiting for the selector thread
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        loop.join();
+        workers.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the bound port
+     * @throws IOException if the port cannot be read
+     */
+    public synchronized int getPort() throws IOException {
+        if (serverChannel == null) {
+            return address.getPort();
+        }
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection done;
+                while ((done = completed.poll()) != null) {
+                    write(done);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read((Connection) key.attachment());
+                    } else if (key.isWritable()) {
+                        write((Connection) key.attachment());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Binary protocol server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private void read(Connection connection) {
+        try {
+            if (connection.channel.read(connection.in) < 0) {
+                closeQuietly(connection.key);
+                return;
+            }
+            dispatch(connection);
+        } catch (IOException e) {
+            closeQuietly(connection.key);
+        }
+    }
+
+    /**
+     * Decodes the complete requests buffered for a connection and hands them to a worker,
+     * or goes back to reading if there are none.
+     */
+    private void dispatch(Connection connection) {
+        ByteBuffer in = connection.in;
+        in.flip();
+        int count = 0;
+        while (count < MAX_BATCH && in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > BinaryProtocol.MAX_REQUEST_SIZE - 4) {
+                closeQuietly(connection.key); // cannot find the next frame
+                return;
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            int end = in.position() + 4 + length;
+            in.position(in.position() + 4);
+            byte opcode = in.get();
+            connection.opcodes[count] = opcode;
+            connection.requestIds[count] = length >= 5 ? in.getInt() : 0;
+            if (length != BinaryProtocol.bodyLength(opcode)) {
+                connection.opcodes[count] = 0;
+            } else {
+                connection.accounts[count] = in.getLong();
+                connection.amounts[count] = opcode == BinaryProtocol.BALANCE ? 0 : in.getLong();
+                connection.toAccounts[count] = opcode == BinaryProtocol.TRANSFER ? in.getLong() : 0;
+            }
+            in.position(end);
+            count++;
+        }
+        in.compact();
+        if (count == 0) {
+            connection.key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        connection.key.interestOps(0);
+        int batchSize = count;
+        workers.execute(() -> process(connection, batchSize));
+    }
+
+    private void write(Connection connection) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        try {
+            connection.channel.write(connection.out);
+            if (connection.out.hasRemaining()) {
+                connection.key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                dispatch(connection);
+            }
+        } catch (IOException e) {
+            closeQuietly(connection.key);
+        }
+    }
+
+    /**
+     * Executes a batch on a worker thread, saves its ledger rows with one append and
+     * queues the responses for the selector thread.
+     */
+    private void process(Connection connection, int count) {
+        ByteBuffer out = connection.out;
+        out.clear();
+        for (int i = 0; i < count; i++) {
+            byte status;
+            long balance = 0;
+            try {
+                if (connection.opcodes[i] == 0) {
+                    throw new IllegalArgumentException("Bad request");
+                }
+                Account account = account(connection, connection.accounts[i]);
+                double amount = connection.amounts[i] / 100.0;
+                switch (connection.opcodes[i]) {
+                    case BinaryProtocol.BALANCE:
+                        balance = Math.round(account.getBalance() * 100);
+                        break;
+                    case BinaryProtocol.DEPOSIT:
+                    case BinaryProtocol.WITHDRAW:
+                        TransactionType type = connection.opcodes[i] == BinaryProtocol.DEPOSIT
+                                ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL;
+                        synchronized (account) {
+                            account.processTransaction(amount, type);
+                            balance = Math.round(account.getBalance() * 100);
+                            // under the account lock, like a posting, so rows stay in the order balances changed
+                            transactionManager.appendBatch(List.of(new Transaction(account.getAccountNumber(),
+                                    type, amount, account.getBalance())));
+                        }
+                        break;
+                    case BinaryProtocol.TRANSFER:
+                        Account to = account(connection, connection.toAccounts[i]);
+                        if (connection.amounts[i] <= 0) {
+                            throw new InvalidAmountException(amount);
+                        }
+                        List<Transaction> legs = postingEngine.post(List.of(
+                                PostingEngine.Leg.debit(account.getAccountNumber(), amount),
+                                PostingEngine.Leg.credit(to.getAccountNumber(), amount)), false);
+                        balance = Math.round(legs.get(0).getBalanceAfter() * 100);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown command");
+                }
+                status = BinaryProtocol.OK;
+            } catch (InvalidAccountException e) {
+                status = BinaryProtocol.UNKNOWN_ACCOUNT;
+            } catch (InvalidAmountException e) {
+                status = BinaryProtocol.INVALID_AMOUNT;
+            } catch (InsufficientFundsException e) {
+                status = BinaryProtocol.INSUFFICIENT_FUNDS;
+            } catch (OverdraftExceededException e) {
+                status = BinaryProtocol.OVERDRAFT_EXCEEDED;
+            } catch (IllegalArgumentException e) {
+                status = BinaryProtocol.BAD_REQUEST;
+            }
+            out.putInt(BinaryProtocol.RESPONSE_SIZE - 4).putInt(connection.requestIds[i]).put(status).putLong(balance);
+        }
+        try {
+            transactionManager.flushJournal();
+        } catch (IOException e) {
+            System.out.println("Error saving transactions to file :" + e.getMessage());
+        }
+        out.flip();
+        completed.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Looks up an account by the number behind its account number, without allocating.
+     */
+    private Account account(Connection connection, long id) throws InvalidAccountException {
+        StringBuilder number = connection.accountNumber;
+        number.setLength(0);
+        number.append(IdGenerator.ACCOUNTS.getPrefix());
+        int digits = 1;
+        for (long value = id; value >= 10; value /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < IdGenerator.ACCOUNTS.getMinDigits(); i++) {
+            number.append('0');
+        }
+        number.append(id);
+        Account account = id > 0 ? accountManager.getAccount(handles.find(number)) : null;
+        if (account == null) {
+            throw new InvalidAccountException(number.toString());
+        }
+        return account;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // the connection is gone either way
+        }
+    }
+
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(MAX_BATCH * BinaryProtocol.RESPONSE_SIZE);
+        private final byte[] opcodes = new byte[MAX_BATCH];
+        private final int[] requestIds = new int[MAX_BATCH];
+        private final long[] accounts = new long[MAX_BATCH];
+        private final long[] amounts = new long[MAX_BATCH];
+        private final long[] toAccounts = new long[MAX_BATCH];
+        private final StringBuilder accountNumber = new StringBuilder(16);
+        private SelectionKey key;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package api;
+
+import utils.ValidationUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request body of an API call: a flat JSON object whose members are strings, numbers,
+ * booleans or null. Nested objects and arrays are rejected, since no endpoint takes them.
+ * Malformed input and missing or mistyped members raise {@link IllegalArgumentException},
+ * which the server answers with 400 Bad Request.
+ */
+final class JsonRequest {
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final Map<String, String> members = new HashMap<>();
+    private final String text;
+    private int pos;
+
+    private JsonRequest(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Reads and parses a request body. An empty body is an empty object.
+     *
+     * @param in the request body
+     * @return the parsed request
+     * @throws IOException if reading fails
+     */
+    static JsonRequest read(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_BODY + 1);
+        if (bytes.length > MAX_BODY) {
+            throw new IllegalArgumentException("Request body too large");
+        }
+        JsonRequest request = new JsonRequest(new String(bytes, StandardCharsets.UTF_8));
+        request.parse();
+        return request;
+    }
+
+    String getString(String name) {
+        String value = members.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+    String getString(String name, String defaultValue) {
+        String value = members.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    double getDouble(String name) {
+        String value = getString(name);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + name + " must be a number");
+        }
+    }
+
+    /**
+     * Returns a money field, rejecting values that cannot be applied to an account:
+     * NaN, infinities and fractions of a cent.
+     */
+    double getAmount(String name) {
+        double value = getDouble(name);
+        if (!ValidationUtils.isWholeCents(value)) {
+            throw new IllegalArgumentException("Field " + name + " must be a finite amount in whole cents");
+        }
+        return value;
+    }
+
+    int getInt(String name) {
+        String value = getString(name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + name + " must be an integer");
+        }
+    }
+
+    private void parse() {
+        skipWhitespace();
+        if (pos == text.length()) {
+            return;
+        }
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            do {
+                skipWhitespace();
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                members.put(name, value());
+                skipWhitespace();
+            } while (tryConsume(','));
+            expect('}');
+        }
+        skipWhitespace();
+        if (pos != text.length()) {
+            throw malformed();
+        }
+    }
+
+    private String value() {
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Nested JSON values are not supported");
+        }
+        int start = pos;
+        while (pos < text.length() && "{}[],: \t\r\n\"".indexOf(text.charAt(pos)) < 0) {
+            pos++;
+        }
+        String literal = text.substring(start, pos);
+        if (literal.isEmpty()) {
+            throw malformed();
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder value = null;
+        int start = pos;
+        while (true) {
+            if (pos >= text.length()) {
+                throw malformed();
+            }
+            char c = text.charAt(pos);
+            if (c == '"') {
+                String tail = text.substring(start, pos++);
+                return value == null ? tail : value.append(tail).toString();
+            }
+            if (c != '\\') {
+                pos++;
+                continue;
+            }
+            if (value == null) {
+                value = new StringBuilder();
+            }
+            value.append(text, start, pos);
+            if (pos + 1 >= text.length()) {
+                throw malformed();
+            }
+            char escaped = text.charAt(pos + 1);
+            pos += 2;
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw malformed();
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed();
+                    }
+                    pos += 4;
+                    break;
+                default: value.append(escaped);
+            }
+            start = pos;
+        }
+    }
+
+    private char peek() {
+        if (pos >= text.length()) {
+            throw malformed();
+        }
+        return text.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw malformed();
+        }
+        pos++;
+    }
+
+    private boolean tryConsume(char c) {
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed JSON at position " + pos);
+    }
+}
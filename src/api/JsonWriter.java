@@ -0,0 +1,218 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streaming JSON encoder for API responses.
+ *
+ * Values are encoded straight into a fixed byte buffer, without building strings or a
+ * document tree. A response that fits in the buffer is sent with a Content-Length in one
+ * write; a larger one is sent chunked, the buffer being flushed whenever it fills up.
+ * Commas between members and elements are inserted automatically.
+ *
+ * Closing the writer commits the response status, so anything that can fail should be
+ * done before the writer is created.
+ */
+final class JsonWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DEPTH = 64;
+
+    private final HttpExchange exchange;
+    private final int status;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[20];
+    private int count;
+    private OutputStream body;
+    // bit per nesting level: set once the container at that level has a member
+    private long hasMember;
+    private int depth;
+    private boolean afterName;
+
+    JsonWriter(HttpExchange exchange, int status) {
+        this.exchange = exchange;
+        this.status = status;
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return open((byte) '{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return close((byte) '}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return open((byte) '[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return close((byte) ']');
+    }
+
+    JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        put((byte) ':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return literal("null");
+        }
+        separate();
+        string(value);
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        separate();
+        number(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) throws IOException {
+        return literal(value ? "true" : "false");
+    }
+
+    /**
+     * Writes an amount of money as a number with two decimals, e.g. 1250.5 as 1250.50.
+     */
+    JsonWriter money(double amount) throws IOException {
+        separate();
+        long cents = Math.round(amount * 100);
+        long magnitude = Math.abs(cents);
+        if (cents < 0) {
+            put((byte) '-');
+        }
+        number(magnitude / 100);
+        put((byte) '.');
+        put((byte) ('0' + magnitude % 100 / 10));
+        put((byte) ('0' + magnitude % 10));
+        return this;
+    }
+
+    /**
+     * Sends whatever has not been sent yet and ends the response.
+     */
+    @Override
+    public void close() throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+            body = exchange.getResponseBody();
+        }
+        if (count > 0) {
+            body.write(buffer, 0, count);
+            count = 0;
+        }
+        body.close();
+    }
+
+    private JsonWriter open(byte bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        separate();
+        put(bracket);
+        depth++;
+        hasMember &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(byte bracket) throws IOException {
+        depth--;
+        put(bracket);
+        return this;
+    }
+
+    private JsonWriter literal(String text) throws IOException {
+        separate();
+        for (int i = 0; i < text.length(); i++) {
+            put((byte) text.charAt(i));
+        }
+        return this;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if ((hasMember & bit) != 0) {
+            put((byte) ',');
+        }
+        hasMember |= bit;
+    }
+
+    private void number(long value) throws IOException {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (; pos < digits.length; pos++) {
+            put(digits[pos]);
+        }
+    }
+
+    private void string(String text) throws IOException {
+        put((byte) '"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                put((byte) '\\');
+                put((byte) c);
+            } else if (c < 0x20) {
+                put((byte) '\\');
+                put((byte) 'u');
+                put((byte) '0');
+                put((byte) '0');
+                put((byte) Character.forDigit(c >> 4, 16));
+                put((byte) Character.forDigit(c & 0xF, 16));
+            } else if (c < 0x80) {
+                put((byte) c);
+            } else {
+                int codePoint = text.codePointAt(i);
+                if (codePoint < 0x800) {
+                    put((byte) (0xC0 | codePoint >> 6));
+                } else if (codePoint < 0x10000) {
+                    put((byte) (0xE0 | codePoint >> 12));
+                    put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                } else {
+                    put((byte) (0xF0 | codePoint >> 18));
+                    put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                }
+                put((byte) (0x80 | codePoint & 0x3F));
+                i += Character.charCount(codePoint) - 1;
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void put(byte b) throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = b;
+    }
+
+    private void drain() throws IOException {
+        if (body == null) {
+            // too big for one buffer: switch to a chunked response
+            exchange.sendResponseHeaders(status, 0);
+            body = exchange.getResponseBody();
+        }
+        body.write(buffer, 0, count);
+        count = 0;
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import api.BankApiServer;
+import models.CheckingAccount;
+import models.Customer;
+import models.RegularCustomer;
+import services.AccountHandles;
+import services.AccountManager;
+import services.StatementGenerator;
+import services.TransactionManager;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Drives the HTTP API with concurrent clients over loopback: an even mix of account
+ * lookups and deposits against random accounts, reporting throughput and latency.
+ *
+ * Run with: java -cp out benchmarks.ApiBenchmark [requests] [clients]
+ */
+public class ApiBenchmark {
+    private static final int ACCOUNTS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        Path dataDir = Files.createTempDirectory("bank-bench");
+        AccountHandles handles = new AccountHandles();
+        AccountManager accountManager = new AccountManager(dataDir, handles);
+        Customer customer = new RegularCustomer("Customer", 30, "c@mail.com", "0788", "Kigali");
+        List<CheckingAccount> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new CheckingAccount(customer, 1000, "Active"));
+        }
+        accountManager.addAccounts(accounts);
+        TransactionManager transactionManager = new TransactionManager(dataDir, handles);
+        BankApiServer server = new BankApiServer(accountManager, transactionManager,
+                new StatementGenerator(accountManager, transactionManager), new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        String base = "http://127.0.0.1:" + server.getPort() + "/accounts/";
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+        System.out.println("Requests: " + requests + ", clients: " + clients
+                + ", cores: " + Runtime.getRuntime().availableProcessors());
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long started = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        String account = accounts.get(random.nextInt(ACCOUNTS)).getAccountNumber();
+                        HttpRequest request = i % 2 == 0
+                                ? HttpRequest.newBuilder(URI.create(base + account)).GET().build()
+                                : HttpRequest.newBuilder(URI.create(base + account + "/deposit"))
+                                        .POST(HttpRequest.BodyPublishers.ofString("{\"amount\":1.25}")).build();
+                        long sent = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        server.stop(0);
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests in %.2f s (%.0f requests/s), %d errors%n", requests, seconds,
+                requests / seconds, errors.get());
+        System.out.printf("Latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", latencies[requests / 2] / 1e6,
+                latencies[(int) (requests * 0.99)] / 1e6, latencies[requests - 1] / 1e6);
+
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,142 @@
+package benchmarks;
+
+import api.BinaryProtocol;
+import api.BinaryProtocolServer;
+import models.CheckingAccount;
+import models.Customer;
+import models.RegularCustomer;
+import services.AccountHandles;
+import services.AccountManager;
+import services.TransactionManager;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Load generator for the binary protocol. Starts a server on loopback, then each client
+ * connection keeps a window of pipelined requests in flight: a mix of 40% balance
+ * queries, 25% deposits, 20% withdrawals and 15% transfers between random accounts.
+ * Reports throughput and latency percentiles, measured per request from the write of its
+ * window to the arrival of its response.
+ *
+ * Run with: java -cp out benchmarks.BinaryProtocolBenchmark [requests] [connections] [window]
+ */
+public class BinaryProtocolBenchmark {
+    private static final int ACCOUNTS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int window = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        Path dataDir = Files.createTempDirectory("bank-bench");
+        AccountHandles handles = new AccountHandles();
+        AccountManager accountManager = new AccountManager(dataDir, handles);
+        Customer customer = new RegularCustomer("Customer", 30, "c@mail.com", "0788", "Kigali");
+        List<CheckingAccount> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new CheckingAccount(customer, 1_000_000, "Active"));
+        }
+        accountManager.addAccounts(accounts);
+        long firstId = accounts.get(0).getAccountId();
+        TransactionManager transactionManager = new TransactionManager(dataDir, handles);
+        BinaryProtocolServer server = new BinaryProtocolServer(accountManager, transactionManager,
+                new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+
+        System.out.println("Requests: " + requests + ", connections: " + connections + ", window: " + window
+                + ", cores: " + Runtime.getRuntime().availableProcessors());
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> clients = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            int from = (int) ((long) requests * c / connections);
+            int to = (int) ((long) requests * (c + 1) / connections);
+            Thread client = new Thread(() -> {
+                try {
+                    runClient(address, firstId, window, latencies, from, to, failures);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            clients.add(client);
+            client.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        server.stop();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests in %.2f s (%.0f requests/s), %d rejected by account rules%n",
+                requests, seconds, requests / seconds, failures.get());
+        System.out.printf("Latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[requests - 1] / 1e6);
+        System.out.printf("Ledger: %d transactions, file %.1f MB%n", transactionManager.getTransactionCount(),
+                Files.size(dataDir.resolve("transactions.txt")) / 1e6);
+
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void runClient(InetSocketAddress address, long firstId, int window, long[] latencies,
+                                  int from, int to, AtomicInteger failures) throws Exception {
+        SplittableRandom random = new SplittableRandom(from);
+        ByteBuffer out = ByteBuffer.allocateDirect(window * BinaryProtocol.MAX_REQUEST_SIZE);
+        ByteBuffer in = ByteBuffer.allocateDirect(window * BinaryProtocol.RESPONSE_SIZE);
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            channel.socket().setTcpNoDelay(true);
+            for (int start = from; start < to; start += window) {
+                int end = Math.min(start + window, to);
+                out.clear();
+                for (int i = start; i < end; i++) {
+                    long account = firstId + random.nextInt(ACCOUNTS);
+                    int roll = random.nextInt(100);
+                    byte opcode = roll < 40 ? BinaryProtocol.BALANCE : roll < 65 ? BinaryProtocol.DEPOSIT
+                            : roll < 85 ? BinaryProtocol.WITHDRAW : BinaryProtocol.TRANSFER;
+                    long other = account == firstId ? account + 1 : account - 1;
+                    BinaryProtocol.putRequest(out, opcode, i, account, 100 + random.nextInt(10_000), other);
+                }
+                out.flip();
+                long sent = System.nanoTime();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                in.clear().limit((end - start) * BinaryProtocol.RESPONSE_SIZE);
+                int parsed = 0;
+                while (parsed < end - start) {
+                    if (channel.read(in) < 0) {
+                        throw new IllegalStateException("Server closed the connection");
+                    }
+                    long now = System.nanoTime();
+                    for (; (parsed + 1) * BinaryProtocol.RESPONSE_SIZE <= in.position(); parsed++) {
+                        int offset = parsed * BinaryProtocol.RESPONSE_SIZE;
+                        int requestId = in.getInt(offset + 4);
+                        if (in.get(offset + 8) != BinaryProtocol.OK) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[requestId] = now - sent;
+                    }
+                }
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+}
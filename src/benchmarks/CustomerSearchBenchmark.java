@@ -0,0 +1,46 @@
+package benchmarks;
+
+import services.CustomerManager;
+import java.util.Random;
+
+/**
+ * Measures type-ahead latency of the customer search index for prefix, typo and phone queries.
+ *
+ * Run with: java -Xmx4g -cp out benchmarks.CustomerSearchBenchmark [customers]
+ */
+public class CustomerSearchBenchmark {
+    private static final String[] FIRST_NAMES = {"john", "jane", "alice", "bob", "carol", "david", "emma",
+            "frank", "grace", "henry", "irene", "jack", "karen", "liam", "maria", "noah", "olivia", "peter"};
+    private static final String[] QUERIES = {"jo", "mar", "smith", "smyth", "olivai", "jane mil", "john zzz", "07001", "grace@"};
+    private static final int ROUNDS = 10_000;
+
+    public static void main(String[] args) {
+        int customerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        CustomerManager customerManager = new CustomerManager();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < customerCount; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = lastName(random);
+            customerManager.findOrCreate(first + " " + last, 30, first + "." + last + i + "@mail.com",
+                    String.format("07%08d", i), "Kigali", "Regular");
+        }
+        System.out.printf("Indexed %d customers in %.1f s%n", customerCount, (System.nanoTime() - start) / 1e9);
+
+        for (String query : QUERIES) {
+            int found = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                found = customerManager.search(query, 10).size();
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / ROUNDS;
+            System.out.printf("%-10s %2d results  %8.1f us/query%n", "\"" + query + "\"", found, micros);
+        }
+    }
+
+    private static String lastName(Random random) {
+        String[] roots = {"smith", "miller", "jones", "brown", "wilson", "taylor", "moore", "clark", "walker"};
+        return roots[random.nextInt(roots.length)] + (char) ('a' + random.nextInt(26)) + random.nextInt(1000);
+    }
+}
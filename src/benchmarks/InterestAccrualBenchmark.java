@@ -0,0 +1,62 @@
+package benchmarks;
+
+import models.Customer;
+import models.RegularCustomer;
+import models.SavingsAccount;
+import services.AccountHandles;
+import services.AccountManager;
+import services.InterestAccrualEngine;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures an interest posting run over many savings accounts that each accrued a month
+ * of interest, including the ledger file append.
+ *
+ * Run with: java -Xmx8g -cp out benchmarks.InterestAccrualBenchmark [accounts]
+ */
+public class InterestAccrualBenchmark {
+    private static final int CUSTOMERS = 1000;
+
+    public static void main(String[] args) throws IOException {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Path dataDir = Files.createTempDirectory("bank-bench");
+        AccountHandles handles = new AccountHandles();
+        AccountManager accountManager = new AccountManager(dataDir, handles);
+        Customer[] customers = new Customer[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers[i] = new RegularCustomer("Customer " + i, 30, "c" + i + "@mail.com", "0788", "Kigali");
+        }
+        List<SavingsAccount> accounts = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            accounts.add(new SavingsAccount(customers[i % CUSTOMERS], 500 + i % 100_000, "Active"));
+        }
+        accountManager.addAccounts(accounts);
+        TransactionManager transactionManager = new TransactionManager(dataDir, handles);
+        InterestAccrualEngine engine = new InterestAccrualEngine(accountManager, transactionManager);
+
+        System.out.println("Savings accounts: " + accountCount + ", cores: " + Runtime.getRuntime().availableProcessors());
+        for (int round = 1; round <= 3; round++) {
+            // pretend the accounts were last touched a month ago
+            long monthAgo = CachedClock.currentEpochDay() - 30;
+            for (SavingsAccount account : accounts) {
+                account.setLastAccrualDay(monthAgo);
+            }
+            InterestAccrualEngine.Result result = engine.post();
+            System.out.println("Run " + round + ": " + result);
+        }
+        System.out.printf("Ledger file: %.1f MB%n", Files.size(dataDir.resolve("transactions.txt")) / 1e6);
+
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
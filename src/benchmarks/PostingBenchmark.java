@@ -0,0 +1,84 @@
+package benchmarks;
+
+import models.CheckingAccount;
+import models.Customer;
+import models.RegularCustomer;
+import services.AccountHandles;
+import services.AccountManager;
+import services.PostingEngine;
+import services.TransactionManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Measures concurrent three-leg postings (a transfer plus a fee) between random accounts,
+ * including the ledger file appends.
+ *
+ * Run with: java -cp out benchmarks.PostingBenchmark [postings] [threads]
+ */
+public class PostingBenchmark {
+    private static final int ACCOUNTS = 10_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int postings = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+
+        Path dataDir = Files.createTempDirectory("bank-bench");
+        AccountHandles handles = new AccountHandles();
+        AccountManager accountManager = new AccountManager(dataDir, handles);
+        Customer customer = new RegularCustomer("Customer", 30, "c@mail.com", "0788", "Kigali");
+        List<CheckingAccount> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new CheckingAccount(customer, 1_000_000, "Active"));
+        }
+        accountManager.addAccounts(accounts);
+        TransactionManager transactionManager = new TransactionManager(dataDir, handles);
+        PostingEngine engine = new PostingEngine(accountManager, transactionManager);
+        String feeAccount = accounts.get(0).getAccountNumber();
+
+        System.out.println("Postings: " + postings + ", threads: " + threadCount
+                + ", cores: " + Runtime.getRuntime().availableProcessors());
+        long started = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int share = postings / threadCount + (t < postings % threadCount ? 1 : 0);
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < share; i++) {
+                    int from = 1 + random.nextInt(ACCOUNTS - 1);
+                    int to = 1 + random.nextInt(ACCOUNTS - 1);
+                    if (to == from) {
+                        to = from == ACCOUNTS - 1 ? 1 : from + 1;
+                    }
+                    try {
+                        engine.post(List.of(
+                                PostingEngine.Leg.debit(accounts.get(from).getAccountNumber(), 10.25),
+                                PostingEngine.Leg.credit(accounts.get(to).getAccountNumber(), 10.0),
+                                PostingEngine.Leg.credit(feeAccount, 0.25)));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%d postings in %.2f s (%.0f postings/s, %d ledger rows)%n", postings, seconds,
+                postings / seconds, transactionManager.getTransactionCount());
+        System.out.printf("Ledger file: %.1f MB%n", Files.size(dataDir.resolve("transactions.txt")) / 1e6);
+
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import models.Account;
+import models.CheckingAccount;
+import models.PremiumCustomer;
+import models.RegularCustomer;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import services.AccountHandles;
+import services.AccountManager;
+import services.ReportingEngine;
+import services.TransactionManager;
+import services.TransactionStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Measures bank-wide report time on one worker thread and on all cores.
+ *
+ * Run with: java -Xmx4g -cp out benchmarks.ReportingBenchmark [transactions] [accounts]
+ */
+public class ReportingBenchmark {
+    private static final int ROUNDS = 5;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    public static void main(String[] args) throws IOException {
+        int transactionCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Path dataDir = Files.createTempDirectory("bank-bench");
+        AccountHandles handles = new AccountHandles();
+        AccountManager accountManager = new AccountManager(dataDir, handles);
+        String[] accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            Account account = i % 2 == 0
+                    ? new SavingsAccount(new RegularCustomer("Customer " + i, 30, "c" + i + "@mail.com", "0788", "Kigali"), 1000, "Active")
+                    : new CheckingAccount(new PremiumCustomer("Customer " + i, 40, "c" + i + "@mail.com", "0788", "Kigali"), 1000, "Active");
+            accountManager.addAccount(account);
+            accountNumbers[i] = account.getAccountNumber();
+        }
+
+        TransactionManager transactionManager = new TransactionManager(dataDir, handles);
+        TransactionStore store = transactionManager.getStore();
+        TransactionType[] types = TransactionType.values();
+        long start = System.currentTimeMillis() - 30 * DAY_MILLIS;
+        for (int i = 0; i < transactionCount; i++) {
+            store.append(new Transaction(i + 1L, accountNumbers[i % accountCount], types[i % types.length],
+                    10 + i % 90, 1000, start + (long) i * (30 * DAY_MILLIS / transactionCount)));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Transactions: " + transactionCount + ", accounts: " + accountCount + ", cores: " + cores);
+        ForkJoinPool single = new ForkJoinPool(1);
+        run("1 worker", new ReportingEngine(accountManager, transactionManager, single), transactionCount);
+        run(cores + " workers", new ReportingEngine(accountManager, transactionManager), transactionCount);
+        single.shutdown();
+
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void run(String label, ReportingEngine engine, int transactionCount) {
+        measure(label + ", by account type", transactionCount, engine::volumeByAccountType);
+        measure(label + ", by customer type", transactionCount, engine::volumeByCustomerType);
+        measure(label + ", by transaction type", transactionCount, engine::volumeByTransactionType);
+    }
+
+    private static void measure(String label, int transactionCount, Supplier<Object> report) {
+        Object result = report.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            result = report.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9 / ROUNDS;
+        System.out.printf("%-32s %7.1f ms  %6.1f M rows/s  %s%n", label, seconds * 1e3,
+                transactionCount / seconds / 1e6, result);
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import models.Transaction;
+import models.TransactionType;
+import services.TransactionManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Measures per-account deposit/withdrawal aggregation throughput, comparing the old
+ * case-insensitive string matching on type names with the enum-coded single pass.
+ *
+ * Run with: java -cp out benchmarks.TransactionAggregationBenchmark [transactions] [accounts]
+ */
+public class TransactionAggregationBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int transactionCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Path dataDir = Files.createTempDirectory("bank-bench");
+        TransactionManager transactionManager = new TransactionManager(dataDir);
+        TransactionType[] types = TransactionType.values();
+        List<Transaction> batch = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            String accountNumber = String.format("ACC%03d", i % accountCount + 1);
+            batch.add(new Transaction(accountNumber, types[i % types.length], 10 + i % 90, 1000));
+        }
+        transactionManager.addTransactions(batch);
+        String target = "ACC001";
+
+        System.out.println("Transactions: " + transactionCount + ", accounts: " + accountCount);
+        report("String type matching", transactionCount, () -> legacyTotals(transactionManager, target));
+        report("Enum-coded single pass", transactionCount, () -> enumTotals(transactionManager, target));
+
+        Files.deleteIfExists(dataDir.resolve("transactions.txt"));
+        Files.deleteIfExists(dataDir);
+    }
+
+    private static double legacyTotals(TransactionManager transactionManager, String accountNumber) {
+        double deposits = transactionManager.filterById(accountNumber).stream()
+                .filter(transaction -> transaction.getType().name().equalsIgnoreCase("Deposit")
+                        || transaction.getType().name().equalsIgnoreCase("WIRE_TRANSFER_IN"))
+                .mapToDouble(Transaction::getAmount)
+                .sum();
+        double withdrawals = transactionManager.filterById(accountNumber).stream()
+                .filter(transaction -> transaction.getType().name().equalsIgnoreCase("Withdrawal")
+                        || transaction.getType().name().equalsIgnoreCase("WIRE_TRANSFER_OUT"))
+                .mapToDouble(Transaction::getAmount)
+                .sum();
+        return deposits - withdrawals;
+    }
+
+    private static double enumTotals(TransactionManager transactionManager, String accountNumber) {
+        EnumMap<TransactionType, Double> totals = transactionManager.sumByType(accountNumber);
+        double net = 0;
+        for (TransactionType type : TransactionType.values()) {
+            net += type.isCredit() ? totals.get(type) : -totals.get(type);
+        }
+        return net;
+    }
+
+    private static void report(String name, int transactionCount, DoubleSupplier aggregate) {
+        double sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += aggregate.getAsDouble();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += aggregate.getAsDouble();
+        }
+        long elapsed = System.nanoTime() - start;
+        double seconds = elapsed / 1e9;
+        double perSecond = (double) transactionCount * MEASURED_ROUNDS / seconds;
+        System.out.printf("%-24s %8.2f ms/round  %8.1f M transactions/s  (checksum %.1f)%n",
+                name, elapsed / 1e6 / MEASURED_ROUNDS, perSecond / 1e6, sink);
+    }
+}
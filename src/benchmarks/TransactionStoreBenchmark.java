@@ -0,0 +1,56 @@
+package benchmarks;
+
+import models.Transaction;
+import models.TransactionType;
+import services.TransactionStore;
+
+/**
+ * Measures heap per row and full-scan throughput of the columnar transaction store.
+ *
+ * Run with: java -Xmx4g -cp out benchmarks.TransactionStoreBenchmark [transactions] [accounts]
+ */
+public class TransactionStoreBenchmark {
+    private static final int SCAN_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int transactionCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        String[] accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountNumbers[i] = String.format("ACC%03d", i + 1);
+        }
+        TransactionType[] types = TransactionType.values();
+
+        long heapBefore = usedHeap();
+        TransactionStore store = new TransactionStore();
+        long start = System.nanoTime();
+        for (int i = 0; i < transactionCount; i++) {
+            store.append(new Transaction(i + 1L, accountNumbers[i % accountCount], types[i % types.length],
+                    10 + i % 90, 1000, 1_700_000_000_000L + i));
+        }
+        long appendNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        System.out.println("Transactions: " + transactionCount + ", accounts: " + accountCount);
+        System.out.printf("Append: %.1f M rows/s%n", transactionCount / (appendNanos / 1e9) / 1e6);
+        System.out.printf("Heap: %.1f bytes/row%n", (double) (heapAfter - heapBefore) / transactionCount);
+
+        long sink = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < SCAN_ROUNDS; i++) {
+            sink += store.sumByType(i % accountCount, 0, store.size())[0];
+        }
+        long scanNanos = System.nanoTime() - start;
+        double rowsPerSecond = (double) transactionCount * SCAN_ROUNDS / (scanNanos / 1e9);
+        System.out.printf("Scan: %.1f M rows/s (checksum %d)%n", rowsPerSecond / 1e6, sink);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
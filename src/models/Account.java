@@ -3,17 +3,20 @@ package models;
 import models.exceptions.InsufficientFundsException;
 import models.exceptions.InvalidAmountException;
 import models.exceptions.OverdraftExceededException;
+import utils.IdGenerator;
 
 /**
  * Abstract base class representing a bank account that implements transaction capabilities.
  * Provides common account functionality and defines abstract methods for account-specific behavior.
  */
 public abstract class Account implements Transactable {
+    private long accountId;
     private String accountNumber;
     private Customer customer;
     private double balance;
     private String status;
-    static int accountCounter;
+    private double heldAmount;
+    private BalanceListener balanceListener;
 
     /**
      * Constructs a new Account with the specified customer, balance, and status.
@@ -23,11 +26,28 @@ public abstract class Account implements Transactable {
      * @param status the status of the account
      */
     public Account(Customer customer, double balance, String status) {
-        this.accountNumber = "ACC" + String.format("%03d", accountCounter + 1);
+        this.accountId = IdGenerator.ACCOUNTS.nextId();
+        this.accountNumber = IdGenerator.ACCOUNTS.format(accountId);
+        this.customer = customer;
+        this.balance = balance;
+        this.status = status;
+    }
+
+    /**
+     * Constructs an Account with an existing account number, e.g. when loading from file.
+     * No new id is allocated.
+     *
+     * @param accountNumber the existing account number
+     * @param customer the customer who owns this account
+     * @param balance the balance of the account
+     * @param status the status of the account
+     */
+    protected Account(String accountNumber, Customer customer, double balance, String status) {
+        this.accountNumber = accountNumber;
+        this.accountId = IdGenerator.ACCOUNTS.parse(accountNumber);
         this.customer = customer;
         this.balance = balance;
         this.status = status;
-        accountCounter++;
     }
 
     /**
@@ -46,6 +66,16 @@ public abstract class Account implements Transactable {
      */
     public void setAccountNumber(String accountNumber) {
         this.accountNumber = accountNumber;
+        this.accountId = IdGenerator.ACCOUNTS.parse(accountNumber);
+    }
+
+    /**
+     * Returns the numeric id behind the account number.
+     *
+     * @return the account id, or -1 if the account number is not in ACC### form
+     */
+    public long getAccountId() {
+        return accountId;
     }
 
     /**
@@ -75,13 +105,116 @@ public abstract class Account implements Transactable {
         return balance;
     }
 
+    /**
+     * Returns the balance that can still be spent: the ledger balance minus the funds held
+     * for authorizations that have not been captured or released yet.
+     *
+     * @return the available balance
+     */
+    public synchronized double getAvailableBalance() {
+        return getBalance() - heldAmount;
+    }
+
+    /**
+     * Returns the total amount currently held on this account.
+     *
+     * @return the held amount
+     */
+    public synchronized double getHeldAmount() {
+        return heldAmount;
+    }
+
+    /**
+     * Reserves funds on this account. The ledger balance does not change, but the funds
+     * no longer count towards the available balance, so they are subject to the same
+     * rules as a withdrawal.
+     *
+     * @param amount the amount to hold
+     * @throws InvalidAmountException if the amount is negative or zero
+     * @throws InsufficientFundsException if there are insufficient available funds
+     * @throws OverdraftExceededException if the hold would exceed the overdraft limit
+     */
+    public synchronized void placeHold(double amount) throws InvalidAmountException, InsufficientFundsException,
+            OverdraftExceededException {
+        if (amount <= 0) {
+            throw new InvalidAmountException(amount);
+        }
+        checkWithdrawal(amount);
+        heldAmount += amount;
+    }
+
+    /**
+     * Reserves funds again for a hold placed before a restart. The funds were checked when
+     * the hold was placed, so no checks are made.
+     *
+     * @param amount the amount that was held
+     */
+    public synchronized void restoreHold(double amount) {
+        heldAmount += amount;
+    }
+
+    /**
+     * Releases held funds without moving any money.
+     *
+     * @param amount the amount that was held
+     */
+    public synchronized void releaseHold(double amount) {
+        heldAmount = Math.max(0, heldAmount - amount);
+    }
+
+    /**
+     * Settles a hold: releases the held funds and debits the captured amount, which may
+     * be less than the amount held. The funds were checked when the hold was placed, so
+     * no further checks are made.
+     *
+     * @param heldAmount the amount that was held
+     * @param capturedAmount the amount to debit
+     */
+    public synchronized void captureHold(double heldAmount, double capturedAmount) {
+        releaseHold(heldAmount);
+        updateBalance(-capturedAmount);
+    }
+
+    /**
+     * Checks that the available balance allows a withdrawal. Subclasses apply their own
+     * limits, such as a minimum balance or an overdraft limit.
+     *
+     * @param amount the amount to withdraw
+     * @throws InsufficientFundsException if there are insufficient available funds
+     * @throws OverdraftExceededException if the withdrawal would exceed the overdraft limit
+     */
+    public synchronized void checkWithdrawal(double amount) throws InsufficientFundsException,
+            OverdraftExceededException {
+        double available = getAvailableBalance();
+        if (available < amount) {
+            throw new InsufficientFundsException(available, amount, "");
+        }
+    }
+
     /**
      * Sets the balance of the account.
      *
      * @param balance the balance to set
      */
     public synchronized void setBalance(double balance) {
+        double oldBalance = this.balance;
         this.balance = balance;
+        notifyBalanceChanged(oldBalance);
+    }
+
+    /**
+     * Sets the listener told about every balance change of this account.
+     *
+     * @param balanceListener the listener, or null to stop notifications
+     */
+    public synchronized void setBalanceListener(BalanceListener balanceListener) {
+        this.balanceListener = balanceListener;
+    }
+
+    private void notifyBalanceChanged(double oldBalance) {
+        if (balanceListener != null && oldBalance != balance) {
+            balanceListener.balanceChanged(this, oldBalance, balance);
+        }
     }
 
     /**
@@ -103,21 +236,21 @@ public abstract class Account implements Transactable {
     }
 
     /**
-     * Returns the total number of accounts created.
+     * Returns the highest account id allocated so far.
      *
      * @return the account counter value
      */
     public static int getAccountCounter() {
-        return accountCounter;
+        return (int) IdGenerator.ACCOUNTS.getHighWaterMark();
     }
 
     /**
-     * Sets the account counter to the specified value.
+     * Sets the account counter so the next account created gets number {@code accountCounter + 1}.
      *
      * @param accountCounter the counter value to set
      */
     public static void setAccountCounter(int accountCounter) {
-        Account.accountCounter = accountCounter;
+        IdGenerator.ACCOUNTS.reset(accountCounter);
     }
 
     /**
@@ -162,40 +295,58 @@ public abstract class Account implements Transactable {
      * Processes a transaction (deposit or withdrawal) on this account.
      *
      * @param amount the transaction amount
-     * @param type the transaction type ("DEPOSIT" or "WITHDRAWAL")
+     * @param type the transaction type name ("DEPOSIT" or "WITHDRAWAL")
+     * @return true if the transaction was applied, false if the type is not a deposit or withdrawal
      * @throws InvalidAmountException if the amount is invalid
      * @throws InsufficientFundsException if there are insufficient funds for withdrawal
      * @throws OverdraftExceededException if withdrawal exceeds overdraft limit
      */
     @Override
     public boolean processTransaction(double amount, String type) throws InvalidAmountException,InsufficientFundsException,OverdraftExceededException {
-        if ("DEPOSIT".equalsIgnoreCase(type)) {
-            try {
+        TransactionType transactionType;
+        try {
+            transactionType = TransactionType.fromLabel(type);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return processTransaction(amount, transactionType);
+    }
+
+    /**
+     * Processes a transaction (deposit or withdrawal) on this account.
+     *
+     * @param amount the transaction amount
+     * @param type the transaction type ({@link TransactionType#DEPOSIT} or {@link TransactionType#WITHDRAWAL})
+     * @return true if the transaction was applied, false for any other type
+     * @throws InvalidAmountException if the amount is invalid
+     * @throws InsufficientFundsException if there are insufficient funds for withdrawal
+     * @throws OverdraftExceededException if withdrawal exceeds overdraft limit
+     */
+    @Override
+    public boolean processTransaction(double amount, TransactionType type) throws InvalidAmountException,InsufficientFundsException,OverdraftExceededException {
+        if (type == null) {
+            return false;
+        }
+        switch (type) {
+            case DEPOSIT:
                 processDeposit(amount);
                 return true;
-            } catch (InvalidAmountException e) {
-                throw e;
-            }
-        } else if ("WITHDRAWAL".equalsIgnoreCase(type)) {
-            try {
+            case WITHDRAWAL:
                 processWithdrawal(amount);
                 return true;
-            } catch (InvalidAmountException | InsufficientFundsException
-                    | OverdraftExceededException e) {
-                throw e;
-            }
+            default:
+                return false;
         }
-        return false;
     }
 
     /**
-     * Validates that the account has sufficient balance for a withdrawal.
+     * Validates that the account has sufficient available balance for a withdrawal.
      *
      * @param amount the amount to withdraw
      * @return true if balance is sufficient, false otherwise
      */
     protected synchronized boolean validateBalance(double amount) {
-        return balance >= amount;
+        return balance - heldAmount >= amount;
     }
 
     /**
@@ -204,7 +355,9 @@ public abstract class Account implements Transactable {
      * @param amount the amount to add to the balance
      */
     protected synchronized void updateBalance(double amount) {
+        double oldBalance = balance;
         balance += amount;
+        notifyBalanceChanged(oldBalance);
     }
 
     /**
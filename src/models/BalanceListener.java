@@ -0,0 +1,9 @@
+package models;
+
+/**
+ * Receives every change of an account's balance. Called while the account's lock is held,
+ * so implementations must be quick and must not call back into other accounts.
+ */
+public interface BalanceListener {
+    void balanceChanged(Account account, double oldBalance, double newBalance);
+}
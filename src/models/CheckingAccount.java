@@ -2,14 +2,25 @@ package models;
 
 import models.exceptions.InvalidAmountException;
 import models.exceptions.OverdraftExceededException;
+import java.time.YearMonth;
 
 public class CheckingAccount extends Account {
     private double overdraftLimit, monthlyFee;
+    private double overdraftInterestRate;
+    private YearMonth feesChargedThrough;
 
     public CheckingAccount(Customer customer, double balance, String status) {
         super( customer, balance, status);
         this.overdraftLimit = 1000;
         this.monthlyFee = 10;
+        this.overdraftInterestRate = 18.0/100;
+    }
+
+    public CheckingAccount(String accountNumber, Customer customer, double balance, String status) {
+        super(accountNumber, customer, balance, status);
+        this.overdraftLimit = 1000;
+        this.monthlyFee = 10;
+        this.overdraftInterestRate = 18.0/100;
     }
     @Override
     public String getAccountType() {
@@ -32,15 +43,86 @@ public class CheckingAccount extends Account {
         if (amount <= 0) {
             throw new InvalidAmountException(amount);
         }
-        double newBalance = getBalance() - amount;
-        if (newBalance < -overdraftLimit) {
-            throw new OverdraftExceededException(getBalance(), amount, overdraftLimit);
+        checkWithdrawal(amount);
+        setBalance(getBalance() - amount);
+    }
+
+    @Override
+    public synchronized void checkWithdrawal(double amount) throws OverdraftExceededException {
+        double available = getAvailableBalance();
+        if (available - amount < -overdraftLimit) {
+            throw new OverdraftExceededException(available, amount, overdraftLimit);
         }
-        setBalance(newBalance);
     }
 
     void applyMontlhyFee(){
         double balance = getBalance();
         setBalance(balance-=monthlyFee);
     }
+
+    public double getMonthlyFee() {
+        return monthlyFee;
+    }
+
+    public double getOverdraftInterestRate() {
+        return overdraftInterestRate;
+    }
+
+    /**
+     * Returns the last month whose charges have been applied.
+     *
+     * @return the month, or null if no month-end charges were applied yet
+     */
+    public synchronized YearMonth getFeesChargedThrough() {
+        return feesChargedThrough;
+    }
+
+    /**
+     * Sets the last month whose charges have been applied, e.g. when loading from file.
+     *
+     * @param month the month, or null
+     */
+    public synchronized void setFeesChargedThrough(YearMonth month) {
+        feesChargedThrough = month;
+    }
+
+    /**
+     * Applies the month-end charges for a month, taking the current balance as the balance
+     * at the end of the month.
+     *
+     * @param month the month being closed
+     * @return the fee and the overdraft interest charged, or null if the month was already charged
+     * @see #applyMonthEndCharges(YearMonth, double)
+     */
+    public synchronized double[] applyMonthEndCharges(YearMonth month) {
+        return applyMonthEndCharges(month, getBalance());
+    }
+
+    /**
+     * Applies the month-end charges for a month: the monthly fee, unless the customer has
+     * fees waived, and interest on the balance the account was overdrawn by at the end of
+     * the month, for the days of the month. The charges are deducted from the current
+     * balance and may take it below the overdraft limit. A month already charged is skipped.
+     *
+     * @param month the month being closed
+     * @param monthEndBalance the balance at the end of the month
+     * @return the fee and the overdraft interest charged, or null if the month was already charged
+     */
+    public synchronized double[] applyMonthEndCharges(YearMonth month, double monthEndBalance) {
+        if (feesChargedThrough != null && !month.isAfter(feesChargedThrough)) {
+            return null;
+        }
+        double[] charges = new double[2];
+        feesChargedThrough = month;
+        if (!getCustomer().hasWaivedFees()) {
+            charges[0] = monthlyFee;
+        }
+        if (monthEndBalance < 0) {
+            charges[1] = Math.round(-monthEndBalance * 100 * overdraftInterestRate * month.lengthOfMonth() / 365) / 100.0;
+        }
+        if (charges[0] + charges[1] > 0) {
+            setBalance(getBalance() - charges[0] - charges[1]);
+        }
+        return charges;
+    }
 }
@@ -1,5 +1,7 @@
 package models;
 
+import utils.IdGenerator;
+
 public abstract class Customer {
     private String customerId;
     private String name;
@@ -7,16 +9,14 @@ public abstract class Customer {
     private String email;
     private  String contact;
     private  String address;
-    static int customerCounter;
 
     public Customer( String name, int age, String email, String contact, String address) {
-        this.customerId = "CUS"+ String.format("%30d",customerCounter) ;
+        this.customerId = IdGenerator.CUSTOMERS.nextFormattedId();
         this.name = name;
         this.age = age;
         this.email = email;
         this.contact = contact;
         this.address = address;
-        customerCounter++;
     }
 
     public String getCustomerId() {
@@ -68,13 +68,22 @@ public abstract class Customer {
     }
 
     public static int getCustomerCounter() {
-        return customerCounter;
+        return (int) IdGenerator.CUSTOMERS.getHighWaterMark();
     }
 
     public static void setCustomerCounter(int customerCounter) {
-        Customer.customerCounter = customerCounter;
+        IdGenerator.CUSTOMERS.reset(customerCounter);
     }
     public abstract void displayCustomerDetails();
     public abstract String getCustomerType();
 
+    /**
+     * Returns whether this customer's accounts are exempt from monthly fees.
+     *
+     * @return false unless the customer type waives fees
+     */
+    public boolean hasWaivedFees() {
+        return false;
+    }
+
 }
@@ -0,0 +1,62 @@
+package models;
+
+import utils.CachedClock;
+import utils.IdGenerator;
+
+/**
+ * Funds reserved on an account for an authorization, e.g. a card payment, until they are
+ * captured, released or the hold expires.
+ */
+public class Hold {
+    private final long holdId;
+    private final String accountNumber;
+    private final double amount;
+    private final long expiresAtMillis;
+
+    /**
+     * Constructs a new Hold with a fresh id.
+     *
+     * @param accountNumber the account the funds are held on
+     * @param amount the amount held
+     * @param expiresAtMillis when the hold is released unless captured, in epoch milliseconds
+     */
+    public Hold(String accountNumber, double amount, long expiresAtMillis) {
+        this(IdGenerator.HOLDS.nextId(), accountNumber, amount, expiresAtMillis);
+    }
+
+    /**
+     * Constructs a Hold that already has an id, e.g. when loading from file.
+     */
+    public Hold(long holdId, String accountNumber, double amount, long expiresAtMillis) {
+        this.holdId = holdId;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getHoldId() {
+        return IdGenerator.HOLDS.format(holdId);
+    }
+
+    public long getHoldNumber() {
+        return holdId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return getHoldId() + ": $" + String.format("%.2f", amount) + " held on " + accountNumber + " until "
+                + CachedClock.format(expiresAtMillis);
+    }
+}
@@ -31,7 +31,8 @@ public class PremiumCustomer extends Customer {
         return "Premium";
     }
 
-    boolean hasWaivedFees (){
+    @Override
+    public boolean hasWaivedFees (){
         return true;
     }
 }
@@ -2,15 +2,39 @@ package models;
 
 import models.exceptions.InsufficientFundsException;
 import models.exceptions.InvalidAmountException;
+import utils.CachedClock;
 
+/**
+ * Savings account earning daily simple interest on its balance.
+ *
+ * Interest accrues lazily: the account remembers the day up to which interest has been
+ * credited, and every read or change of the balance first credits the interest earned
+ * since then, so the balance is always current without a nightly scan. Whole cents are
+ * added to the balance and the sub-cent remainder is carried forward. Interest credited
+ * this way is kept as unposted until {@link #takeUnpostedInterest()} hands it to the
+ * ledger, which only needs to happen periodically. Until then the balance includes interest
+ * the ledger has no row for, so the last ledger balance does not reconcile with the account
+ * balance until {@code InterestAccrualEngine.post()} runs.
+ */
 public class SavingsAccount extends Account {
     private double interestRate ;
     private double minimumBalance;
+    private long lastAccrualDay;
+    private double accruedCents;
+    private double unpostedInterest;
 
     public SavingsAccount(Customer customer, double balance, String status) {
         super( customer, balance, status);
         this.interestRate = 3.5/100;
         this.minimumBalance = 500;
+        this.lastAccrualDay = CachedClock.currentEpochDay();
+    }
+
+    public SavingsAccount(String accountNumber, Customer customer, double balance, String status) {
+        super(accountNumber, customer, balance, status);
+        this.interestRate = 3.5/100;
+        this.minimumBalance = 500;
+        this.lastAccrualDay = CachedClock.currentEpochDay();
     }
     @Override
     public String getAccountType() {
@@ -35,14 +59,154 @@ public class SavingsAccount extends Account {
         if (amount <= 0) {
             throw new InvalidAmountException(amount);
         }
-        double newBalance = this.getBalance() - amount;
-        if (newBalance < minimumBalance) {
-            throw new InsufficientFundsException(getBalance(), amount, "The minimum balance should be $500");
+        checkWithdrawal(amount);
+        setBalance(getBalance() - amount);
+    }
+
+    @Override
+    public synchronized void checkWithdrawal(double amount) throws InsufficientFundsException {
+        double available = getAvailableBalance();
+        if (available - amount < minimumBalance) {
+            throw new InsufficientFundsException(available, amount, "The minimum balance should be $500");
         }
-        setBalance(newBalance);
     }
     double calculateInterest(){
+        return calculateInterest(365);
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    /**
+     * Calculates the interest the current balance would earn over a number of days
+     * at the annual interest rate, rounded to the cent.
+     *
+     * @param days the number of days
+     * @return the interest, 0 for a balance that is not positive
+     */
+    public synchronized double calculateInterest(int days) {
         double balance = getBalance();
-        return balance*interestRate;
+        if (balance <= 0 || days <= 0) {
+            return 0;
+        }
+        return Math.round(balance * 100 * interestRate * days / 365) / 100.0;
+    }
+
+    @Override
+    public synchronized double getBalance() {
+        accrueToDate();
+        return super.getBalance();
+    }
+
+    @Override
+    public synchronized void setBalance(double balance) {
+        accrueToDate();
+        super.setBalance(balance);
+    }
+
+    @Override
+    protected synchronized boolean validateBalance(double amount) {
+        accrueToDate();
+        return super.validateBalance(amount);
+    }
+
+    @Override
+    protected synchronized void updateBalance(double amount) {
+        accrueToDate();
+        super.updateBalance(amount);
+    }
+
+    /**
+     * Credits the interest earned since the last accrual day, in constant time.
+     */
+    private void accrueToDate() {
+        long today = CachedClock.currentEpochDay();
+        if (today <= lastAccrualDay) {
+            return;
+        }
+        long days = today - lastAccrualDay;
+        lastAccrualDay = today;
+        double balance = super.getBalance();
+        if (balance <= 0) {
+            return;
+        }
+        accruedCents += balance * 100 * interestRate * days / 365;
+        long wholeCents = (long) accruedCents;
+        if (wholeCents > 0) {
+            accruedCents -= wholeCents;
+            double interest = wholeCents / 100.0;
+            unpostedInterest += interest;
+            super.updateBalance(interest);
+        }
+    }
+
+    /**
+     * Returns the day up to which interest has been credited.
+     *
+     * @return the epoch day
+     */
+    public synchronized long getLastAccrualDay() {
+        return lastAccrualDay;
+    }
+
+    /**
+     * Sets the day up to which interest has been credited, e.g. when loading from file.
+     * Interest from that day on is credited at the next balance read.
+     *
+     * @param epochDay the epoch day
+     */
+    public synchronized void setLastAccrualDay(long epochDay) {
+        lastAccrualDay = epochDay;
+    }
+
+    /**
+     * Returns the fraction of a cent of interest earned but not yet credited.
+     *
+     * @return the carried-forward interest, in cents
+     */
+    public synchronized double getAccruedCents() {
+        return accruedCents;
+    }
+
+    /**
+     * Sets the fraction of a cent of interest carried forward, e.g. when loading from file.
+     *
+     * @param cents the carried-forward interest, in cents
+     */
+    public synchronized void setAccruedCents(double cents) {
+        accruedCents = cents;
+    }
+
+    /**
+     * Returns the interest credited to the balance that the ledger does not show yet.
+     *
+     * @return the unposted interest
+     */
+    public synchronized double getUnpostedInterest() {
+        accrueToDate();
+        return unpostedInterest;
+    }
+
+    /**
+     * Sets the unposted interest, e.g. when loading from file.
+     *
+     * @param interest the unposted interest
+     */
+    public synchronized void setUnpostedInterest(double interest) {
+        unpostedInterest = interest;
+    }
+
+    /**
+     * Brings the accrual up to date and hands over the interest credited since the last
+     * posting, so it can be recorded in the ledger.
+     *
+     * @return the interest to post, 0 if there is none
+     */
+    public synchronized double takeUnpostedInterest() {
+        accrueToDate();
+        double interest = Math.round(unpostedInterest * 100) / 100.0;
+        unpostedInterest = 0;
+        return interest;
     }
 }
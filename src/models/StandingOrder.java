@@ -0,0 +1,121 @@
+package models;
+
+import utils.IdGenerator;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A recurring payment: a transfer from one account to another, or a deposit into an
+ * account when there is no source account, repeated at a fixed frequency.
+ */
+public class StandingOrder {
+    /**
+     * How often a standing order runs.
+     */
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final long orderId;
+    private final String fromAccountNumber;
+    private final String toAccountNumber;
+    private final double amount;
+    private final Frequency frequency;
+    private long nextRunMillis;
+
+    /**
+     * Constructs a new StandingOrder with a fresh id.
+     *
+     * @param fromAccountNumber the account to pay from, or null for a recurring deposit
+     * @param toAccountNumber the account to pay into
+     * @param amount the amount of each payment
+     * @param frequency how often to pay
+     * @param firstRunMillis when the first payment is due, in epoch milliseconds
+     */
+    public StandingOrder(String fromAccountNumber, String toAccountNumber, double amount, Frequency frequency,
+                         long firstRunMillis) {
+        this(IdGenerator.STANDING_ORDERS.nextId(), fromAccountNumber, toAccountNumber, amount, frequency, firstRunMillis);
+    }
+
+    /**
+     * Constructs a StandingOrder that already has an id, e.g. when loading from file.
+     */
+    public StandingOrder(long orderId, String fromAccountNumber, String toAccountNumber, double amount,
+                         Frequency frequency, long nextRunMillis) {
+        this.orderId = orderId;
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+        this.frequency = frequency;
+        this.nextRunMillis = nextRunMillis;
+    }
+
+    public String getOrderId() {
+        return IdGenerator.STANDING_ORDERS.format(orderId);
+    }
+
+    public long getOrderNumber() {
+        return orderId;
+    }
+
+    /**
+     * Returns the account paid from.
+     *
+     * @return the account number, or null for a recurring deposit
+     */
+    public String getFromAccountNumber() {
+        return fromAccountNumber;
+    }
+
+    public String getToAccountNumber() {
+        return toAccountNumber;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public boolean isDeposit() {
+        return fromAccountNumber == null;
+    }
+
+    public long getNextRunMillis() {
+        return nextRunMillis;
+    }
+
+    public void setNextRunMillis(long nextRunMillis) {
+        this.nextRunMillis = nextRunMillis;
+    }
+
+    /**
+     * Returns when the run after the given one is due, keeping the time of day. A monthly
+     * order due on a day the next month lacks moves to that month's last day.
+     *
+     * @param runMillis a due time of this order, in epoch milliseconds
+     * @return the following due time
+     */
+    public long runAfter(long runMillis) {
+        ZonedDateTime run = Instant.ofEpochMilli(runMillis).atZone(ZONE);
+        switch (frequency) {
+            case DAILY:
+                return run.plusDays(1).toInstant().toEpochMilli();
+            case WEEKLY:
+                return run.plusWeeks(1).toInstant().toEpochMilli();
+            default:
+                return run.plusMonths(1).toInstant().toEpochMilli();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getOrderId() + ": " + (isDeposit() ? "deposit" : "pay from " + fromAccountNumber) + " $"
+                + String.format("%.2f", amount) + " into " + toAccountNumber + " " + frequency.name().toLowerCase();
+    }
+}
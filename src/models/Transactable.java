@@ -6,4 +6,5 @@ import models.exceptions.OverdraftExceededException;
 
 public interface Transactable {
     boolean processTransaction (double amount, String type) throws InvalidAmountException, InsufficientFundsException, OverdraftExceededException;
+    boolean processTransaction (double amount, TransactionType type) throws InvalidAmountException, InsufficientFundsException, OverdraftExceededException;
 }
@@ -1,31 +1,53 @@
 package models;
 
-import java.time.LocalDate;
+import utils.CachedClock;
+import utils.IdGenerator;
 
 public class Transaction {
-    static int transactionCounter = 1;
-    private String transactionId,accountNumber,type,timestamp;
+    private long transactionId, timestamp;
+    private String accountNumber;
+    private TransactionType type;
     private double amount, balanceAfter;
 
     public Transaction(String accountNumber, String type, double amount, double balanceAfter) {
+        this(accountNumber, TransactionType.fromLabel(type), amount, balanceAfter);
+    }
+
+    public Transaction(String accountNumber, TransactionType type, double amount, double balanceAfter) {
         this.accountNumber = accountNumber;
         this.type = type;
         this.amount = amount;
         this.balanceAfter = balanceAfter;
-        this.transactionId="TXN"+ String.format("%03d",transactionCounter);
-        this.timestamp=String.valueOf(LocalDate.now());
-        transactionCounter++;
+        this.transactionId = IdGenerator.TRANSACTIONS.nextId();
+        this.timestamp = CachedClock.currentTimeMillis();
+    }
+
+    /**
+     * Constructs a Transaction that already has an id and timestamp (epoch milliseconds),
+     * e.g. when loading from file. No new id is allocated.
+     */
+    public Transaction(long transactionId, String accountNumber, TransactionType type, double amount, double balanceAfter, long timestamp) {
+        this.transactionId = transactionId;
+        this.accountNumber = accountNumber;
+        this.type = type;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.timestamp = timestamp;
     }
 
     public static int getTransactionCounter() {
-        return transactionCounter;
+        return (int) IdGenerator.TRANSACTIONS.getHighWaterMark() + 1;
     }
 
     public static void setTransactionCounter(int counter) {
-        transactionCounter = counter;
+        IdGenerator.TRANSACTIONS.reset(counter - 1L);
     }
 
     public String getTransactionId() {
+        return IdGenerator.TRANSACTIONS.format(transactionId);
+    }
+
+    public long getTransactionNumber() {
         return transactionId;
     }
 
@@ -33,14 +55,26 @@ public class Transaction {
         return accountNumber;
     }
 
-    public String getType() {
+    public TransactionType getType() {
         return type;
     }
 
+    /**
+     * Returns the timestamp formatted for display. Formatting happens on each call,
+     * so hot paths should use {@link #getTimestampMillis()} instead.
+     */
     public String getTimestamp() {
+        return CachedClock.format(timestamp);
+    }
+
+    public long getTimestampMillis() {
         return timestamp;
     }
 
+    public long getEpochDay() {
+        return CachedClock.epochDayOf(timestamp);
+    }
+
     public double getAmount() {
         return amount;
     }
@@ -50,10 +84,18 @@ public class Transaction {
     }
 
     public void setTransactionId(String transactionId) {
-        this.transactionId = transactionId;
+        long id = IdGenerator.TRANSACTIONS.parse(transactionId);
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid transaction id: " + transactionId);
+        }
+        this.transactionId = id;
     }
 
     public void setTimestamp(String timestamp) {
+        this.timestamp = CachedClock.parse(timestamp);
+    }
+
+    public void setTimestampMillis(long timestamp) {
         this.timestamp = timestamp;
     }
 
@@ -62,6 +104,10 @@ public class Transaction {
     }
 
     public void setType(String type) {
+        this.type = TransactionType.fromLabel(type);
+    }
+
+    public void setType(TransactionType type) {
         this.type = type;
     }
 
@@ -74,7 +120,7 @@ public class Transaction {
     }
 
     public void displayTransactionDetails(){
-        System.out.println(transactionId + "  |  " + timestamp + "  |  " + type + "  |  " + amount+ "  |  " + balanceAfter );
+        System.out.println(getTransactionId() + "  |  " + getTimestamp() + "  |  " + type + "  |  " + amount+ "  |  " + balanceAfter );
 
     }
 }
@@ -0,0 +1,49 @@
+package models;
+
+/**
+ * Types of ledger transactions. Each type knows whether it adds money to the
+ * account (credit) or takes money out (debit).
+ */
+public enum TransactionType {
+    DEPOSIT(true),
+    WITHDRAWAL(false),
+    WIRE_TRANSFER_IN(true),
+    WIRE_TRANSFER_OUT(false),
+    INTEREST(true),
+    FEE(false);
+
+    private static final TransactionType[] VALUES = values();
+
+    private final boolean credit;
+
+    TransactionType(boolean credit) {
+        this.credit = credit;
+    }
+
+    /**
+     * Returns whether this type adds money to the account.
+     *
+     * @return true for credits, false for debits
+     */
+    public boolean isCredit() {
+        return credit;
+    }
+
+    /**
+     * Returns the type with the given name, ignoring case (e.g. "Deposit" or "WIRE_TRANSFER_IN").
+     *
+     * @param label the type name
+     * @return the matching type
+     * @throws IllegalArgumentException if the label is not a known type
+     */
+    public static TransactionType fromLabel(String label) {
+        if (label != null) {
+            for (TransactionType type : VALUES) {
+                if (type.name().equalsIgnoreCase(label)) {
+                    return type;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid transaction type: " + label);
+    }
+}
@@ -0,0 +1,155 @@
+package services;
+
+import java.util.Arrays;
+
+/**
+ * Assigns each account number a dense int handle (0, 1, 2, ...) so services can keep
+ * per-account data in plain arrays indexed by handle. Account numbers are matched
+ * case-insensitively, and looking up a handle does not allocate: the hash is computed
+ * over upper-cased characters and candidates are compared with
+ * {@link String#regionMatches(boolean, int, String, int, int)}.
+ *
+ * Registration is serialised. Lookups are lock-free and may miss an account that is
+ * being registered at the same moment, but never return a wrong handle.
+ */
+public class AccountHandles {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * Returns the handle of an account number, registering it if it is new.
+     *
+     * @param accountNumber the account number
+     * @return the account's handle
+     */
+    public synchronized int register(String accountNumber) {
+        Table current = table;
+        int existing = current.find(accountNumber);
+        if (existing >= 0) {
+            return existing;
+        }
+        if ((current.size + 1) * 2 > current.slots.length) {
+            current = current.grow();
+        }
+        int handle = current.insert(accountNumber);
+        table = current;
+        return handle;
+    }
+
+    /**
+     * Returns the handle of an account number without registering it.
+     *
+     * @param accountNumber the account number, in any letter case
+     * @return the handle, or -1 if the account number is unknown
+     */
+    public int find(CharSequence accountNumber) {
+        if (accountNumber == null) {
+            return -1;
+        }
+        return table.find(accountNumber);
+    }
+
+    /**
+     * Returns the account number registered for a handle.
+     *
+     * @param handle the handle
+     * @return the account number as first registered
+     */
+    public String accountNumberOf(int handle) {
+        Table current = table;
+        if (handle < 0 || handle >= current.size) {
+            throw new IndexOutOfBoundsException("Unknown account handle: " + handle);
+        }
+        return current.numbers[handle];
+    }
+
+    /**
+     * Returns the number of registered account numbers; handles are {@code 0..size()-1}.
+     *
+     * @return the handle count
+     */
+    public int size() {
+        return table.size;
+    }
+
+    private static int hash(CharSequence key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + Character.toUpperCase(key.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String candidate, CharSequence key) {
+        if (candidate.length() != key.length()) {
+            return false;
+        }
+        if (key instanceof String) {
+            return candidate.regionMatches(true, 0, (String) key, 0, key.length());
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.toUpperCase(candidate.charAt(i)) != Character.toUpperCase(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Table {
+        private final int[] slots;
+        private String[] numbers;
+        private volatile int size;
+
+        private Table(int capacity) {
+            slots = new int[capacity];
+            numbers = new String[capacity / 2];
+        }
+
+        private int find(CharSequence key) {
+            int mask = slots.length - 1;
+            String[] names = numbers;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                int entry = slots[i];
+                if (entry == 0) {
+                    return -1;
+                }
+                int handle = entry - 1;
+                String candidate = handle < names.length ? names[handle] : null;
+                if (candidate != null && matches(candidate, key)) {
+                    return handle;
+                }
+            }
+        }
+
+        private int insert(String key) {
+            int handle = size;
+            if (handle == numbers.length) {
+                numbers = Arrays.copyOf(numbers, numbers.length * 2);
+            }
+            numbers[handle] = key;
+            place(key, handle);
+            size = handle + 1;
+            return handle;
+        }
+
+        private void place(String key, int handle) {
+            int mask = slots.length - 1;
+            int i = hash(key) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = handle + 1;
+        }
+
+        private Table grow() {
+            Table bigger = new Table(slots.length * 2);
+            for (int handle = 0; handle < size; handle++) {
+                bigger.numbers[handle] = numbers[handle];
+                bigger.place(numbers[handle], handle);
+            }
+            bigger.size = size;
+            return bigger;
+        }
+    }
+}
@@ -3,25 +3,58 @@ package services;
 import models.Account;
 import models.CheckingAccount;
 import models.Customer;
-import models.PremiumCustomer;
-import models.RegularCustomer;
 import models.SavingsAccount;
 import models.exceptions.InvalidAccountException;
+import utils.IdGenerator;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class AccountManager {
-   private final Map<String, Account> accounts = new HashMap<>();
+   private final Path dataDir;
+   private final AccountHandles handles;
+   private final CustomerManager customerManager = new CustomerManager();
+   private final BalanceTotals balanceTotals = new BalanceTotals();
+   private volatile Account[] accountsByHandle = new Account[64];
+   private int accountCount;
 
+   /**
+    * Constructs an AccountManager that stores its data file under {@code src/data}.
+    */
+   public AccountManager() {
+       this(Paths.get("src", "data"), new AccountHandles());
+   }
+
+   /**
+    * Constructs an AccountManager.
+    *
+    * @param dataDir the directory holding accounts.txt
+    * @param handles the account handle table, shared with the TransactionManager
+    */
+   public AccountManager(Path dataDir, AccountHandles handles) {
+       this.dataDir = dataDir;
+       this.handles = handles;
+   }
+
+   /**
+    * Adds an account and saves the account file.
+    *
+    * @param newAccount the account to add
+    * @throws IllegalArgumentException if the customer's email is registered to a different customer
+    */
    public void addAccount (Account newAccount)  {
-       accounts.put(newAccount.getAccountNumber().toUpperCase(), newAccount);
+       putAccount(newAccount);
        try {
            saveAccountsToFile();
        } catch (IOException e) {
@@ -29,49 +62,207 @@ public class AccountManager {
        }
 
    }
+
+   /**
+    * Adds a batch of accounts and saves the account file once for the whole batch.
+    *
+    * @param batch the accounts to add
+    * @throws IllegalArgumentException if a customer's email is registered to a different customer;
+    *                                  the accounts before it are added but the file is not saved
+    */
+   public void addAccounts(Collection<? extends Account> batch) {
+       for (Account account : batch) {
+           putAccount(account);
+       }
+       try {
+           saveAccountsToFile();
+       } catch (IOException e) {
+           System.out.println("Error saving accounts to file: "+ e.getMessage());
+       }
+   }
+
+   /**
+    * Stores an account in the slot of its handle, replacing any account with the same number.
+    * The account's customer is swapped for the registered customer with the same identity.
+    *
+    * @param account the account to store
+    * @throws IllegalArgumentException if the customer's email is registered to a different customer
+    */
+   private synchronized void putAccount(Account account) {
+       account.setCustomer(customerManager.register(account.getCustomer()));
+       int handle = handles.register(account.getAccountNumber());
+       Account[] slots = accountsByHandle;
+       if (handle >= slots.length) {
+           slots = Arrays.copyOf(slots, Math.max(handle + 1, slots.length * 2));
+       }
+       if (slots[handle] == null) {
+           accountCount++;
+       } else if (slots[handle] != account) {
+           customerManager.unlinkAccount(slots[handle]);
+           balanceTotals.untrack(slots[handle]);
+       }
+       if (slots[handle] != account) {
+           balanceTotals.track(account);
+       }
+       slots[handle] = account;
+       accountsByHandle = slots;
+       customerManager.linkAccount(account);
+   }
+
    /**
     * Finds an account by account number.
+    * The account number is resolved to its handle once, without allocating.
     *
     * @param accountNumber the account number to search for
     * @return the account if found
     * @throws InvalidAccountException if the account is not found
     */
    public Account findAccount(String accountNumber) throws InvalidAccountException {
-       if (accountNumber == null) {
-           throw new InvalidAccountException(accountNumber);
-       }
-       Account account = accounts.get(accountNumber.toUpperCase());
+       Account account = getAccount(handles.find(accountNumber));
        if (account == null) {
            throw new InvalidAccountException(accountNumber);
        }
        return account;
    }
 
+   /**
+    * Returns the account stored under a handle.
+    *
+    * @param handle the account handle
+    * @return the account, or null if no account has that handle
+    */
+   public Account getAccount(int handle) {
+       Account[] slots = accountsByHandle;
+       return handle >= 0 && handle < slots.length ? slots[handle] : null;
+   }
+
+   /**
+    * Returns the handle of an account number.
+    *
+    * @param accountNumber the account number, in any letter case
+    * @return the handle, or -1 if the account number is unknown
+    */
+   public int getHandle(String accountNumber) {
+       return handles.find(accountNumber);
+   }
+
+   /**
+    * Returns the account handle table, so other services can share it.
+    *
+    * @return the account handles
+    */
+   public AccountHandles getAccountHandles() {
+       return handles;
+   }
+
+   /**
+    * Returns the customer registry that deduplicates the customers of this manager's accounts.
+    *
+    * @return the customer manager
+    */
+   public CustomerManager getCustomerManager() {
+       return customerManager;
+   }
+
+   /**
+    * Returns all accounts owned by a customer.
+    *
+    * @param customer the customer
+    * @return the customer's accounts
+    */
+   public List<Account> getAccountsOfCustomer(Customer customer) {
+       return customerManager.getAccounts(customer);
+   }
+
+   /**
+    * Returns the stored accounts in handle order.
+    *
+    * @return a stream over the accounts
+    */
+   public Stream<Account> accounts() {
+       Account[] slots = accountsByHandle;
+       return Arrays.stream(slots).filter(Objects::nonNull);
+   }
+
    public void viewAllAccounts (){
-       accounts.values().stream()
-               .forEach(Account::displayAccountDetail);
+       accounts().forEach(Account::displayAccountDetail);
    }
 
+   /**
+    * Returns the bank-wide total balance. The total is maintained as balances change,
+    * so this does not visit the accounts.
+    *
+    * @return the total balance
+    */
    public double getTotalBalance () {
-       return accounts.values().stream()
-               .mapToDouble(Account::getBalance)
-               .sum();
+       return balanceTotals.snapshot().getTotal();
+   }
+
+   /**
+    * Returns the maintained balance totals, bank-wide and per account type.
+    *
+    * @return a snapshot of the totals
+    */
+   public BalanceTotals.Snapshot getBalanceTotals() {
+       return balanceTotals.snapshot();
+   }
+
+   /**
+    * Marks the start of a transfer between accounts, so balance totals are never read with
+    * only some of its legs applied. Call {@link #endTransfer()} in a finally block, and save
+    * the ledger after it rather than inside the bracket.
+    */
+   public void beginTransfer() {
+       balanceTotals.beginTransfer();
+   }
+
+   /**
+    * Marks the end of a transfer started with {@link #beginTransfer()}.
+    */
+   public void endTransfer() {
+       balanceTotals.endTransfer();
+   }
+
+   /**
+    * Recomputes the balance totals from every account, in parallel.
+    *
+    * @return the recomputed totals
+    */
+   public BalanceTotals.Snapshot recomputeBalanceTotals() {
+       Map<String, Long> cents = accounts()
+               .parallel()
+               .collect(Collectors.groupingByConcurrent(Account::getAccountType,
+                       Collectors.summingLong(account -> TransactionStore.toCents(account.getBalance()))));
+       return new BalanceTotals.Snapshot(new TreeMap<>(cents));
+   }
+
+   /**
+    * Audits the maintained totals against a full recomputation. Balances that change while
+    * the audit runs can cause a false mismatch, so a mismatch is re-checked a few times.
+    *
+    * @return true if the maintained totals match the accounts
+    */
+   public boolean verifyBalanceTotals() {
+       for (int attempt = 0; attempt < 3; attempt++) {
+           if (balanceTotals.snapshot().equals(recomputeBalanceTotals())) {
+               return true;
+           }
+       }
+       return false;
    }
 
    public int getAccountCount(){
-       return accounts.size();
+       return accountCount;
    }
 
    public void saveAccountsToFile() throws IOException {
-       Path dataDir = Paths.get("src", "data");
-
        if (!Files.exists(dataDir)) {
            Files.createDirectories(dataDir);
        }
        
        Path accountsFile = dataDir.resolve("accounts.txt");
 
-       String content = accounts.values().stream()
+       String content = accounts()
                .map(this::formatAccountForFile)
                .collect(Collectors.joining(System.lineSeparator()));
 
@@ -80,6 +271,25 @@ public class AccountManager {
 
    private String formatAccountForFile(Account account) {
        Customer customer = account.getCustomer();
+       if (account instanceof SavingsAccount) {
+           // savings accounts also keep their interest accrual state
+           SavingsAccount savings = (SavingsAccount) account;
+           synchronized (savings) {
+               return formatAccountFields(savings, customer) + "|" + savings.getLastAccrualDay()
+                       + "|" + savings.getUnpostedInterest() + "|" + savings.getAccruedCents();
+           }
+       }
+       if (account instanceof CheckingAccount) {
+           // checking accounts also keep the last month charged, when there is one
+           YearMonth charged = ((CheckingAccount) account).getFeesChargedThrough();
+           if (charged != null) {
+               return formatAccountFields(account, customer) + "|" + charged;
+           }
+       }
+       return formatAccountFields(account, customer);
+   }
+
+   private String formatAccountFields(Account account, Customer customer) {
        return String.join("|",
                account.getAccountNumber(),
                account.getAccountType(),
@@ -95,7 +305,7 @@ public class AccountManager {
    }
 
    public void loadAccountsFromFile() throws IOException {
-       Path accountsFile = Paths.get("src", "data", "accounts.txt");
+       Path accountsFile = dataDir.resolve("accounts.txt");
        
        if (!Files.exists(accountsFile)) {
            return;
@@ -104,8 +314,17 @@ public class AccountManager {
        try (Stream<String> lines = Files.lines(accountsFile)) {
            lines.filter(line -> !line.trim().isEmpty())
                    .map(this::parseAccountFromLine)
-                   .forEach(account -> accounts.put(account.getAccountNumber().toUpperCase(), account));
+                   .forEach(this::putAccount);
        }
+       restoreAccountCounter();
+   }
+
+   private void restoreAccountCounter() {
+       long maxId = accounts()
+               .mapToLong(Account::getAccountId)
+               .max()
+               .orElse(0);
+       IdGenerator.ACCOUNTS.advanceTo(maxId);
    }
 
 
@@ -121,11 +340,9 @@ public class AccountManager {
            String customerContact = parts[6];
            String customerAddress = parts[7];
            String customerType = parts[8];
-           Customer customer = createCustomer(customerName, customerAge, "unknown@example.com", customerContact, customerAddress, customerType);
-           Account account = createAccount(accountType, customer, balance, status);
-           account.setAccountNumber(accountNumber);
-           return account;
-       } else if (parts.length == 10) {
+           Customer customer = customerManager.findOrCreate(customerName, customerAge, CustomerManager.UNKNOWN_EMAIL, customerContact, customerAddress, customerType);
+           return createAccount(accountNumber, accountType, customer, balance, status);
+       } else if (parts.length >= 10 && parts.length <= 13) {
            String accountNumber = parts[0];
            String accountType = parts[1];
            String status = parts[2];
@@ -136,37 +353,39 @@ public class AccountManager {
            String customerContact = parts[7];
            String customerAddress = parts[8];
            String customerType = parts[9];
-           Customer customer = createCustomer(customerName, customerAge, customerEmail, customerContact, customerAddress, customerType);
-           Account account = createAccount(accountType, customer, balance, status);
-           account.setAccountNumber(accountNumber);
+           Customer customer = customerManager.findOrCreate(customerName, customerAge, customerEmail, customerContact, customerAddress, customerType);
+           Account account = createAccount(accountNumber, accountType, customer, balance, status);
+           if (parts.length == 11 && account instanceof CheckingAccount) {
+               ((CheckingAccount) account).setFeesChargedThrough(YearMonth.parse(parts[10]));
+           }
+           if (parts.length >= 12 && account instanceof SavingsAccount) {
+               ((SavingsAccount) account).setLastAccrualDay(Long.parseLong(parts[10]));
+               ((SavingsAccount) account).setUnpostedInterest(Double.parseDouble(parts[11]));
+               if (parts.length == 13) {
+                   ((SavingsAccount) account).setAccruedCents(Double.parseDouble(parts[12]));
+               }
+           }
            return account;
        } else {
            throw new IllegalArgumentException("Invalid account line format: " + line);
        }
    }
 
-   private Customer createCustomer(String name, int age, String email, String contact, String address, String customerType) {
-       if ("Premium".equalsIgnoreCase(customerType)) {
-           return new PremiumCustomer(name, age, email, contact, address);
-       } else {
-           return new RegularCustomer(name, age, email, contact, address);
-       }
-   }
-
    /**
     * Creates an Account object based on the account type.
     *
+    * @param accountNumber the existing account number
     * @param accountType the account type (Savings or Checking)
     * @param customer the customer for the account
     * @param balance the account balance
     * @param status the account status
     * @return the created Account object
     */
-   private Account createAccount(String accountType, Customer customer, double balance, String status) {
+   private Account createAccount(String accountNumber, String accountType, Customer customer, double balance, String status) {
        if ("Savings".equalsIgnoreCase(accountType)) {
-           return new SavingsAccount(customer, balance, status);
+           return new SavingsAccount(accountNumber, customer, balance, status);
        } else {
-           return new CheckingAccount(customer, balance, status);
+           return new CheckingAccount(accountNumber, customer, balance, status);
        }
    }
 
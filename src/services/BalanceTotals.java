@@ -0,0 +1,181 @@
+package services;
+
+import models.Account;
+import models.BalanceListener;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bank-wide balance totals, kept per account type and updated on every balance change
+ * of a tracked account. Each change adds its difference in cents to a striped
+ * {@link LongAdder}, so concurrent deposits on different accounts do not contend, and
+ * reading the totals costs one sum per account type instead of a pass over all accounts.
+ *
+ * The bank-wide total of a snapshot is the sum of its per-type totals, so the two always
+ * agree. A snapshot taken while balances are changing includes each single change either
+ * fully or not at all. Operations that move money between accounts bracket their legs with
+ * {@link #beginTransfer()} and {@link #endTransfer()}. A snapshot sums only while no
+ * transfer is in flight and sums again if one started or finished meanwhile, so it never
+ * sees one side of a transfer without the other. Nothing takes a lock: transfers and
+ * single-account changes are never held up by a snapshot.
+ */
+public class BalanceTotals implements BalanceListener {
+    private final Map<String, LongAdder> centsByType = new ConcurrentHashMap<>();
+    private final AtomicInteger transfersInFlight = new AtomicInteger();
+    // bumped by every finished transfer, checked by snapshots like a seqlock
+    private final AtomicLong transferVersion = new AtomicLong();
+
+    /**
+     * Starts tracking an account: its current balance is added to the totals and every later
+     * change is applied as it happens.
+     *
+     * @param account the account to track
+     */
+    public void track(Account account) {
+        synchronized (account) {
+            // read first: reading a savings balance may credit accrued interest
+            long cents = TransactionStore.toCents(account.getBalance());
+            account.setBalanceListener(this);
+            adderOf(account.getAccountType()).add(cents);
+        }
+    }
+
+    /**
+     * Stops tracking an account and removes its balance from the totals.
+     *
+     * @param account the account to stop tracking
+     */
+    public void untrack(Account account) {
+        synchronized (account) {
+            long cents = TransactionStore.toCents(account.getBalance());
+            account.setBalanceListener(null);
+            adderOf(account.getAccountType()).add(-cents);
+        }
+    }
+
+    @Override
+    public void balanceChanged(Account account, double oldBalance, double newBalance) {
+        long delta = TransactionStore.toCents(newBalance) - TransactionStore.toCents(oldBalance);
+        if (delta != 0) {
+            adderOf(account.getAccountType()).add(delta);
+        }
+    }
+
+    /**
+     * Marks the start of an operation that changes several balances as one. Must be followed
+     * by {@link #endTransfer()} in a finally block, and the bracket should not include slow
+     * work such as file writes, since snapshots wait for it.
+     */
+    public void beginTransfer() {
+        transfersInFlight.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of an operation started with {@link #beginTransfer()}.
+     */
+    public void endTransfer() {
+        transferVersion.incrementAndGet();
+        transfersInFlight.decrementAndGet();
+    }
+
+    /**
+     * Reads the current totals, consistent with respect to transfers. Must not be called
+     * while holding an account lock.
+     *
+     * @return the totals per account type and bank-wide
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> cents = new TreeMap<>();
+        while (true) {
+            long version = transferVersion.get();
+            if (transfersInFlight.get() != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            for (Map.Entry<String, LongAdder> entry : centsByType.entrySet()) {
+                cents.put(entry.getKey(), entry.getValue().sum());
+            }
+            if (transfersInFlight.get() == 0 && transferVersion.get() == version) {
+                return new Snapshot(cents);
+            }
+            cents.clear();
+        }
+    }
+
+    private LongAdder adderOf(String accountType) {
+        return centsByType.computeIfAbsent(accountType, type -> new LongAdder());
+    }
+
+    /**
+     * Balance totals at one moment, in cents per account type.
+     */
+    public static final class Snapshot {
+        private final Map<String, Long> centsByType;
+        private final long totalCents;
+
+        Snapshot(Map<String, Long> centsByType) {
+            this.centsByType = Collections.unmodifiableMap(centsByType);
+            long total = 0;
+            for (long cents : centsByType.values()) {
+                total += cents;
+            }
+            this.totalCents = total;
+        }
+
+        /**
+         * Returns the bank-wide total balance.
+         *
+         * @return the total in dollars
+         */
+        public double getTotal() {
+            return TransactionStore.fromCents(totalCents);
+        }
+
+        /**
+         * Returns the total balance of one account type.
+         *
+         * @param accountType the account type, e.g. "Savings"
+         * @return the total in dollars, 0 if there are no accounts of that type
+         */
+        public double getTotal(String accountType) {
+            return TransactionStore.fromCents(centsByType.getOrDefault(accountType, 0L));
+        }
+
+        /**
+         * Returns the totals in cents, keyed by account type.
+         *
+         * @return an unmodifiable map of totals
+         */
+        public Map<String, Long> getCentsByType() {
+            return centsByType;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Snapshot)) {
+                return false;
+            }
+            // types whose accounts were all removed keep a zero entry
+            Map<String, Long> a = new TreeMap<>(centsByType);
+            Map<String, Long> b = new TreeMap<>(((Snapshot) other).centsByType);
+            a.values().removeIf(cents -> cents == 0);
+            b.values().removeIf(cents -> cents == 0);
+            return a.equals(b);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(totalCents);
+        }
+
+        @Override
+        public String toString() {
+            return "Total: $" + getTotal() + " " + centsByType;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package services;
+
+import models.Account;
+import models.CheckingAccount;
+import models.Customer;
+import models.PremiumCustomer;
+import models.RegularCustomer;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAccountException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import utils.ValidationUtils;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes a script of banking operations without the interactive menu, e.g. to replay a
+ * day's operations or as a regression and throughput test. One command per line, fields
+ * separated by '|'; blank lines and lines starting with '#' are skipped:
+ * <pre>
+ *   CREATE|Savings or Checking|Regular or Premium|name|age|email|contact|address|initialDeposit
+ *   DEPOSIT|ACC001|100.00
+ *   WITHDRAW|ACC001|50.00
+ *   TRANSFER|ACC001|ACC002|25.00
+ *   STATEMENT|ACC001[|from|to]       dates as YYYY-MM-DD
+ * </pre>
+ *
+ * Work is batched: consecutive account creations are saved to the accounts file once.
+ * Each ledger row is added to the ledger when its command runs, so the ledger keeps
+ * execution order, but the ledger file is appended to only once per {@value #LEDGER_BATCH}
+ * commands. The accounts file is rewritten once, at the end, with the final balances. A
+ * failing command is reported with its line number and the script goes on.
+ */
+public class BatchCommandRunner {
+    private static final int LEDGER_BATCH = 4096;
+
+    /**
+     * The commands a script can contain.
+     */
+    public enum Command {
+        CREATE, DEPOSIT, WITHDRAW, TRANSFER, STATEMENT
+    }
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final StatementGenerator statementGenerator;
+    private final PostingEngine postingEngine;
+    private final List<Account> pendingAccounts = new ArrayList<>();
+    private int unsavedCommands;
+
+    /**
+     * Constructs a BatchCommandRunner.
+     *
+     * @param accountManager the accounts
+     * @param transactionManager the ledger
+     * @param statementGenerator renders statements
+     */
+    public BatchCommandRunner(AccountManager accountManager, TransactionManager transactionManager,
+                              StatementGenerator statementGenerator) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.statementGenerator = statementGenerator;
+        this.postingEngine = new PostingEngine(accountManager, transactionManager);
+    }
+
+    /**
+     * Runs a script to the end.
+     *
+     * @param script the commands
+     * @param statements receives the statements the script asks for
+     * @param errors receives one line per failed command
+     * @return the run summary
+     * @throws IOException if the script cannot be read, a statement cannot be written or
+     *                     the accounts cannot be saved
+     */
+    public Result run(BufferedReader script, Writer statements, PrintStream errors) throws IOException {
+        long started = System.nanoTime();
+        Map<Command, Integer> executed = new EnumMap<>(Command.class);
+        int failed = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\|");
+            try {
+                Command command = parseCommand(fields[0]);
+                execute(command, fields, statements);
+                executed.merge(command, 1, Integer::sum);
+            } catch (IllegalArgumentException | InvalidAccountException | InvalidAmountException
+                     | InsufficientFundsException | OverdraftExceededException e) {
+                failed++;
+                errors.println("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        saveAccounts();
+        saveLedger();
+        // balances changed by the script are saved once, at the end
+        accountManager.saveAccountsToFile();
+        statements.flush();
+        return new Result(executed, failed, System.nanoTime() - started);
+    }
+
+    private void execute(Command command, String[] fields, Writer statements) throws IOException,
+            InvalidAccountException, InvalidAmountException, InsufficientFundsException, OverdraftExceededException {
+        if (command == Command.CREATE) {
+            pendingAccounts.add(createAccount(fields));
+            return;
+        }
+        saveAccounts();
+        switch (command) {
+            case DEPOSIT:
+            case WITHDRAW:
+                expectFields(fields, 3);
+                Account account = accountManager.findAccount(fields[1].trim());
+                TransactionType type = command == Command.DEPOSIT
+                        ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL;
+                double amount = parseAmount(fields[2]);
+                synchronized (account) {
+                    account.processTransaction(amount, type);
+                    // under the account lock, like a posting, so rows stay in the order balances changed
+                    transactionManager.appendBatch(List.of(
+                            new Transaction(account.getAccountNumber(), type, amount, account.getBalance())));
+                }
+                break;
+            case TRANSFER:
+                expectFields(fields, 4);
+                double transfer = parseAmount(fields[3]);
+                if (transfer <= 0) {
+                    throw new InvalidAmountException(transfer);
+                }
+                postingEngine.post(List.of(PostingEngine.Leg.debit(fields[1].trim(), transfer),
+                        PostingEngine.Leg.credit(fields[2].trim(), transfer)), false);
+                break;
+            default:
+                if (fields.length != 2 && fields.length != 4) {
+                    throw new IllegalArgumentException("STATEMENT takes an account and optionally two dates");
+                }
+                if (fields.length == 2) {
+                    statementGenerator.writeAccountStatement(fields[1].trim(), statements);
+                } else {
+                    try {
+                        statementGenerator.writePeriodStatement(fields[1].trim(), LocalDate.parse(fields[2].trim()),
+                                LocalDate.parse(fields[3].trim()), statements);
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("Dates must be in YYYY-MM-DD format");
+                    }
+                }
+                return;
+        }
+        if (++unsavedCommands == LEDGER_BATCH) {
+            saveLedger();
+        }
+    }
+
+    private static Command parseCommand(String name) {
+        try {
+            return Command.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown command: " + name.trim());
+        }
+    }
+
+    private Account createAccount(String[] fields) {
+        expectFields(fields, 9);
+        boolean checking = parseChoice(fields[1], "Savings", "Checking");
+        boolean premium = parseChoice(fields[2], "Regular", "Premium");
+        int age;
+        try {
+            age = Integer.parseInt(fields[4].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Age must be a number: " + fields[4]);
+        }
+        if (age < 1 || age > 120) {
+            throw new IllegalArgumentException("Age must be between 1 and 120");
+        }
+        double initialDeposit = parseAmount(fields[8]);
+        double minimumDeposit = !premium ? 500 : checking ? 0 : 10000;
+        if (initialDeposit < minimumDeposit) {
+            throw new IllegalArgumentException("Initial deposit must be at least $" + minimumDeposit);
+        }
+        Customer customer = premium
+                ? new PremiumCustomer(fields[3].trim(), age, fields[5].trim(), fields[6].trim(), fields[7].trim())
+                : new RegularCustomer(fields[3].trim(), age, fields[5].trim(), fields[6].trim(), fields[7].trim());
+        // registered now, so an email taken by a different customer fails this line and not the batch save
+        customer = accountManager.getCustomerManager().register(customer);
+        return checking
+                ? new CheckingAccount(customer, initialDeposit, "Active")
+                : new SavingsAccount(customer, initialDeposit, "Active");
+    }
+
+    private static boolean parseChoice(String value, String first, String second) {
+        if (value.trim().equalsIgnoreCase(first)) {
+            return false;
+        }
+        if (value.trim().equalsIgnoreCase(second)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Expected " + first + " or " + second + " but got " + value);
+    }
+
+    private static double parseAmount(String value) {
+        double amount;
+        try {
+            amount = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Amount must be a number: " + value);
+        }
+        if (!ValidationUtils.isWholeCents(amount)) {
+            throw new IllegalArgumentException("Amount must be finite and in whole cents: " + value);
+        }
+        return amount;
+    }
+
+    private static void expectFields(String[] fields, int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(fields[0].trim().toUpperCase() + " takes " + (count - 1)
+                    + " fields but got " + (fields.length - 1));
+        }
+    }
+
+    private void saveAccounts() {
+        if (!pendingAccounts.isEmpty()) {
+            accountManager.addAccounts(pendingAccounts);
+            pendingAccounts.clear();
+        }
+    }
+
+    /**
+     * Appends every ledger row not yet in the ledger file, deposits, withdrawals and
+     * transfer legs alike, in one write.
+     */
+    private void saveLedger() throws IOException {
+        transactionManager.flushJournal();
+        unsavedCommands = 0;
+    }
+
+    /**
+     * Summary of a script run.
+     */
+    public static final class Result {
+        private final Map<Command, Integer> executed;
+        private final int failed;
+        private final long elapsedNanos;
+
+        Result(Map<Command, Integer> executed, int failed, long elapsedNanos) {
+            this.executed = executed;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the number of commands of a kind that succeeded.
+         *
+         * @param command the command
+         * @return the count
+         */
+        public int getExecuted(Command command) {
+            return executed.getOrDefault(command, 0);
+        }
+
+        public int getTotalExecuted() {
+            return executed.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+            StringBuilder summary = new StringBuilder();
+            for (Command command : Command.values()) {
+                summary.append(String.format("%-10s %d%n", command, getExecuted(command)));
+            }
+            return summary.append(String.format("%d commands executed, %d failed in %.2f s (%.0f commands/s)",
+                    getTotalExecuted(), failed, seconds, (getTotalExecuted() + failed) / seconds)).toString();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package services;
+
+import models.Account;
+import utils.CachedClock;
+import utils.IntList;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Month-end statement run: writes one statement file per account for a calendar month.
+ *
+ * The ledger is read once and its rows are grouped by account handle; the accounts are
+ * then split into one contiguous slice per worker thread, and each worker renders its
+ * statements through a buffered writer over a {@link FileChannel}. A statement is written
+ * to a ".part" file and renamed when complete, so a run that is interrupted can simply
+ * be started again: accounts whose statement file already exists are skipped.
+ */
+public class BatchStatementJob {
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final StatementGenerator statementGenerator;
+    private final int workers;
+
+    /**
+     * Constructs a BatchStatementJob.
+     *
+     * @param accountManager the accounts to write statements for
+     * @param transactionManager the ledger to read
+     * @param workers the number of worker threads
+     */
+    public BatchStatementJob(AccountManager accountManager, TransactionManager transactionManager, int workers) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.statementGenerator = new StatementGenerator(accountManager, transactionManager);
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Writes the statements of every account for one month into {@code outputDir/<month>/<account>.txt}.
+     *
+     * @param month the statement month
+     * @param outputDir the base directory for statement files
+     * @param progress receives a progress line every {@value #PROGRESS_INTERVAL} statements and at the end
+     * @return the run summary
+     * @throws IOException if the output directory cannot be created
+     * @throws InterruptedException if the calling thread is interrupted; finished files are kept
+     */
+    public Result run(YearMonth month, Path outputDir, Consumer<String> progress)
+            throws IOException, InterruptedException {
+        Path monthDir = outputDir.resolve(month.toString());
+        Files.createDirectories(monthDir);
+        long started = System.nanoTime();
+
+        long fromMillis = CachedClock.startOfDayMillis(month.atDay(1).toEpochDay());
+        long toMillis = CachedClock.startOfDayMillis(month.plusMonths(1).atDay(1).toEpochDay());
+        IntList[] rowsByHandle = groupRowsByAccount(fromMillis, toMillis);
+
+        List<Account> accounts = new ArrayList<>();
+        accountManager.accounts().forEach(accounts::add);
+        String title = "ACCOUNT STATEMENT: " + month.atDay(1) + " TO " + month.atEndOfMonth();
+
+        Counters counters = new Counters(accounts.size());
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "statement-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> slices = new ArrayList<>();
+        int sliceSize = (accounts.size() + workers - 1) / workers;
+        for (int start = 0; start < accounts.size(); start += sliceSize) {
+            List<Account> slice = accounts.subList(start, Math.min(start + sliceSize, accounts.size()));
+            slices.add(pool.submit(() -> writeSlice(slice, rowsByHandle, title, monthDir, counters, progress, started)));
+        }
+        pool.shutdown();
+        try {
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+            throw e;
+        } catch (ExecutionException e) {
+            pool.shutdownNow();
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("Statement run failed", cause);
+        }
+
+        Result result = counters.toResult(System.nanoTime() - started);
+        progress.accept(result.toString());
+        return result;
+    }
+
+    /**
+     * Reads the ledger once and collects, per account handle, the rows inside the period.
+     */
+    private IntList[] groupRowsByAccount(long fromMillis, long toMillis) {
+        TransactionStore store = transactionManager.getStore();
+        IntList[] rowsByHandle = new IntList[store.getHandles().size()];
+        int size = store.size();
+        for (int row = 0; row < size; row++) {
+            long timestamp = store.timestamp(row);
+            if (timestamp < fromMillis || timestamp >= toMillis) {
+                continue;
+            }
+            int account = store.account(row);
+            if (account >= rowsByHandle.length) {
+                rowsByHandle = Arrays.copyOf(rowsByHandle, store.getHandles().size());
+            }
+            if (rowsByHandle[account] == null) {
+                rowsByHandle[account] = new IntList();
+            }
+            rowsByHandle[account].add(row);
+        }
+        return rowsByHandle;
+    }
+
+    private void writeSlice(List<Account> slice, IntList[] rowsByHandle, String title, Path monthDir,
+                            Counters counters, Consumer<String> progress, long started) {
+        AccountHandles handles = transactionManager.getStore().getHandles();
+        for (Account account : slice) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Path target = monthDir.resolve(account.getAccountNumber() + ".txt");
+            if (Files.exists(target)) {
+                counters.skipped.incrementAndGet();
+            } else {
+                int handle = handles.find(account.getAccountNumber());
+                IntList rows = handle >= 0 && handle < rowsByHandle.length ? rowsByHandle[handle] : null;
+                int[] accountRows = rows == null ? new int[0] : rows.toArray();
+                counters.bytes.addAndGet(writeStatementFile(account, accountRows, title, target));
+                counters.written.incrementAndGet();
+            }
+            int done = counters.done.incrementAndGet();
+            if (done % PROGRESS_INTERVAL == 0) {
+                progress.accept(counters.progressLine(done, System.nanoTime() - started));
+            }
+        }
+    }
+
+    private long writeStatementFile(Account account, int[] rows, String title, Path target) {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+                statementGenerator.writeStatement(account, title, rows, "No transactions in this period", out);
+            }
+            long bytes = Files.size(part);
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Counters {
+        private final int total;
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private Counters(int total) {
+            this.total = total;
+        }
+
+        private String progressLine(int done, long elapsedNanos) {
+            double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+            return String.format("%d/%d statements, %.0f statements/s, %.1f MB/s",
+                    done, total, written.get() / seconds, bytes.get() / seconds / 1e6);
+        }
+
+        private Result toResult(long elapsedNanos) {
+            return new Result(total, written.get(), skipped.get(), bytes.get(), elapsedNanos);
+        }
+    }
+
+    /**
+     * Summary of a statement run.
+     */
+    public static final class Result {
+        private final int accounts;
+        private final int written;
+        private final int skipped;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Result(int accounts, int written, int skipped, long bytes, long elapsedNanos) {
+            this.accounts = accounts;
+            this.written = written;
+            this.skipped = skipped;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getAccounts() {
+            return accounts;
+        }
+
+        public int getWritten() {
+            return written;
+        }
+
+        /**
+         * Returns the number of statements already written by an earlier, interrupted run.
+         *
+         * @return the skipped count
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+            return String.format("%d accounts: %d written, %d already done, %.1f MB in %.2f s (%.0f statements/s)",
+                    accounts, written, skipped, bytes / 1e6, seconds, written / seconds);
+        }
+    }
+}
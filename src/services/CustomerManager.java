@@ -0,0 +1,210 @@
+package services;
+
+import models.Account;
+import models.Customer;
+import models.PremiumCustomer;
+import models.RegularCustomer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of customers. Each person is stored once, identified by email address
+ * (ignoring case), and every account of that person references the same Customer.
+ * Repeated strings such as addresses are interned in a pool owned by the registry.
+ * Records written before emails were stored use a placeholder email, so those are
+ * identified by name and contact instead. A customer whose email is already registered
+ * to someone with a different name or customer type is rejected rather than merged, since
+ * the customer type decides fee waivers and minimum deposits.
+ */
+public class CustomerManager {
+    static final String UNKNOWN_EMAIL = "unknown@example.com";
+
+    private final Map<String, CustomerRecord> customers = new HashMap<>();
+    private final Map<String, String> stringPool = new HashMap<>();
+    private final CustomerSearchIndex searchIndex = new CustomerSearchIndex();
+
+    /**
+     * Returns the registered customer with the given details, creating it if needed.
+     * No Customer object is created when the customer is already known.
+     *
+     * @param name the customer name
+     * @param age the customer age
+     * @param email the customer email
+     * @param contact the customer contact
+     * @param address the customer address
+     * @param customerType "Premium" or "Regular"
+     * @return the shared customer
+     * @throws IllegalArgumentException if the email belongs to a customer with a different name or type
+     */
+    public synchronized Customer findOrCreate(String name, int age, String email, String contact,
+                                              String address, String customerType) {
+        CustomerRecord record = customers.get(identityKey(name, email, contact));
+        if (record != null) {
+            checkSameCustomer(record.customer, name, "Premium".equalsIgnoreCase(customerType));
+            return record.customer;
+        }
+        Customer customer;
+        if ("Premium".equalsIgnoreCase(customerType)) {
+            customer = new PremiumCustomer(intern(name), age, intern(email), intern(contact), intern(address));
+        } else {
+            customer = new RegularCustomer(intern(name), age, intern(email), intern(contact), intern(address));
+        }
+        customers.put(identityKey(name, email, contact), new CustomerRecord(customer));
+        searchIndex.add(customer);
+        return customer;
+    }
+
+    /**
+     * Registers a customer. If a customer with the same identity is already registered,
+     * that one is returned and the given object should be dropped by the caller.
+     *
+     * @param customer the customer to register
+     * @return the shared customer for that identity
+     * @throws IllegalArgumentException if the email belongs to a customer with a different name or type
+     */
+    public synchronized Customer register(Customer customer) {
+        String key = identityKey(customer.getName(), customer.getEmail(), customer.getContact());
+        CustomerRecord record = customers.get(key);
+        if (record != null) {
+            if (record.customer != customer) {
+                checkSameCustomer(record.customer, customer.getName(), customer instanceof PremiumCustomer);
+            }
+            return record.customer;
+        }
+        customer.setName(intern(customer.getName()));
+        customer.setEmail(intern(customer.getEmail()));
+        customer.setContact(intern(customer.getContact()));
+        customer.setAddress(intern(customer.getAddress()));
+        customers.put(key, new CustomerRecord(customer));
+        searchIndex.add(customer);
+        return customer;
+    }
+
+    /**
+     * Links an account to its (registered) customer. An account with the same account
+     * number replaces the earlier one, so reloading data does not duplicate links.
+     *
+     * @param account the account to link
+     */
+    public synchronized void linkAccount(Account account) {
+        CustomerRecord record = recordOf(account.getCustomer());
+        if (record == null) {
+            return;
+        }
+        record.accounts.removeIf(existing -> existing.getAccountNumber().equalsIgnoreCase(account.getAccountNumber()));
+        record.accounts.add(account);
+    }
+
+    /**
+     * Removes the link between an account and its customer.
+     *
+     * @param account the account to unlink
+     */
+    public synchronized void unlinkAccount(Account account) {
+        CustomerRecord record = recordOf(account.getCustomer());
+        if (record != null) {
+            record.accounts.remove(account);
+        }
+    }
+
+    /**
+     * Returns all accounts of a customer.
+     *
+     * @param customer the customer
+     * @return a copy of the customer's accounts, empty if the customer is not registered
+     */
+    public synchronized List<Account> getAccounts(Customer customer) {
+        CustomerRecord record = recordOf(customer);
+        return record == null ? new ArrayList<>() : new ArrayList<>(record.accounts);
+    }
+
+    /**
+     * Finds a customer by email address, ignoring case.
+     *
+     * @param email the email address
+     * @return the customer, or null if none is registered with that email
+     */
+    public synchronized Customer findByEmail(String email) {
+        if (email == null || UNKNOWN_EMAIL.equalsIgnoreCase(email)) {
+            return null;
+        }
+        CustomerRecord record = customers.get(email.toLowerCase(Locale.ROOT));
+        return record == null ? null : record.customer;
+    }
+
+    /**
+     * Type-ahead search over customer names, emails and phone numbers.
+     * See {@link CustomerSearchIndex#search(String, int)} for the matching rules.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of customers to return
+     * @return the matching customers, prefix matches first
+     */
+    public synchronized List<Customer> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Returns every registered customer.
+     *
+     * @return a copy of the registered customers
+     */
+    public synchronized List<Customer> getCustomers() {
+        List<Customer> result = new ArrayList<>(customers.size());
+        for (CustomerRecord record : customers.values()) {
+            result.add(record.customer);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of registered customers.
+     *
+     * @return the customer count
+     */
+    public synchronized int getCustomerCount() {
+        return customers.size();
+    }
+
+    private CustomerRecord recordOf(Customer customer) {
+        if (customer == null) {
+            return null;
+        }
+        CustomerRecord record = customers.get(identityKey(customer.getName(), customer.getEmail(), customer.getContact()));
+        return record != null && record.customer == customer ? record : null;
+    }
+
+    private static void checkSameCustomer(Customer registered, String name, boolean premium) {
+        if (!registered.getName().equalsIgnoreCase(name) || (registered instanceof PremiumCustomer) != premium) {
+            throw new IllegalArgumentException("Email " + registered.getEmail() + " is already registered to "
+                    + registered.getCustomerType() + " customer " + registered.getName());
+        }
+    }
+
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = stringPool.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    private static String identityKey(String name, String email, String contact) {
+        if (email != null && !email.isEmpty() && !UNKNOWN_EMAIL.equalsIgnoreCase(email)) {
+            return email.toLowerCase(Locale.ROOT);
+        }
+        return (name + "|" + contact).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class CustomerRecord {
+        private final Customer customer;
+        private final List<Account> accounts = new ArrayList<>(2);
+
+        private CustomerRecord(Customer customer) {
+            this.customer = customer;
+        }
+    }
+}
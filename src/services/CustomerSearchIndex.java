@@ -0,0 +1,354 @@
+package services;
+
+import models.Customer;
+import utils.IntList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory type-ahead index over customer names, emails and phone numbers.
+ * Every field is broken into normalised terms (lower-cased name words, the email and
+ * its local part, the digits of the phone number). Terms are kept in a sorted map, which
+ * serves prefix lookups directly and is walked like a trie to find terms that start
+ * within a small edit distance of a misspelled query.
+ *
+ * The index is not thread-safe; {@link CustomerManager} calls it under its own lock.
+ * Customers are indexed with the field values they had when added.
+ */
+public class CustomerSearchIndex {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int DRIVER_SCAN_LIMIT = 256;
+
+    private final List<Customer> customers = new ArrayList<>();
+    private final List<String[]> customerTerms = new ArrayList<>();
+    private final Map<Customer, Integer> customerIds = new HashMap<>();
+    private final NavigableMap<String, IntList> postings = new TreeMap<>();
+
+    /**
+     * Adds a customer to the index. Adding the same customer twice has no effect.
+     *
+     * @param customer the customer to index
+     */
+    public void add(Customer customer) {
+        if (customerIds.containsKey(customer)) {
+            return;
+        }
+        int id = customers.size();
+        customers.add(customer);
+        customerIds.put(customer, id);
+        List<String> terms = termsOf(customer);
+        customerTerms.add(terms.toArray(new String[0]));
+        for (String term : terms) {
+            IntList list = postings.get(term);
+            if (list == null) {
+                list = new IntList();
+                postings.put(term, list);
+            }
+            if (list.isEmpty() || list.get(list.size() - 1) != id) {
+                list.add(id);
+            }
+        }
+    }
+
+    /**
+     * Finds customers matching every word of the query. Each word matches a term that
+     * starts with it; when there are fewer prefix matches than the limit, terms starting
+     * within one edit (two for words of six or more characters) are accepted as well.
+     * Prefix matches are returned first.
+     *
+     * The postings of every word are looked up before any customer is visited. A word
+     * without postings ends the pass at once; otherwise the rarest word supplies the
+     * candidates and the other words are checked against the terms each candidate was
+     * indexed with, so customers are never re-tokenised.
+     *
+     * @param query the text typed so far, e.g. "jo smi", "jane@" or "555-01"
+     * @param limit the maximum number of customers to return
+     * @return the matching customers
+     */
+    public List<Customer> search(String query, int limit) {
+        List<Customer> result = new ArrayList<>();
+        List<String> words = queryWords(query);
+        if (words.isEmpty() || limit <= 0) {
+            return result;
+        }
+        List<List<Collection<IntList>>> matches = new ArrayList<>(words.size());
+        boolean fuzzy = false;
+        for (String word : words) {
+            List<Collection<IntList>> wordMatches = new ArrayList<>();
+            wordMatches.add(prefixTerms(word));
+            matches.add(wordMatches);
+            fuzzy |= maxEdits(word) > 0;
+        }
+        Set<Integer> seen = new HashSet<>();
+        collect(matches, words, false, seen, result, limit);
+        if (result.size() < limit && fuzzy) {
+            for (int i = 0; i < words.size(); i++) {
+                if (maxEdits(words.get(i)) > 0) {
+                    for (String prefix : fuzzyPrefixes(words.get(i))) {
+                        matches.get(i).add(prefixTerms(prefix));
+                    }
+                }
+            }
+            collect(matches, words, true, seen, result, limit);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed customers.
+     *
+     * @return the customer count
+     */
+    public int size() {
+        return customers.size();
+    }
+
+    private void collect(List<List<Collection<IntList>>> matches, List<String> words, boolean fuzzy,
+                         Set<Integer> seen, List<Customer> result, int limit) {
+        int driver = pickDriver(matches, words);
+        if (driver < 0) {
+            return;
+        }
+        for (Collection<IntList> terms : matches.get(driver)) {
+            for (IntList ids : terms) {
+                for (int i = 0; i < ids.size(); i++) {
+                    int id = ids.get(i);
+                    if (seen.contains(id)) {
+                        continue;
+                    }
+                    if (matchesOthers(customerTerms.get(id), words, driver, fuzzy)) {
+                        seen.add(id);
+                        result.add(customers.get(id));
+                        if (result.size() == limit) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks the word whose postings supply the candidates: the one with the fewest postings,
+     * counting at most {@link #DRIVER_SCAN_LIMIT} posting lists per word, or the longest word
+     * when every word has more lists than that. Returns -1 if some word has no postings.
+     */
+    private static int pickDriver(List<List<Collection<IntList>>> matches, List<String> words) {
+        for (List<Collection<IntList>> wordMatches : matches) {
+            boolean empty = true;
+            for (Collection<IntList> terms : wordMatches) {
+                empty &= terms.isEmpty();
+            }
+            if (empty) {
+                return -1;
+            }
+        }
+        int driver = -1;
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < matches.size(); i++) {
+            long count = postingCount(matches.get(i), fewest);
+            if (count < fewest) {
+                driver = i;
+                fewest = count;
+            }
+        }
+        if (driver < 0) {
+            driver = 0;
+            for (int i = 1; i < words.size(); i++) {
+                if (words.get(i).length() > words.get(driver).length()) {
+                    driver = i;
+                }
+            }
+        }
+        return driver;
+    }
+
+    private static long postingCount(List<Collection<IntList>> wordMatches, long cap) {
+        long count = 0;
+        int lists = 0;
+        for (Collection<IntList> terms : wordMatches) {
+            for (IntList ids : terms) {
+                count += ids.size();
+                if (count >= cap || ++lists > DRIVER_SCAN_LIMIT) {
+                    return Long.MAX_VALUE;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Collection<IntList> prefixTerms(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    /**
+     * Walks the sorted terms as if they formed a trie, carrying one row of the edit-distance
+     * table per character, and collects the shortest term prefixes within the edit bound.
+     * Every term under such a prefix is a fuzzy match; branches whose row minimum already
+     * exceeds the bound are skipped, so only a small part of the terms is visited.
+     */
+    private List<String> fuzzyPrefixes(String word) {
+        List<String> matches = new ArrayList<>();
+        int[] firstRow = new int[word.length() + 1];
+        for (int j = 0; j < firstRow.length; j++) {
+            firstRow[j] = j;
+        }
+        collectFuzzy("", firstRow, word, maxEdits(word), matches);
+        return matches;
+    }
+
+    private void collectFuzzy(String prefix, int[] row, String word, int maxEdits, List<String> matches) {
+        String term = postings.ceilingKey(prefix);
+        while (term != null && term.startsWith(prefix)) {
+            if (term.length() == prefix.length()) {
+                term = postings.higherKey(term);
+                continue;
+            }
+            char c = term.charAt(prefix.length());
+            String child = prefix + c;
+            int[] next = nextRow(row, word, c);
+            if (next[word.length()] <= maxEdits) {
+                matches.add(child);
+            } else if (min(next) <= maxEdits) {
+                collectFuzzy(child, next, word, maxEdits, matches);
+            }
+            if (c == Character.MAX_VALUE) {
+                break;
+            }
+            term = postings.ceilingKey(prefix + (char) (c + 1));
+        }
+    }
+
+    private static boolean matchesOthers(String[] terms, List<String> words, int skip, boolean fuzzy) {
+        for (int i = 0; i < words.size(); i++) {
+            if (i == skip) {
+                continue;
+            }
+            String word = words.get(i);
+            boolean found = false;
+            for (String term : terms) {
+                if (term.startsWith(word) || (fuzzy && prefixWithinEdits(word, term, maxEdits(word)))) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> termsOf(Customer customer) {
+        List<String> result = new ArrayList<>(6);
+        if (customer.getName() != null) {
+            for (String word : WORD_SEPARATOR.split(customer.getName().toLowerCase(Locale.ROOT))) {
+                addTerm(result, word);
+            }
+        }
+        String email = customer.getEmail();
+        if (email != null && !CustomerManager.UNKNOWN_EMAIL.equalsIgnoreCase(email)) {
+            String lower = email.toLowerCase(Locale.ROOT);
+            addTerm(result, lower);
+            int at = lower.indexOf('@');
+            if (at > 0) {
+                addTerm(result, lower.substring(0, at));
+            }
+        }
+        if (customer.getContact() != null) {
+            addTerm(result, digitsOf(customer.getContact()));
+        }
+        return result;
+    }
+
+    private static void addTerm(List<String> result, String term) {
+        if (!term.isEmpty() && !result.contains(term)) {
+            result.add(term);
+        }
+    }
+
+    private static List<String> queryWords(String query) {
+        List<String> words = new ArrayList<>();
+        if (query == null) {
+            return words;
+        }
+        for (String word : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            // phone numbers are indexed as bare digits, whatever separators were typed
+            String digits = digitsOf(word);
+            words.add(word.indexOf('@') < 0 && !digits.isEmpty() && digits.length() * 2 >= word.length()
+                    ? digits : word);
+        }
+        return words;
+    }
+
+    private static String digitsOf(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int maxEdits(String word) {
+        if (word.length() < 3) {
+            return 0;
+        }
+        return word.length() < 6 ? 1 : 2;
+    }
+
+    /**
+     * Returns true if some prefix of the term is within the given number of edits of the word.
+     */
+    static boolean prefixWithinEdits(String word, String term, int maxEdits) {
+        int[] row = new int[word.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        if (row[word.length()] <= maxEdits) {
+            return true;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            row = nextRow(row, word, term.charAt(i));
+            if (row[word.length()] <= maxEdits) {
+                return true;
+            }
+            if (min(row) > maxEdits) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static int[] nextRow(int[] row, String word, char c) {
+        int[] next = new int[row.length];
+        next[0] = row[0] + 1;
+        for (int j = 1; j < row.length; j++) {
+            int cost = word.charAt(j - 1) == c ? 0 : 1;
+            next[j] = Math.min(Math.min(next[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+        }
+        return next;
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+}
@@ -0,0 +1,121 @@
+package services;
+
+import java.util.Arrays;
+
+/**
+ * End-of-day balance checkpoints per account: for every day on which an account had a
+ * transaction, the balance after its last transaction of that day. Checkpoints are kept
+ * in day order, so the balance at the end of any day is a binary search away.
+ *
+ * The checkpoints are not stored on disk: {@link TransactionManager} rebuilds them as it
+ * loads the ledger, which it reads at startup anyway.
+ * Not thread-safe; {@link TransactionManager} updates and reads it under its own lock.
+ */
+public class DailyBalanceSnapshots {
+    private History[] histories = new History[16];
+
+    /**
+     * Records the balance after a transaction.
+     *
+     * @param account the account handle
+     * @param epochDay the day of the transaction
+     * @param balanceCents the balance after the transaction, in cents
+     * @param timestampMillis the transaction time, used to keep the day's last balance
+     */
+    public void record(int account, long epochDay, long balanceCents, long timestampMillis) {
+        if (account >= histories.length) {
+            histories = Arrays.copyOf(histories, Math.max(account + 1, histories.length * 2));
+        }
+        if (histories[account] == null) {
+            histories[account] = new History();
+        }
+        histories[account].record((int) epochDay, balanceCents, timestampMillis);
+    }
+
+    /**
+     * Returns the balance of an account at the end of a day, in cents.
+     *
+     * @param account the account handle
+     * @param epochDay the day
+     * @return the balance, or {@code Long.MIN_VALUE} if the account had no transaction on or before that day
+     */
+    public long balanceAtEndOfDay(int account, long epochDay) {
+        History history = account >= 0 && account < histories.length ? histories[account] : null;
+        if (history == null) {
+            return Long.MIN_VALUE;
+        }
+        int index = history.lastIndexAtOrBefore((int) epochDay);
+        return index < 0 ? Long.MIN_VALUE : history.cents[index];
+    }
+
+    /**
+     * Returns the number of checkpoints kept for an account.
+     *
+     * @param account the account handle
+     * @return the checkpoint count
+     */
+    public int checkpointCount(int account) {
+        History history = account >= 0 && account < histories.length ? histories[account] : null;
+        return history == null ? 0 : history.size;
+    }
+
+    /**
+     * Checkpoints of one account, sorted by day.
+     */
+    private static final class History {
+        private int[] days = new int[4];
+        private long[] cents = new long[4];
+        private long[] stamps = new long[4];
+        private int size;
+
+        private void record(int day, long balanceCents, long timestampMillis) {
+            if (size > 0 && days[size - 1] < day) {
+                append(day, balanceCents, timestampMillis);
+                return;
+            }
+            int index = lastIndexAtOrBefore(day);
+            if (index >= 0 && days[index] == day) {
+                if (timestampMillis >= stamps[index]) {
+                    cents[index] = balanceCents;
+                    stamps[index] = timestampMillis;
+                }
+                return;
+            }
+            // a day before the latest checkpoint, e.g. from a ledger that is not in time order
+            append(day, balanceCents, timestampMillis);
+            int insertAt = index + 1;
+            System.arraycopy(days, insertAt, days, insertAt + 1, size - 1 - insertAt);
+            System.arraycopy(cents, insertAt, cents, insertAt + 1, size - 1 - insertAt);
+            System.arraycopy(stamps, insertAt, stamps, insertAt + 1, size - 1 - insertAt);
+            days[insertAt] = day;
+            cents[insertAt] = balanceCents;
+            stamps[insertAt] = timestampMillis;
+        }
+
+        private void append(int day, long balanceCents, long timestampMillis) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                cents = Arrays.copyOf(cents, size * 2);
+                stamps = Arrays.copyOf(stamps, size * 2);
+            }
+            days[size] = day;
+            cents[size] = balanceCents;
+            stamps[size] = timestampMillis;
+            size++;
+        }
+
+        private int lastIndexAtOrBefore(int day) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (days[middle] <= day) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+    }
+}
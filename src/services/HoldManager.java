@@ -0,0 +1,370 @@
+package services;
+
+import models.Account;
+import models.Hold;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAccountException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import utils.CachedClock;
+import utils.IdGenerator;
+import utils.TimingWheel;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authorizations: funds held on an account that are later captured, i.e. debited, or
+ * released. A held amount lowers the account's available balance while the ledger balance
+ * stays the same, and the account's minimum-balance or overdraft rules apply to it just
+ * like to a withdrawal.
+ *
+ * Open holds are kept in a map by id and in a {@link TimingWheel} by expiry time, so
+ * placing, capturing and releasing a hold take constant time however many holds are open,
+ * and expiry costs nothing until a hold actually expires. A ticker thread advances the
+ * wheel every second and releases expired holds.
+ *
+ * Open holds are persisted in an append-only journal ({@code holds.txt}): one line per
+ * new hold and per capture or release, so held funds stay held across restarts and a
+ * hold placed before a restart can still be captured. Expiries are not journaled;
+ * loading replays the journal, drops the holds that expired in the meantime and
+ * compacts it.
+ *
+ * The manager's lock is never held while an account is locked or the ledger is written.
+ */
+public class HoldManager {
+    private static final long TICK_MILLIS = 1000;
+    private static final int SLOTS_PER_LEVEL = 256;
+    private static final int LEVELS = 3;
+    private static final String JOURNAL_FILE = "holds.txt";
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final Path dataDir;
+    private final Map<Long, Open> holds = new HashMap<>();
+    private final TimingWheel<Hold> wheel;
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructs a HoldManager.
+     *
+     * @param accountManager the accounts funds are held on
+     * @param transactionManager the ledger that records captured holds
+     * @param dataDir the directory holding the hold journal
+     */
+    public HoldManager(AccountManager accountManager, TransactionManager transactionManager, Path dataDir) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.dataDir = dataDir;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, SLOTS_PER_LEVEL, LEVELS, CachedClock.currentTimeMillis());
+    }
+
+    /**
+     * Holds funds on an account.
+     *
+     * @param accountNumber the account number
+     * @param amount the amount to hold
+     * @param expiresAtMillis when the hold is released unless captured, in epoch milliseconds
+     * @return the new hold
+     * @throws InvalidAccountException if the account does not exist
+     * @throws InvalidAmountException if the amount is negative or zero
+     * @throws InsufficientFundsException if there are insufficient available funds
+     * @throws OverdraftExceededException if the hold would exceed the overdraft limit
+     * @throws IOException if the hold cannot be written to the journal; the funds are not held then
+     */
+    public Hold placeHold(String accountNumber, double amount, long expiresAtMillis)
+            throws InvalidAccountException, InvalidAmountException, InsufficientFundsException,
+            OverdraftExceededException, IOException {
+        Account account = accountManager.findAccount(accountNumber);
+        account.placeHold(amount);
+        Hold hold = new Hold(accountNumber, amount, expiresAtMillis);
+        try {
+            synchronized (this) {
+                appendToJournal(List.of(formatHold(hold)));
+                holds.put(hold.getHoldNumber(), new Open(hold, account, wheel.schedule(expiresAtMillis, hold)));
+            }
+        } catch (IOException e) {
+            account.releaseHold(amount);
+            throw e;
+        }
+        return hold;
+    }
+
+    /**
+     * Captures a hold: debits the captured amount, releases the rest of the hold and
+     * records a withdrawal in the ledger.
+     *
+     * @param holdId the hold id, e.g. "HLD001"
+     * @param amount the amount to debit, at most the amount held
+     * @return the withdrawal transaction, or null if the hold was already captured, released or expired
+     * @throws InvalidAmountException if the amount is not positive or more than the amount held
+     * @throws IOException if the capture cannot be written to the journal; the hold stays open then
+     */
+    public Transaction capture(String holdId, double amount) throws InvalidAmountException, IOException {
+        if (amount <= 0) {
+            throw new InvalidAmountException(amount);
+        }
+        Open open;
+        synchronized (this) {
+            open = holds.get(IdGenerator.HOLDS.parse(holdId));
+            if (open == null) {
+                return null;
+            }
+            if (amount > open.hold.getAmount()) {
+                throw new InvalidAmountException("Cannot capture $" + amount + " from a hold of $"
+                        + open.hold.getAmount());
+            }
+            appendToJournal(List.of("C|" + open.hold.getHoldId()));
+            close(open);
+        }
+        Transaction transaction;
+        synchronized (open.account) {
+            open.account.captureHold(open.hold.getAmount(), amount);
+            transaction = new Transaction(open.hold.getAccountNumber(), TransactionType.WITHDRAWAL, amount,
+                    open.account.getBalance());
+            // appended under the account lock so the account's rows stay in execution order
+            transactionManager.appendBatch(List.of(transaction));
+        }
+        try {
+            transactionManager.flushJournal();
+        } catch (IOException e) {
+            System.out.println("Error saving transactions to file :" + e.getMessage());
+        }
+        captured.incrementAndGet();
+        return transaction;
+    }
+
+    /**
+     * Releases a hold without moving any money.
+     *
+     * @param holdId the hold id, e.g. "HLD001"
+     * @return true if the hold was still open
+     * @throws IOException if the release cannot be written to the journal; the hold stays open then
+     */
+    public boolean release(String holdId) throws IOException {
+        Open open;
+        synchronized (this) {
+            open = holds.get(IdGenerator.HOLDS.parse(holdId));
+            if (open == null) {
+                return false;
+            }
+            appendToJournal(List.of("C|" + open.hold.getHoldId()));
+            close(open);
+        }
+        open.account.releaseHold(open.hold.getAmount());
+        released.incrementAndGet();
+        return true;
+    }
+
+    private void close(Open open) {
+        holds.remove(open.hold.getHoldNumber());
+        wheel.cancel(open.handle);
+    }
+
+    /**
+     * Releases every hold that expired up to the given time. Called by the ticker every
+     * second; may also be called directly. Expired holds stay in the journal until the
+     * next load drops them.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @return the number of holds released
+     */
+    public int expireDue(long nowMillis) {
+        List<Open> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(nowMillis, hold -> due.add(holds.remove(hold.getHoldNumber())));
+        }
+        for (Open open : due) {
+            open.account.releaseHold(open.hold.getAmount());
+        }
+        expired.addAndGet(due.size());
+        return due.size();
+    }
+
+    /**
+     * Returns the open holds on an account.
+     *
+     * @param accountNumber the account number
+     * @return the holds, in no particular order
+     */
+    public synchronized List<Hold> getHolds(String accountNumber) {
+        List<Hold> result = new ArrayList<>();
+        for (Open open : holds.values()) {
+            if (accountNumber.equals(open.hold.getAccountNumber())) {
+                result.add(open.hold);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int getOpenCount() {
+        return holds.size();
+    }
+
+    public long getCapturedCount() {
+        return captured.get();
+    }
+
+    public long getReleasedCount() {
+        return released.get();
+    }
+
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    /**
+     * Starts the ticker thread that releases holds as they expire.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> expireDue(CachedClock.currentTimeMillis()),
+                TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the ticker. Open holds stay in place until captured or released.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Replaces the open holds with those in the journal and rewrites the journal compacted.
+     * Holds that expired while the application was down, or whose account no longer
+     * exists, are dropped. Load the accounts first.
+     *
+     * @throws IOException if the journal cannot be read or rewritten
+     */
+    public void load() throws IOException {
+        List<Open> previous;
+        synchronized (this) {
+            previous = new ArrayList<>(holds.values());
+            for (Open open : previous) {
+                wheel.cancel(open.handle);
+            }
+            holds.clear();
+        }
+        for (Open open : previous) {
+            open.account.releaseHold(open.hold.getAmount());
+        }
+        Path journal = dataDir.resolve(JOURNAL_FILE);
+        if (!Files.exists(journal)) {
+            return;
+        }
+        Map<Long, Hold> replayed = new LinkedHashMap<>();
+        long maxId = 0;
+        for (String line : Files.readAllLines(journal)) {
+            if (!line.trim().isEmpty()) {
+                maxId = Math.max(maxId, replay(line, replayed));
+            }
+        }
+        // closed holds count too, so no id the card flow has seen is handed out again
+        IdGenerator.HOLDS.advanceTo(maxId);
+
+        long now = CachedClock.currentTimeMillis();
+        List<Open> restored = new ArrayList<>(replayed.size());
+        for (Hold hold : replayed.values()) {
+            if (hold.getExpiresAtMillis() <= now) {
+                continue;
+            }
+            try {
+                Account account = accountManager.findAccount(hold.getAccountNumber());
+                account.restoreHold(hold.getAmount());
+                restored.add(new Open(hold, account, null));
+            } catch (InvalidAccountException e) {
+                // the account was closed; its holds go with it
+            }
+        }
+        List<String> compacted = new ArrayList<>(restored.size());
+        synchronized (this) {
+            for (Open open : restored) {
+                holds.put(open.hold.getHoldNumber(), new Open(open.hold, open.account,
+                        wheel.schedule(open.hold.getExpiresAtMillis(), open.hold)));
+                compacted.add(formatHold(open.hold));
+            }
+            Path temp = journal.resolveSibling(JOURNAL_FILE + ".tmp");
+            Files.write(temp, compacted);
+            Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static long replay(String line, Map<Long, Hold> replayed) {
+        String[] parts = line.split("\\|");
+        long id = IdGenerator.HOLDS.parse(parts.length > 1 ? parts[1] : "");
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid hold line: " + line);
+        }
+        switch (parts[0]) {
+            case "A":
+                if (parts.length != 5) {
+                    throw new IllegalArgumentException("Invalid hold line: " + line);
+                }
+                replayed.put(id, new Hold(id, parts[2], Double.parseDouble(parts[3]), Long.parseLong(parts[4])));
+                break;
+            case "C":
+                replayed.remove(id);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid hold line: " + line);
+        }
+        return id;
+    }
+
+    private static String formatHold(Hold hold) {
+        return String.join("|", "A", hold.getHoldId(), hold.getAccountNumber(),
+                String.valueOf(hold.getAmount()), String.valueOf(hold.getExpiresAtMillis()));
+    }
+
+    private void appendToJournal(List<String> lines) throws IOException {
+        if (!Files.exists(dataDir)) {
+            Files.createDirectories(dataDir);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(dataDir.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static final class Open {
+        private final Hold hold;
+        private final Account account;
+        private final TimingWheel.Handle handle;
+
+        private Open(Hold hold, Account account, TimingWheel.Handle handle) {
+            this.hold = hold;
+            this.account = account;
+            this.handle = handle;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package services;
+
+import models.Account;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Interest posting run: records the interest each savings account has been credited since
+ * the last run as an {@link TransactionType#INTEREST} transaction.
+ *
+ * Savings accounts accrue interest lazily whenever their balance is read or changed, so
+ * balances are correct without this run; it only brings dormant accounts up to date and
+ * puts the interest on the ledger, e.g. at the end of each month. Accounts are processed
+ * in parallel in fixed-size slices. Each account is locked only while its interest is
+ * taken; each slice adds its transactions to the ledger under one lock acquisition, and
+ * the ledger file gets a single append for the whole run.
+ */
+public class InterestAccrualEngine {
+    private static final int SLICE_SIZE = 4096;
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+
+    /**
+     * Constructs an InterestAccrualEngine.
+     *
+     * @param accountManager the accounts to credit
+     * @param transactionManager the ledger to record interest in
+     */
+    public InterestAccrualEngine(AccountManager accountManager, TransactionManager transactionManager) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Posts the interest accrued by every savings account since the last posting.
+     *
+     * @return the run summary
+     * @throws IOException if the ledger file cannot be written; the in-memory ledger is already updated
+     */
+    public Result post() throws IOException {
+        long started = System.nanoTime();
+        Account[] accounts = accountManager.accounts().toArray(Account[]::new);
+        LongAdder savings = new LongAdder();
+        LongAdder credited = new LongAdder();
+        LongAdder interestCents = new LongAdder();
+
+        int slices = (accounts.length + SLICE_SIZE - 1) / SLICE_SIZE;
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            int from = slice * SLICE_SIZE;
+            int to = Math.min(from + SLICE_SIZE, accounts.length);
+            List<Transaction> batch = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                if (!(accounts[i] instanceof SavingsAccount)) {
+                    continue;
+                }
+                SavingsAccount account = (SavingsAccount) accounts[i];
+                savings.increment();
+                synchronized (account) {
+                    double interest = account.takeUnpostedInterest();
+                    if (interest > 0) {
+                        batch.add(new Transaction(account.getAccountNumber(), TransactionType.INTEREST,
+                                interest, account.getBalance()));
+                        interestCents.add(TransactionStore.toCents(interest));
+                    }
+                }
+            }
+            transactionManager.appendBatch(batch);
+            credited.add(batch.size());
+        });
+        transactionManager.flushJournal();
+
+        return new Result(savings.intValue(), credited.intValue(),
+                TransactionStore.fromCents(interestCents.sum()), System.nanoTime() - started);
+    }
+
+    /**
+     * Summary of an interest posting run.
+     */
+    public static final class Result {
+        private final int savingsAccounts;
+        private final int credited;
+        private final double totalInterest;
+        private final long elapsedNanos;
+
+        Result(int savingsAccounts, int credited, double totalInterest, long elapsedNanos) {
+            this.savingsAccounts = savingsAccounts;
+            this.credited = credited;
+            this.totalInterest = totalInterest;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getSavingsAccounts() {
+            return savingsAccounts;
+        }
+
+        /**
+         * Returns the number of accounts that earned at least a cent and got an interest transaction.
+         *
+         * @return the credited count
+         */
+        public int getCredited() {
+            return credited;
+        }
+
+        public double getTotalInterest() {
+            return totalInterest;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the number of savings accounts processed per second.
+         *
+         * @return the throughput
+         */
+        public double getAccountsPerSecond() {
+            return savingsAccounts / Math.max(elapsedNanos / 1e9, 1e-9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d savings accounts: %d credited, $%.2f interest in %.2f s (%.0f accounts/s)",
+                    savingsAccounts, credited, totalInterest, elapsedNanos / 1e9, getAccountsPerSecond());
+        }
+    }
+}
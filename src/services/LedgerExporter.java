@@ -0,0 +1,403 @@
+package services;
+
+import models.TransactionType;
+import utils.CachedClock;
+import utils.IdGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Streams ledger extracts as CSV or JSON.
+ *
+ * Rows are read straight from the ledger columns and encoded into one reusable byte
+ * buffer that is written to the channel whenever it fills up; no string or list is built
+ * per record, so memory use is the same for ten rows or a hundred million. A ledger
+ * export scans the ledger in ledger order; an account export visits only that account's
+ * rows in the period, found through the account's time index, in time order.
+ * Rows appended while an export runs are not included.
+ *
+ * Each record holds the transaction id, account number, time ("yyyy-MM-dd HH:mm:ss" in
+ * the system time zone), type, amount and balance after, with amounts as plain decimals
+ * with two fraction digits.
+ */
+public class LedgerExporter {
+    /**
+     * Export file formats.
+     */
+    public enum Format {
+        /** One header line, then one comma-separated line per transaction. */
+        CSV,
+        /** One object with the period, the transactions as an array, and their count. */
+        JSON
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final byte[] CSV_HEADER = ascii("transaction_id,account,timestamp,type,amount,balance_after\n");
+    private static final byte[][] TYPE_NAMES = new byte[TransactionType.values().length][];
+
+    static {
+        for (TransactionType type : TransactionType.values()) {
+            TYPE_NAMES[type.ordinal()] = ascii(type.name());
+        }
+    }
+
+    private final TransactionManager transactionManager;
+
+    /**
+     * Constructs a LedgerExporter.
+     *
+     * @param transactionManager the ledger to export
+     */
+    public LedgerExporter(TransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Exports every transaction made between two dates.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param format the output format
+     * @param out the destination; it is not closed
+     * @return the number of transactions exported
+     * @throws IOException if writing fails
+     */
+    public long exportLedger(LocalDate from, LocalDate to, Format format, WritableByteChannel out) throws IOException {
+        return export(null, null, from, to, format, out);
+    }
+
+    /**
+     * Exports the transactions of one account made between two dates.
+     *
+     * @param accountNumber the account number
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param format the output format
+     * @param out the destination; it is not closed
+     * @return the number of transactions exported, 0 if the account has none
+     * @throws IOException if writing fails
+     */
+    public long exportAccount(String accountNumber, LocalDate from, LocalDate to, Format format,
+                              WritableByteChannel out) throws IOException {
+        int[] rows = transactionManager.rowsBetween(accountNumber, CachedClock.startOfDayMillis(from.toEpochDay()),
+                CachedClock.startOfDayMillis(to.toEpochDay() + 1));
+        return export(rows, accountNumber, from, to, format, out);
+    }
+
+    /**
+     * Exports every transaction made between two dates to a file. The file is written
+     * under a temporary name and renamed when complete; if the export fails, the
+     * temporary file is deleted.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param format the output format
+     * @param file the file to write
+     * @return the number of transactions exported
+     * @throws IOException if writing fails
+     */
+    public long exportLedger(LocalDate from, LocalDate to, Format format, Path file) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long records;
+        try {
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                records = exportLedger(from, to, format, channel);
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return records;
+    }
+
+    /**
+     * Writes the given rows of one account, or, if rows is null, every row in the period.
+     */
+    private long export(int[] rows, String accountNumber, LocalDate from, LocalDate to, Format format,
+                        WritableByteChannel channel) throws IOException {
+        TransactionStore store = transactionManager.getStore();
+        AccountHandles handles = store.getHandles();
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        boolean json = format == Format.JSON;
+        Output out = new Output(channel);
+
+        if (json) {
+            out.ascii("{\"from\":\"").ascii(from.toString()).ascii("\",\"to\":\"").ascii(to.toString()).ascii("\",");
+            if (accountNumber != null) {
+                out.ascii("\"account\":").jsonString(accountNumber).ascii(",");
+            }
+            out.ascii("\"transactions\":[");
+        } else {
+            out.bytes(CSV_HEADER);
+        }
+
+        long records = 0;
+        if (rows != null) {
+            for (int row : rows) {
+                writeRecord(out, json, records++ == 0, store, row, accountNumber);
+            }
+        } else {
+            int size = store.size();
+            for (int row = 0; row < size; row++) {
+                int day = store.epochDay(row);
+                if (day >= fromDay && day <= toDay) {
+                    writeRecord(out, json, records++ == 0, store, row, handles.accountNumberOf(store.account(row)));
+                }
+            }
+        }
+
+        if (json) {
+            out.ascii(records == 0 ? "],\"count\":" : "\n],\"count\":").number(records).ascii("}\n");
+        }
+        out.flush();
+        return records;
+    }
+
+    private static void writeRecord(Output out, boolean json, boolean first, TransactionStore store, int row,
+                                    String accountNumber) throws IOException {
+        int day = store.epochDay(row);
+        if (json) {
+            out.ascii(first ? "\n{\"id\":\"" : ",\n{\"id\":\"");
+            out.id(IdGenerator.TRANSACTIONS, store.transactionId(row));
+            out.ascii("\",\"account\":").jsonString(accountNumber);
+            out.ascii(",\"timestamp\":\"").timestamp(day, store.timestamp(row));
+            out.ascii("\",\"type\":\"").bytes(TYPE_NAMES[store.type(row).ordinal()]);
+            out.ascii("\",\"amount\":").cents(store.amountCents(row));
+            out.ascii(",\"balanceAfter\":").cents(store.balanceCents(row)).ascii("}");
+        } else {
+            out.id(IdGenerator.TRANSACTIONS, store.transactionId(row)).ascii(",");
+            out.csvField(accountNumber).ascii(",");
+            out.timestamp(day, store.timestamp(row)).ascii(",");
+            out.bytes(TYPE_NAMES[store.type(row).ordinal()]).ascii(",");
+            out.cents(store.amountCents(row)).ascii(",");
+            out.cents(store.balanceCents(row)).ascii("\n");
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Reusable encoder over a byte buffer. Text is written as UTF-8; the record layout
+     * itself is ASCII, so most writes are single byte stores.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] digits = new byte[20];
+        private final byte[] date = new byte[10];
+        private long dateDay = Long.MIN_VALUE;
+        private long dayStartMillis;
+        private boolean regularDay;
+
+        private Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private Output ascii(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                put((byte) text.charAt(i));
+            }
+            return this;
+        }
+
+        private Output bytes(byte[] bytes) throws IOException {
+            if (buffer.remaining() < bytes.length) {
+                drain();
+            }
+            buffer.put(bytes);
+            return this;
+        }
+
+        private Output number(long value) throws IOException {
+            if (value < 0) {
+                put((byte) '-');
+                value = -value;
+            }
+            int pos = digits.length;
+            do {
+                digits[--pos] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            for (; pos < digits.length; pos++) {
+                put(digits[pos]);
+            }
+            return this;
+        }
+
+        private Output cents(long cents) throws IOException {
+            long magnitude = Math.abs(cents);
+            if (cents < 0) {
+                put((byte) '-');
+            }
+            number(magnitude / 100);
+            put((byte) '.');
+            put((byte) ('0' + magnitude % 100 / 10));
+            put((byte) ('0' + magnitude % 10));
+            return this;
+        }
+
+        private Output id(IdGenerator generator, long id) throws IOException {
+            ascii(generator.getPrefix());
+            int width = 1;
+            for (long value = id; value >= 10; value /= 10) {
+                width++;
+            }
+            for (; width < generator.getMinDigits(); width++) {
+                put((byte) '0');
+            }
+            return number(id);
+        }
+
+        /**
+         * Writes a timestamp of the given day. The date part is encoded once per day; on
+         * days that are not 24 hours long (daylight saving changes) the formatter is used.
+         */
+        private Output timestamp(long epochDay, long millis) throws IOException {
+            if (epochDay != dateDay) {
+                dateDay = epochDay;
+                dayStartMillis = CachedClock.startOfDayMillis(epochDay);
+                regularDay = CachedClock.startOfDayMillis(epochDay + 1) - dayStartMillis == DAY_MILLIS;
+                LocalDate day = LocalDate.ofEpochDay(epochDay);
+                writeDigits(date, 0, day.getYear(), 4);
+                date[4] = '-';
+                writeDigits(date, 5, day.getMonthValue(), 2);
+                date[7] = '-';
+                writeDigits(date, 8, day.getDayOfMonth(), 2);
+            }
+            long millisOfDay = millis - dayStartMillis;
+            if (!regularDay || millisOfDay < 0 || millisOfDay >= DAY_MILLIS) {
+                return ascii(CachedClock.format(millis));
+            }
+            int seconds = (int) (millisOfDay / 1000);
+            bytes(date);
+            put((byte) ' ');
+            twoDigits(seconds / 3600);
+            put((byte) ':');
+            twoDigits(seconds / 60 % 60);
+            put((byte) ':');
+            return twoDigits(seconds % 60);
+        }
+
+        private Output twoDigits(int value) throws IOException {
+            put((byte) ('0' + value / 10));
+            put((byte) ('0' + value % 10));
+            return this;
+        }
+
+        private static void writeDigits(byte[] target, int offset, int value, int width) {
+            for (int i = offset + width - 1; i >= offset; i--) {
+                target[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+
+        private Output jsonString(String text) throws IOException {
+            put((byte) '"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c < 0x20) {
+                    ascii("\\u00");
+                    put((byte) Character.forDigit(c >> 4, 16));
+                    put((byte) Character.forDigit(c & 0xF, 16));
+                } else {
+                    i += utf8(text, i, c) - 1;
+                }
+            }
+            put((byte) '"');
+            return this;
+        }
+
+        private Output csvField(String text) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                put((byte) '"');
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    put((byte) '"');
+                }
+                i += utf8(text, i, c) - 1;
+            }
+            if (quote) {
+                put((byte) '"');
+            }
+            return this;
+        }
+
+        /**
+         * Encodes the character at {@code index}, together with its low surrogate if it is a high one.
+         *
+         * @return the number of chars encoded
+         */
+        private int utf8(String text, int index, char c) throws IOException {
+            if (c < 0x80) {
+                put((byte) c);
+                return 1;
+            }
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+            int codePoint = text.codePointAt(index);
+            if (codePoint < 0x800) {
+                buffer.put((byte) (0xC0 | codePoint >> 6));
+            } else if (codePoint < 0x10000) {
+                buffer.put((byte) (0xE0 | codePoint >> 12));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            } else {
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            }
+            buffer.put((byte) (0x80 | codePoint & 0x3F));
+            return Character.charCount(codePoint);
+        }
+
+        private void put(byte b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put(b);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void flush() throws IOException {
+            drain();
+        }
+    }
+}
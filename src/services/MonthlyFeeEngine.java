@@ -0,0 +1,176 @@
+package services;
+
+import models.Account;
+import models.CheckingAccount;
+import models.Transaction;
+import models.TransactionType;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Month-end charge run for checking accounts: the monthly fee, waived for customers whose
+ * type waives fees, and interest on overdrawn balances. Overdraft interest is charged on
+ * the balance at the end of the month, taken from the ledger's daily checkpoints, so a
+ * month closed late is not charged on a later balance; an account with no ledger rows up
+ * to the month end is charged on its current balance. Every charge is recorded as a
+ * {@link TransactionType#FEE} transaction.
+ *
+ * Accounts are processed in parallel in small slices. Each account is locked only while
+ * its charges are applied, and each slice adds its transactions to the ledger under one
+ * short lock acquisition, so the run can go on while customers keep transacting; the
+ * ledger file gets a single append for the whole run. A month is charged at most once
+ * per account, so an interrupted run can simply be started again.
+ */
+public class MonthlyFeeEngine {
+    // small slices keep the ledger lock hold time well under a millisecond
+    private static final int SLICE_SIZE = 1024;
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+
+    /**
+     * Constructs a MonthlyFeeEngine.
+     *
+     * @param accountManager the accounts to charge
+     * @param transactionManager the ledger to record charges in
+     */
+    public MonthlyFeeEngine(AccountManager accountManager, TransactionManager transactionManager) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Applies the month-end charges for a month to every checking account.
+     *
+     * @param month the month being closed
+     * @return the run summary
+     * @throws IOException if the ledger file cannot be written; balances and the in-memory ledger are already updated
+     */
+    public Result run(YearMonth month) throws IOException {
+        long started = System.nanoTime();
+        Account[] accounts = accountManager.accounts().toArray(Account[]::new);
+        LongAdder checking = new LongAdder();
+        LongAdder charged = new LongAdder();
+        LongAdder waived = new LongAdder();
+        LongAdder overdrawn = new LongAdder();
+        LongAdder feeCents = new LongAdder();
+        LongAdder overdraftCents = new LongAdder();
+
+        int slices = (accounts.length + SLICE_SIZE - 1) / SLICE_SIZE;
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            int from = slice * SLICE_SIZE;
+            int to = Math.min(from + SLICE_SIZE, accounts.length);
+            List<Transaction> batch = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (!(accounts[i] instanceof CheckingAccount)) {
+                    continue;
+                }
+                CheckingAccount account = (CheckingAccount) accounts[i];
+                checking.increment();
+                // looked up before locking the account, so the ledger lookup does not hold up its transactions
+                OptionalDouble monthEnd = transactionManager.getBalanceAtEndOfDay(account.getAccountNumber(),
+                        month.atEndOfMonth());
+                synchronized (account) {
+                    double[] charges = monthEnd.isPresent()
+                            ? account.applyMonthEndCharges(month, monthEnd.getAsDouble())
+                            : account.applyMonthEndCharges(month);
+                    if (charges == null) {
+                        continue;
+                    }
+                    double balance = account.getBalance();
+                    if (charges[0] > 0) {
+                        charged.increment();
+                        feeCents.add(TransactionStore.toCents(charges[0]));
+                        batch.add(new Transaction(account.getAccountNumber(), TransactionType.FEE,
+                                charges[0], balance + charges[1]));
+                    } else if (account.getCustomer().hasWaivedFees()) {
+                        waived.increment();
+                    }
+                    if (charges[1] > 0) {
+                        overdrawn.increment();
+                        overdraftCents.add(TransactionStore.toCents(charges[1]));
+                        batch.add(new Transaction(account.getAccountNumber(), TransactionType.FEE,
+                                charges[1], balance));
+                    }
+                }
+            }
+            transactionManager.appendBatch(batch);
+        });
+        transactionManager.flushJournal();
+
+        return new Result(checking.intValue(), charged.intValue(), waived.intValue(), overdrawn.intValue(),
+                TransactionStore.fromCents(feeCents.sum()), TransactionStore.fromCents(overdraftCents.sum()),
+                System.nanoTime() - started);
+    }
+
+    /**
+     * Summary of a month-end charge run.
+     */
+    public static final class Result {
+        private final int checkingAccounts;
+        private final int feesCharged;
+        private final int feesWaived;
+        private final int overdrawnCharged;
+        private final double totalFees;
+        private final double totalOverdraftInterest;
+        private final long elapsedNanos;
+
+        Result(int checkingAccounts, int feesCharged, int feesWaived, int overdrawnCharged,
+               double totalFees, double totalOverdraftInterest, long elapsedNanos) {
+            this.checkingAccounts = checkingAccounts;
+            this.feesCharged = feesCharged;
+            this.feesWaived = feesWaived;
+            this.overdrawnCharged = overdrawnCharged;
+            this.totalFees = totalFees;
+            this.totalOverdraftInterest = totalOverdraftInterest;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getCheckingAccounts() {
+            return checkingAccounts;
+        }
+
+        public int getFeesCharged() {
+            return feesCharged;
+        }
+
+        /**
+         * Returns the number of accounts whose monthly fee was waived in this run. Accounts
+         * already charged for the month by an earlier run count as neither charged nor waived.
+         *
+         * @return the waived count
+         */
+        public int getFeesWaived() {
+            return feesWaived;
+        }
+
+        public int getOverdrawnCharged() {
+            return overdrawnCharged;
+        }
+
+        public double getTotalFees() {
+            return totalFees;
+        }
+
+        public double getTotalOverdraftInterest() {
+            return totalOverdraftInterest;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+            return String.format("%d checking accounts: %d fees ($%.2f), %d waived, %d overdraft charges ($%.2f)"
+                            + " in %.2f s (%.0f accounts/s)", checkingAccounts, feesCharged, totalFees, feesWaived,
+                    overdrawnCharged, totalOverdraftInterest, seconds, checkingAccounts / seconds);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package services;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAccountException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import utils.ValidationUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Double-entry posting engine: applies a set of debit and credit legs across any number of
+ * accounts as one unit, e.g. a transfer with a fee, a split payment or a settlement.
+ *
+ * Every leg is a whole number of cents, each account appears in at most one leg (account
+ * numbers are resolved first, so "ACC001" and "acc001" are the same account) and the legs
+ * must sum to zero. All involved accounts are locked in a canonical order (by account id),
+ * so concurrent postings over overlapping accounts cannot deadlock.
+ * Every debit is checked against the account's available balance and limits before any
+ * leg is applied, so a posting either applies in full or not at all. The legs are added to
+ * the ledger as one contiguous run under a single lock acquisition and appended to the
+ * ledger file in one write; postings that arrive while another one is writing the file
+ * are written together with the next append.
+ */
+public class PostingEngine {
+    private static final Comparator<Account> CANONICAL_ORDER =
+            Comparator.comparingLong(Account::getAccountId).thenComparing(Account::getAccountNumber);
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+
+    /**
+     * Constructs a PostingEngine.
+     *
+     * @param accountManager the accounts postings apply to
+     * @param transactionManager the ledger that records the legs
+     */
+    public PostingEngine(AccountManager accountManager, TransactionManager transactionManager) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Applies a balanced posting.
+     *
+     * @param legs the legs, at least two, each on a different account
+     * @return the ledger transactions for the legs, in the order given
+     * @throws InvalidAccountException if an account does not exist
+     * @throws InvalidAmountException if a leg is zero or not whole cents, an account appears twice
+     *                                or the legs do not sum to zero
+     * @throws InsufficientFundsException if a debited account has insufficient available funds
+     * @throws OverdraftExceededException if a debit would exceed an overdraft limit
+     */
+    public List<Transaction> post(List<Leg> legs) throws InvalidAccountException, InvalidAmountException,
+            InsufficientFundsException, OverdraftExceededException {
+        return post(legs, true);
+    }
+
+    /**
+     * Applies a balanced posting, optionally leaving the ledger file append to the caller,
+     * e.g. to write a whole batch of postings with one {@link TransactionManager#flushJournal()}.
+     *
+     * @param legs the legs, at least two, each on a different account
+     * @param save whether to append the legs to the ledger file now
+     * @return the ledger transactions for the legs, in the order given
+     * @throws InvalidAccountException if an account does not exist
+     * @throws InvalidAmountException if a leg is zero or not whole cents, an account appears twice
+     *                                or the legs do not sum to zero
+     * @throws InsufficientFundsException if a debited account has insufficient available funds
+     * @throws OverdraftExceededException if a debit would exceed an overdraft limit
+     */
+    public List<Transaction> post(List<Leg> legs, boolean save) throws InvalidAccountException,
+            InvalidAmountException, InsufficientFundsException, OverdraftExceededException {
+        if (legs.size() < 2) {
+            throw new InvalidAmountException("A posting needs at least two legs!");
+        }
+        Account[] accounts = new Account[legs.size()];
+        Set<Account> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long sumCents = 0;
+        for (int i = 0; i < accounts.length; i++) {
+            Leg leg = legs.get(i);
+            if (!ValidationUtils.isWholeCents(leg.amount) || TransactionStore.toCents(leg.amount) == 0) {
+                throw new InvalidAmountException(leg.amount);
+            }
+            accounts[i] = accountManager.findAccount(leg.accountNumber);
+            // each account has one leg, so its debit check below covers everything taken out of it
+            if (!seen.add(accounts[i])) {
+                throw new InvalidAmountException("Account " + accounts[i].getAccountNumber()
+                        + " appears in more than one leg!");
+            }
+            sumCents += TransactionStore.toCents(leg.amount);
+        }
+        if (sumCents != 0) {
+            throw new InvalidAmountException("Posting legs must sum to zero, but they sum to $"
+                    + TransactionStore.fromCents(sumCents));
+        }
+
+        Account[] lockOrder = accounts.clone();
+        Arrays.sort(lockOrder, CANONICAL_ORDER);
+        List<Transaction> transactions;
+        accountManager.beginTransfer();
+        try {
+            transactions = lockAndApply(lockOrder, 0, legs, accounts);
+        } finally {
+            accountManager.endTransfer();
+        }
+        if (save) {
+            try {
+                transactionManager.flushJournal();
+            } catch (IOException e) {
+                System.out.println("Error saving transactions to file :" + e.getMessage());
+            }
+        }
+        return transactions;
+    }
+
+    private List<Transaction> lockAndApply(Account[] lockOrder, int index, List<Leg> legs, Account[] accounts)
+            throws InvalidAmountException, InsufficientFundsException, OverdraftExceededException {
+        if (index < lockOrder.length) {
+            synchronized (lockOrder[index]) {
+                return lockAndApply(lockOrder, index + 1, legs, accounts);
+            }
+        }
+        for (int i = 0; i < accounts.length; i++) {
+            if (legs.get(i).amount < 0) {
+                accounts[i].checkWithdrawal(-legs.get(i).amount);
+            }
+        }
+        List<Transaction> transactions = new ArrayList<>(accounts.length);
+        for (int i = 0; i < accounts.length; i++) {
+            Leg leg = legs.get(i);
+            boolean debit = leg.amount < 0;
+            accounts[i].processTransaction(Math.abs(leg.amount),
+                    debit ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT);
+            transactions.add(new Transaction(accounts[i].getAccountNumber(),
+                    debit ? TransactionType.WIRE_TRANSFER_OUT : TransactionType.WIRE_TRANSFER_IN,
+                    Math.abs(leg.amount), accounts[i].getBalance()));
+        }
+        // still under the account locks, so the ledger order matches the order balances changed
+        transactionManager.appendBatch(transactions);
+        return transactions;
+    }
+
+    /**
+     * One leg of a posting: a signed amount on an account, negative for a debit.
+     */
+    public static final class Leg {
+        private final String accountNumber;
+        private final double amount;
+
+        private Leg(String accountNumber, double amount) {
+            this.accountNumber = accountNumber;
+            this.amount = amount;
+        }
+
+        /**
+         * Creates a leg taking money out of an account.
+         *
+         * @param accountNumber the account number
+         * @param amount the positive amount to debit
+         * @return the leg
+         * @throws IllegalArgumentException if the amount is not positive
+         */
+        public static Leg debit(String accountNumber, double amount) {
+            if (!(amount > 0)) {
+                throw new IllegalArgumentException("Leg amount must be greater than zero");
+            }
+            return new Leg(accountNumber, -amount);
+        }
+
+        /**
+         * Creates a leg putting money into an account.
+         *
+         * @param accountNumber the account number
+         * @param amount the positive amount to credit
+         * @return the leg
+         * @throws IllegalArgumentException if the amount is not positive
+         */
+        public static Leg credit(String accountNumber, double amount) {
+            if (!(amount > 0)) {
+                throw new IllegalArgumentException("Leg amount must be greater than zero");
+            }
+            return new Leg(accountNumber, amount);
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package services;
+
+import models.Account;
+import models.Customer;
+import models.TransactionType;
+import utils.CachedClock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bank-wide reports over the whole transaction ledger, computed in parallel.
+ *
+ * The ledger rows are split into segments of one store chunk, and each segment is
+ * aggregated by a fork/join task into per-key counts and sums; partial results are added
+ * together as the tasks join. A report is described by a key function that maps a row to
+ * a group number (or -1 to leave the row out). Account data is joined through small
+ * arrays indexed by account handle, built once per report, so the scan itself never
+ * touches Account objects or locks.
+ */
+public class ReportingEngine {
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a ReportingEngine running on the common fork/join pool.
+     *
+     * @param accountManager the accounts to join against
+     * @param transactionManager the ledger to report on
+     */
+    public ReportingEngine(AccountManager accountManager, TransactionManager transactionManager) {
+        this(accountManager, transactionManager, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ReportingEngine running on the given pool.
+     *
+     * @param accountManager the accounts to join against
+     * @param transactionManager the ledger to report on
+     * @param pool the pool that runs the segment tasks
+     */
+    public ReportingEngine(AccountManager accountManager, TransactionManager transactionManager, ForkJoinPool pool) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.pool = pool;
+    }
+
+    /**
+     * Groups every ledger row by the given key and aggregates count and amount per group.
+     *
+     * @param groupCount the number of groups; keys must be in {@code 0..groupCount-1}
+     * @param key maps a row number to its group, or to -1 to skip the row
+     * @return the count and amount total of each group
+     */
+    public Aggregate[] aggregate(int groupCount, IntUnaryOperator key) {
+        TransactionStore store = transactionManager.getStore();
+        long[][] partial = pool.invoke(new SegmentTask(store, key, groupCount, 0, store.size()));
+        Aggregate[] result = new Aggregate[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            result[group] = new Aggregate(partial[0][group], partial[1][group]);
+        }
+        return result;
+    }
+
+    /**
+     * Total credited (deposits and incoming transfers) per day.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the total per day, in date order, including days without credits
+     */
+    public Map<LocalDate, Aggregate> creditsPerDay(LocalDate from, LocalDate to) {
+        TransactionStore store = transactionManager.getStore();
+        long firstDay = from.toEpochDay();
+        int dayCount = (int) (to.toEpochDay() - firstDay + 1);
+        Aggregate[] totals = aggregate(Math.max(dayCount, 0), row -> {
+            long day = store.epochDay(row) - firstDay;
+            return day >= 0 && day < dayCount && store.type(row).isCredit() ? (int) day : -1;
+        });
+        Map<LocalDate, Aggregate> report = new LinkedHashMap<>();
+        for (int day = 0; day < totals.length; day++) {
+            report.put(LocalDate.ofEpochDay(firstDay + day), totals[day]);
+        }
+        return report;
+    }
+
+    /**
+     * Transaction volume per transaction type.
+     *
+     * @return count and amount total per type
+     */
+    public EnumMap<TransactionType, Aggregate> volumeByTransactionType() {
+        TransactionStore store = transactionManager.getStore();
+        Aggregate[] totals = aggregate(TYPES.length, row -> store.type(row).ordinal());
+        EnumMap<TransactionType, Aggregate> report = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TYPES) {
+            report.put(type, totals[type.ordinal()]);
+        }
+        return report;
+    }
+
+    /**
+     * Transaction volume per account type ("Savings", "Checking").
+     * Transactions of accounts that are not loaded are left out.
+     *
+     * @return count and amount total per account type
+     */
+    public Map<String, Aggregate> volumeByAccountType() {
+        return volumeByAccountAttribute(Account::getAccountType);
+    }
+
+    /**
+     * Transaction volume per customer type ("Premium", "Regular").
+     * Transactions of accounts that are not loaded are left out.
+     *
+     * @return count and amount total per customer type
+     */
+    public Map<String, Aggregate> volumeByCustomerType() {
+        return volumeByAccountAttribute(account -> {
+            Customer customer = account.getCustomer();
+            return customer == null ? "Unknown" : customer.getCustomerType();
+        });
+    }
+
+    /**
+     * Prints the built-in bank-wide reports.
+     */
+    public void printBankReport() {
+        System.out.println("\nVolume by transaction type:");
+        volumeByTransactionType().forEach((type, total) -> System.out.println("  " + type + ": " + total));
+        System.out.println("\nVolume by account type:");
+        volumeByAccountType().forEach((type, total) -> System.out.println("  " + type + ": " + total));
+        System.out.println("\nVolume by customer type:");
+        volumeByCustomerType().forEach((type, total) -> System.out.println("  " + type + ": " + total));
+        LocalDate today = LocalDate.ofEpochDay(CachedClock.currentEpochDay());
+        System.out.println("\nCredits over the last 7 days:");
+        creditsPerDay(today.minusDays(6), today).forEach((day, total) -> System.out.println("  " + day + ": " + total));
+    }
+
+    private Map<String, Aggregate> volumeByAccountAttribute(Function<Account, String> attribute) {
+        AccountHandles handles = transactionManager.getStore().getHandles();
+        int handleCount = handles.size();
+        int[] groupOfHandle = new int[handleCount];
+        List<String> groups = new ArrayList<>();
+        Map<String, Integer> groupIds = new LinkedHashMap<>();
+        boolean sharedHandles = handles == accountManager.getAccountHandles();
+        for (int handle = 0; handle < handleCount; handle++) {
+            Account account = accountManager.getAccount(sharedHandles
+                    ? handle : accountManager.getHandle(handles.accountNumberOf(handle)));
+            if (account == null) {
+                groupOfHandle[handle] = -1;
+                continue;
+            }
+            String group = attribute.apply(account);
+            Integer id = groupIds.get(group);
+            if (id == null) {
+                id = groups.size();
+                groups.add(group);
+                groupIds.put(group, id);
+            }
+            groupOfHandle[handle] = id;
+        }
+        TransactionStore store = transactionManager.getStore();
+        Aggregate[] totals = aggregate(groups.size(), row -> {
+            int handle = store.account(row);
+            return handle < groupOfHandle.length ? groupOfHandle[handle] : -1;
+        });
+        Map<String, Aggregate> report = new LinkedHashMap<>();
+        for (int group = 0; group < groups.size(); group++) {
+            report.put(groups.get(group), totals[group]);
+        }
+        return report;
+    }
+
+    /**
+     * Count and amount total of one report group.
+     */
+    public static final class Aggregate {
+        private final long count;
+        private final long cents;
+
+        Aggregate(long count, long cents) {
+            this.count = count;
+            this.cents = cents;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotal() {
+            return TransactionStore.fromCents(cents);
+        }
+
+        @Override
+        public String toString() {
+            return count + " transactions, $" + String.format("%.2f", getTotal());
+        }
+    }
+
+    /**
+     * Aggregates a range of rows, splitting it in two until it fits in one store chunk.
+     * The result holds counts in row 0 and cent totals in row 1, indexed by group.
+     */
+    private static final class SegmentTask extends RecursiveTask<long[][]> {
+        private static final long serialVersionUID = 1L;
+
+        // tasks only live inside the fork/join pool and are never serialized
+        private final transient TransactionStore store;
+        private final transient IntUnaryOperator key;
+        private final int groupCount;
+        private final int from;
+        private final int to;
+
+        private SegmentTask(TransactionStore store, IntUnaryOperator key, int groupCount, int from, int to) {
+            this.store = store;
+            this.key = key;
+            this.groupCount = groupCount;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (to - from <= TransactionStore.CHUNK_SIZE) {
+                long[] counts = new long[groupCount];
+                long[] cents = new long[groupCount];
+                for (int row = from; row < to; row++) {
+                    int group = key.applyAsInt(row);
+                    if (group >= 0) {
+                        counts[group]++;
+                        cents[group] += store.amountCents(row);
+                    }
+                }
+                return new long[][] {counts, cents};
+            }
+            // split on a chunk boundary so each leaf reads a single chunk of every column
+            int middle = from + (((to - from) >>> 1) & ~TransactionStore.CHUNK_MASK);
+            if (middle == from) {
+                middle = from + TransactionStore.CHUNK_SIZE;
+            }
+            SegmentTask left = new SegmentTask(store, key, groupCount, from, middle);
+            SegmentTask right = new SegmentTask(store, key, groupCount, middle, to);
+            left.fork();
+            long[][] result = right.compute();
+            long[][] other = left.join();
+            for (int group = 0; group < groupCount; group++) {
+                result[0][group] += other[0][group];
+                result[1][group] += other[1][group];
+            }
+            return result;
+        }
+    }
+}
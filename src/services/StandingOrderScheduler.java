@@ -0,0 +1,379 @@
+package services;
+
+import models.Account;
+import models.StandingOrder;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAccountException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import utils.CachedClock;
+import utils.IdGenerator;
+import utils.TimingWheel;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs standing orders: recurring transfers, executed through
+ * {@link TransactionManager#wireTransfer}, and recurring deposits.
+ *
+ * Pending orders wait in a hierarchical {@link TimingWheel} with one-second ticks, so
+ * adding, cancelling and ticking cost the same with ten orders or ten million. A ticker
+ * thread advances the wheel every second; the orders that became due are executed in
+ * batches on a worker pool and then rescheduled for their next run.
+ *
+ * Orders are persisted in an append-only journal ({@code standing_orders.txt}): one line
+ * per new order, per cancellation and per batch of executed orders, so they survive
+ * restarts without rewriting the file on every change. Loading replays the journal and
+ * compacts it. Runs missed while the application was down are made up, one per tick.
+ */
+public class StandingOrderScheduler {
+    private static final long TICK_MILLIS = 1000;
+    private static final int SLOTS_PER_LEVEL = 256;
+    private static final int LEVELS = 4;
+    private static final int BATCH_SIZE = 256;
+    private static final String JOURNAL_FILE = "standing_orders.txt";
+
+    private final AccountManager accountManager;
+    private final TransactionManager transactionManager;
+    private final Path dataDir;
+    private final ExecutorService workers;
+    private final Map<Long, Scheduled> orders = new HashMap<>();
+    private final TimingWheel<StandingOrder> wheel;
+    private final Object runLock = new Object();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructs a StandingOrderScheduler.
+     *
+     * @param accountManager the accounts orders pay from and into
+     * @param transactionManager the ledger that records the payments
+     * @param dataDir the directory holding the standing order journal
+     * @param workers the number of worker threads executing due orders
+     */
+    public StandingOrderScheduler(AccountManager accountManager, TransactionManager transactionManager, Path dataDir,
+                                  int workers) {
+        this.accountManager = accountManager;
+        this.transactionManager = transactionManager;
+        this.dataDir = dataDir;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "standing-order-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheel = new TimingWheel<>(TICK_MILLIS, SLOTS_PER_LEVEL, LEVELS, CachedClock.currentTimeMillis());
+    }
+
+    /**
+     * Adds a standing order.
+     *
+     * @param fromAccountNumber the account to pay from, or null for a recurring deposit
+     * @param toAccountNumber the account to pay into
+     * @param amount the amount of each payment
+     * @param frequency how often to pay
+     * @param firstRunMillis when the first payment is due, in epoch milliseconds
+     * @return the new order
+     * @throws InvalidAccountException if either account does not exist
+     * @throws InvalidAmountException if the amount is not positive or both accounts are the same
+     * @throws IOException if the order cannot be written to the journal
+     */
+    public synchronized StandingOrder schedule(String fromAccountNumber, String toAccountNumber, double amount,
+                                               StandingOrder.Frequency frequency, long firstRunMillis)
+            throws InvalidAccountException, InvalidAmountException, IOException {
+        if (amount <= 0) {
+            throw new InvalidAmountException(amount);
+        }
+        if (toAccountNumber.equals(fromAccountNumber)) {
+            throw new InvalidAmountException("Cannot transfer to the same account!");
+        }
+        accountManager.findAccount(toAccountNumber);
+        if (fromAccountNumber != null) {
+            accountManager.findAccount(fromAccountNumber);
+        }
+        StandingOrder order = new StandingOrder(fromAccountNumber, toAccountNumber, amount, frequency, firstRunMillis);
+        appendToJournal(List.of(formatOrder(order)));
+        add(order);
+        return order;
+    }
+
+    /**
+     * Cancels a standing order.
+     *
+     * @param orderId the order id, e.g. "ORD001"
+     * @return true if the order existed
+     * @throws IOException if the cancellation cannot be written to the journal
+     */
+    public synchronized boolean cancel(String orderId) throws IOException {
+        long id = IdGenerator.STANDING_ORDERS.parse(orderId);
+        Scheduled scheduled = orders.get(id);
+        if (scheduled == null) {
+            return false;
+        }
+        appendToJournal(List.of("C|" + scheduled.order.getOrderId()));
+        orders.remove(id);
+        wheel.cancel(scheduled.handle);
+        return true;
+    }
+
+    /**
+     * Returns the standing orders paying from or into an account.
+     *
+     * @param accountNumber the account number
+     * @return the orders, in no particular order
+     */
+    public synchronized List<StandingOrder> getOrders(String accountNumber) {
+        List<StandingOrder> result = new ArrayList<>();
+        for (Scheduled scheduled : orders.values()) {
+            StandingOrder order = scheduled.order;
+            if (accountNumber.equals(order.getToAccountNumber()) || accountNumber.equals(order.getFromAccountNumber())) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int getOrderCount() {
+        return orders.size();
+    }
+
+    /**
+     * Returns the number of payments made since start-up.
+     *
+     * @return the executed count
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Returns the number of payments that could not be made, e.g. for lack of funds.
+     * A failed run is skipped; the order runs again at its next due time.
+     *
+     * @return the failed count
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Starts the ticker thread that executes orders as they become due.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "standing-order-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                runDue(CachedClock.currentTimeMillis());
+            } catch (IOException e) {
+                System.out.println("Error saving standing orders: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the ticker and the workers. Orders stay in the journal.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * Executes every order due up to the given time and reschedules it. Called by the
+     * ticker every second; may also be called directly.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @return the number of orders executed, successfully or not
+     * @throws IOException if the executed orders cannot be written to the journal
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public int runDue(long nowMillis) throws IOException, InterruptedException {
+        synchronized (runLock) {
+            List<StandingOrder> due = new ArrayList<>();
+            synchronized (this) {
+                wheel.advanceTo(nowMillis, due::add);
+            }
+            if (due.isEmpty()) {
+                return 0;
+            }
+            List<Future<?>> batches = new ArrayList<>();
+            for (int start = 0; start < due.size(); start += BATCH_SIZE) {
+                List<StandingOrder> batch = due.subList(start, Math.min(start + BATCH_SIZE, due.size()));
+                batches.add(workers.submit(() -> batch.forEach(this::execute)));
+            }
+            for (Future<?> batch : batches) {
+                try {
+                    batch.get();
+                } catch (ExecutionException e) {
+                    failed.incrementAndGet();
+                }
+            }
+            reschedule(due);
+            return due.size();
+        }
+    }
+
+    private void execute(StandingOrder order) {
+        boolean paid;
+        try {
+            if (order.isDeposit()) {
+                Account account = accountManager.findAccount(order.getToAccountNumber());
+                account.deposit(order.getAmount());
+                transactionManager.addTransaction(new Transaction(order.getToAccountNumber(), TransactionType.DEPOSIT,
+                        order.getAmount(), account.getBalance()));
+                paid = true;
+            } else {
+                paid = transactionManager.wireTransfer(accountManager, order.getFromAccountNumber(),
+                        order.getToAccountNumber(), order.getAmount());
+            }
+        } catch (InvalidAccountException | InvalidAmountException | InsufficientFundsException
+                 | OverdraftExceededException e) {
+            paid = false;
+        }
+        (paid ? executed : failed).incrementAndGet();
+    }
+
+    /**
+     * Moves executed orders to their next due time and records that in the journal with one write.
+     */
+    private synchronized void reschedule(List<StandingOrder> due) throws IOException {
+        List<String> lines = new ArrayList<>(due.size());
+        for (StandingOrder order : due) {
+            Scheduled scheduled = orders.get(order.getOrderNumber());
+            if (scheduled == null || scheduled.order != order) {
+                continue; // cancelled while it was running
+            }
+            order.setNextRunMillis(order.runAfter(order.getNextRunMillis()));
+            scheduled.handle = wheel.schedule(order.getNextRunMillis(), order);
+            lines.add("N|" + order.getOrderId() + "|" + order.getNextRunMillis());
+        }
+        appendToJournal(lines);
+    }
+
+    private void add(StandingOrder order) {
+        orders.put(order.getOrderNumber(), new Scheduled(order, wheel.schedule(order.getNextRunMillis(), order)));
+    }
+
+    /**
+     * Replaces the pending orders with those in the journal and rewrites the journal compacted.
+     *
+     * @throws IOException if the journal cannot be read or rewritten
+     */
+    public synchronized void load() throws IOException {
+        Path journal = dataDir.resolve(JOURNAL_FILE);
+        for (Scheduled scheduled : orders.values()) {
+            wheel.cancel(scheduled.handle);
+        }
+        orders.clear();
+        if (!Files.exists(journal)) {
+            return;
+        }
+        Map<Long, StandingOrder> replayed = new LinkedHashMap<>();
+        try (Stream<String> lines = Files.lines(journal)) {
+            lines.filter(line -> !line.trim().isEmpty()).forEach(line -> replay(line, replayed));
+        }
+        long maxId = 0;
+        List<String> compacted = new ArrayList<>(replayed.size());
+        for (StandingOrder order : replayed.values()) {
+            add(order);
+            compacted.add(formatOrder(order));
+            maxId = Math.max(maxId, order.getOrderNumber());
+        }
+        IdGenerator.STANDING_ORDERS.advanceTo(maxId);
+
+        Path temp = journal.resolveSibling(JOURNAL_FILE + ".tmp");
+        Files.write(temp, compacted);
+        Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void replay(String line, Map<Long, StandingOrder> replayed) {
+        String[] parts = line.split("\\|");
+        long id = IdGenerator.STANDING_ORDERS.parse(parts[1]);
+        switch (parts[0]) {
+            case "A":
+                if (parts.length != 7) {
+                    throw new IllegalArgumentException("Invalid standing order line: " + line);
+                }
+                replayed.put(id, new StandingOrder(id, "-".equals(parts[2]) ? null : parts[2], parts[3],
+                        Double.parseDouble(parts[4]), StandingOrder.Frequency.valueOf(parts[5]), Long.parseLong(parts[6])));
+                break;
+            case "N":
+                StandingOrder order = replayed.get(id);
+                if (order != null) {
+                    order.setNextRunMillis(Long.parseLong(parts[2]));
+                }
+                break;
+            case "C":
+                replayed.remove(id);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid standing order line: " + line);
+        }
+    }
+
+    private static String formatOrder(StandingOrder order) {
+        return String.join("|", "A", order.getOrderId(),
+                order.isDeposit() ? "-" : order.getFromAccountNumber(),
+                order.getToAccountNumber(),
+                String.valueOf(order.getAmount()),
+                order.getFrequency().name(),
+                String.valueOf(order.getNextRunMillis()));
+    }
+
+    private void appendToJournal(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (!Files.exists(dataDir)) {
+            Files.createDirectories(dataDir);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(dataDir.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static final class Scheduled {
+        private final StandingOrder order;
+        private TimingWheel.Handle handle;
+
+        private Scheduled(StandingOrder order, TimingWheel.Handle handle) {
+            this.order = order;
+            this.handle = handle;
+        }
+    }
+}
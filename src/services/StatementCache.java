@@ -0,0 +1,309 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bounded cache of rendered statements, keyed by account and period.
+ *
+ * The cache is bounded by the total length of the statements it holds. When it is full,
+ * a new statement only replaces the least recently used one if it has been requested at
+ * least as often, as counted by a small aging frequency sketch; a one-off statement
+ * therefore cannot push out statements that are requested again and again.
+ *
+ * Entries are invalidated precisely: a new transaction removes only the entries of its
+ * account whose period contains the transaction's day, and an entry rendered with a
+ * balance other than the account's current one is never served.
+ */
+public class StatementCache implements TransactionListener {
+    static final long WHOLE_HISTORY_FROM = Long.MIN_VALUE;
+    static final long WHOLE_HISTORY_TO = Long.MAX_VALUE;
+
+    private final long maxChars;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Integer, Set<Key>> keysByAccount = new HashMap<>();
+    private final Map<Integer, Long> versionByAccount = new HashMap<>();
+    private final FrequencySketch frequencies = new FrequencySketch(1024);
+    private long weightedSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+    private long invalidations;
+
+    /**
+     * Constructs a StatementCache.
+     *
+     * @param maxChars the maximum total length of the cached statements, in characters
+     */
+    public StatementCache(long maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Returns the maximum total length of the cached statements; a longer statement is never cached.
+     *
+     * @return the limit in characters
+     */
+    public long getMaxChars() {
+        return maxChars;
+    }
+
+    /**
+     * Returns a cached statement.
+     *
+     * @param account the account handle
+     * @param fromDay the first day of the period, or {@link #WHOLE_HISTORY_FROM}
+     * @param toDay the last day of the period, or {@link #WHOLE_HISTORY_TO}
+     * @param balanceCents the account's current balance; an entry rendered with another balance is dropped
+     * @return the statement, or null on a miss
+     */
+    public synchronized String get(int account, long fromDay, long toDay, long balanceCents) {
+        Key key = new Key(account, fromDay, toDay);
+        frequencies.increment(key.hashCode());
+        Entry entry = entries.get(key);
+        if (entry != null && entry.balanceCents != balanceCents) {
+            remove(key);
+            invalidations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.statement;
+    }
+
+    /**
+     * Returns the modification stamp of an account. Read it before rendering a statement and
+     * pass it to {@link #put}, so a statement that raced with a new transaction is not cached.
+     *
+     * @param account the account handle
+     * @return the current stamp
+     */
+    public synchronized long stampOf(int account) {
+        return versionByAccount.getOrDefault(account, 0L);
+    }
+
+    /**
+     * Offers a rendered statement to the cache.
+     *
+     * @param account the account handle
+     * @param fromDay the first day of the period, or {@link #WHOLE_HISTORY_FROM}
+     * @param toDay the last day of the period, or {@link #WHOLE_HISTORY_TO}
+     * @param balanceCents the balance the statement was rendered with
+     * @param stamp the account's stamp read before rendering
+     * @param statement the rendered statement
+     */
+    public synchronized void put(int account, long fromDay, long toDay, long balanceCents, long stamp, String statement) {
+        if (stamp != stampOf(account) || statement.length() > maxChars) {
+            rejections++;
+            return;
+        }
+        Key key = new Key(account, fromDay, toDay);
+        remove(key);
+        int candidateFrequency = frequencies.frequency(key.hashCode());
+        // pick the victims first, so a rejected statement leaves the cache as it was
+        List<Key> victims = new ArrayList<>();
+        long freed = 0;
+        Iterator<Map.Entry<Key, Entry>> lru = entries.entrySet().iterator();
+        while (weightedSize - freed + statement.length() > maxChars) {
+            Map.Entry<Key, Entry> victim = lru.next();
+            if (frequencies.frequency(victim.getKey().hashCode()) > candidateFrequency) {
+                rejections++;
+                return;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue().statement.length();
+        }
+        for (Key victim : victims) {
+            remove(victim);
+            evictions++;
+        }
+        entries.put(key, new Entry(statement, balanceCents));
+        keysByAccount.computeIfAbsent(account, a -> new HashSet<>()).add(key);
+        weightedSize += statement.length();
+    }
+
+    @Override
+    public synchronized void transactionAdded(int account, long epochDay) {
+        versionByAccount.merge(account, 1L, Long::sum);
+        Set<Key> keys = keysByAccount.get(account);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys.toArray(new Key[0])) {
+            if (key.fromDay <= epochDay && epochDay <= key.toDay) {
+                remove(key);
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Removes every cached statement of an account.
+     *
+     * @param account the account handle
+     */
+    public synchronized void invalidateAccount(int account) {
+        versionByAccount.merge(account, 1L, Long::sum);
+        Set<Key> keys = keysByAccount.get(account);
+        if (keys != null) {
+            for (Key key : keys.toArray(new Key[0])) {
+                remove(key);
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits.
+     *
+     * @return the hit rate, 0 if there were no lookups
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d statements (%d chars), %d hits, %d misses (%.0f%% hit rate), %d evictions, "
+                        + "%d rejected, %d invalidated", entries.size(), weightedSize, hits, misses,
+                getHitRate() * 100, evictions, rejections, invalidations);
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weightedSize -= entry.statement.length();
+            unindex(key);
+        }
+    }
+
+    private void unindex(Key key) {
+        Set<Key> keys = keysByAccount.get(key.account);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByAccount.remove(key.account);
+            }
+        }
+    }
+
+    private static final class Key {
+        private final int account;
+        private final long fromDay;
+        private final long toDay;
+
+        private Key(int account, long fromDay, long toDay) {
+            this.account = account;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return account == key.account && fromDay == key.fromDay && toDay == key.toDay;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(account, fromDay, toDay);
+        }
+    }
+
+    private static final class Entry {
+        private final String statement;
+        private final long balanceCents;
+
+        private Entry(String statement, long balanceCents) {
+            this.statement = statement;
+            this.balanceCents = balanceCents;
+        }
+    }
+
+    /**
+     * Count-min sketch of request frequencies with four rows of small counters. All counters
+     * are halved after a fixed number of increments, so old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private final int[][] counters;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        private FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            counters = new int[ROWS][size];
+            mask = size - 1;
+            resetAfter = size * 10;
+        }
+
+        private void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                int index = indexOf(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= resetAfter) {
+                for (int[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        private int frequency(int hash) {
+            int min = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                min = Math.min(min, counters[row][indexOf(hash, row)]);
+            }
+            return min;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash + row * 0x9E3779B9) * 0x85EBCA6B;
+            return (h ^ (h >>> 15)) & mask;
+        }
+    }
+}
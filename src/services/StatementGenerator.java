@@ -1,12 +1,26 @@
 package services;
 
 import models.Account;
-import models.Transaction;
+import models.TransactionType;
 import models.exceptions.InvalidAccountException;
+import utils.CachedClock;
+import utils.IdGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 
 public class StatementGenerator {
+    private static final String SEPARATOR = "  |  ";
+    // no transaction row is shorter than this, whatever its id, type and amounts
+    private static final int MIN_ROW_CHARS = 60;
     private final AccountManager accountManager;
     private final TransactionManager transactionManager;
+    private final StatementCache cache;
 
     /**
      * Constructs a StatementGenerator with the specified managers.
@@ -15,8 +29,34 @@ public class StatementGenerator {
      * @param transactionManager the transaction manager to retrieve transaction history
      */
     public StatementGenerator(AccountManager accountManager, TransactionManager transactionManager) {
+        this(accountManager, transactionManager, null);
+    }
+
+    /**
+     * Constructs a StatementGenerator that serves repeated statements from a cache. The cache
+     * is registered with the transaction manager so new transactions invalidate it.
+     *
+     * @param accountManager the account manager to retrieve account information
+     * @param transactionManager the transaction manager to retrieve transaction history
+     * @param cache the cache of rendered statements, or null for none
+     */
+    public StatementGenerator(AccountManager accountManager, TransactionManager transactionManager,
+                              StatementCache cache) {
         this.accountManager = accountManager;
         this.transactionManager = transactionManager;
+        this.cache = cache;
+        if (cache != null) {
+            transactionManager.addTransactionListener(cache);
+        }
+    }
+
+    /**
+     * Returns the statement cache.
+     *
+     * @return the cache, or null if statements are not cached
+     */
+    public StatementCache getCache() {
+        return cache;
     }
 
     /**
@@ -27,53 +67,270 @@ public class StatementGenerator {
      * @throws InvalidAccountException if the account is not found
      */
     public void generateAccountStatement(String accountNumber) throws InvalidAccountException {
+        Writer out = consoleWriter();
+        try {
+            writeAccountStatement(accountNumber, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates and displays a statement covering only the transactions made between two dates.
+     *
+     * @param accountNumber the account number to generate the statement for
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @throws InvalidAccountException if the account is not found
+     */
+    public void generatePeriodStatement(String accountNumber, LocalDate from, LocalDate to) throws InvalidAccountException {
+        Writer out = consoleWriter();
+        try {
+            writePeriodStatement(accountNumber, from, to, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a complete account statement. The account's transactions are read once,
+     * straight from the ledger columns, and the summary is accumulated in the same pass.
+     * The writer is neither flushed nor closed.
+     *
+     * @param accountNumber the account number to generate the statement for
+     * @param out the destination, ideally buffered
+     * @throws InvalidAccountException if the account is not found
+     * @throws IOException if writing fails
+     */
+    public void writeAccountStatement(String accountNumber, Writer out) throws InvalidAccountException, IOException {
         Account account = accountManager.findAccount(accountNumber);
+        String cached = cachedStatement(account, StatementCache.WHOLE_HISTORY_FROM, StatementCache.WHOLE_HISTORY_TO);
+        if (cached != null) {
+            out.write(cached);
+            return;
+        }
+        long stamp = stampOf(account);
+        int[] rows = transactionManager.rowsOf(account.getAccountNumber());
+        writeCacheable(account, StatementCache.WHOLE_HISTORY_FROM, StatementCache.WHOLE_HISTORY_TO, stamp,
+                "ACCOUNT STATEMENT", rows, "No transactions yet", out);
+    }
 
-        System.out.println("\n" + "=".repeat(70));
-        System.out.println("ACCOUNT STATEMENT");
-        System.out.println("=".repeat(70));
-        System.out.println();
-
-        System.out.println("ACCOUNT INFORMATION");
-        System.out.println("-".repeat(70));
-        System.out.println("Account Number: " + account.getAccountNumber());
-        System.out.println("Account Type: " + account.getAccountType());
-        System.out.println("Status: " + account.getStatus());
-        System.out.println("Current Balance: $" + String.format("%.2f", account.getBalance()));
-        System.out.println();
-
-        System.out.println("CUSTOMER INFORMATION");
-        System.out.println("-".repeat(70));
-        System.out.println("Name: " + account.getCustomer().getName());
-        System.out.println("Age: " + account.getCustomer().getAge());
-        System.out.println("Contact: " + account.getCustomer().getContact());
-        System.out.println("Address: " + account.getCustomer().getAddress());
-        System.out.println("Customer Type: " + account.getCustomer().getClass().getSimpleName());
-        System.out.println();
-
-        System.out.println("TRANSACTION HISTORY");
-        System.out.println("-".repeat(70));
-        java.util.List<Transaction> transactions = transactionManager.filterById(accountNumber);
-        transactionManager.viewTransactionsByAccounts(accountNumber);
-        System.out.println();
-        
-        // Summary Statistics Section
-        System.out.println("SUMMARY STATISTICS");
-        System.out.println("-".repeat(70));
-        double totalDeposits = transactionManager.calculateDeposits(accountNumber);
-        double totalWithdrawals = transactionManager.calculateWithdrawal(accountNumber);
-        double netChange = totalDeposits - totalWithdrawals;
-        
-        System.out.println("Total Transactions: " + transactions.size());
-        System.out.println("Total Deposits: $" + String.format("%.2f", totalDeposits));
-        System.out.println("Total Withdrawals: $" + String.format("%.2f", totalWithdrawals));
-        System.out.println("Net Change: $" + String.format("%.2f", netChange));
-        System.out.println("Current Balance: $" + String.format("%.2f", account.getBalance()));
-        System.out.println();
-        
-        System.out.println("=".repeat(70));
-        System.out.println("END OF STATEMENT");
-        System.out.println("=".repeat(70));
+    /**
+     * Writes a complete account statement as UTF-8 text. The stream is flushed but not closed.
+     *
+     * @param accountNumber the account number to generate the statement for
+     * @param out the destination
+     * @throws InvalidAccountException if the account is not found
+     * @throws IOException if writing fails
+     */
+    public void writeAccountStatement(String accountNumber, OutputStream out) throws InvalidAccountException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeAccountStatement(accountNumber, writer);
+        writer.flush();
     }
-}
 
+    /**
+     * Writes a statement covering only the transactions made between two dates, in one pass.
+     * The writer is neither flushed nor closed.
+     *
+     * @param accountNumber the account number to generate the statement for
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @param out the destination, ideally buffered
+     * @throws InvalidAccountException if the account is not found
+     * @throws IOException if writing fails
+     */
+    public void writePeriodStatement(String accountNumber, LocalDate from, LocalDate to, Writer out)
+            throws InvalidAccountException, IOException {
+        Account account = accountManager.findAccount(accountNumber);
+        String cached = cachedStatement(account, from.toEpochDay(), to.toEpochDay());
+        if (cached != null) {
+            out.write(cached);
+            return;
+        }
+        long stamp = stampOf(account);
+        int[] rows = transactionManager.rowsBetween(account.getAccountNumber(),
+                CachedClock.startOfDayMillis(from.toEpochDay()), CachedClock.startOfDayMillis(to.toEpochDay() + 1));
+        writeCacheable(account, from.toEpochDay(), to.toEpochDay(), stamp,
+                "ACCOUNT STATEMENT: " + from + " TO " + to, rows, "No transactions in this period", out);
+    }
+
+    private String cachedStatement(Account account, long fromDay, long toDay) {
+        int handle = handleOf(account);
+        if (handle < 0) {
+            return null;
+        }
+        return cache.get(handle, fromDay, toDay, TransactionStore.toCents(account.getBalance()));
+    }
+
+    private long stampOf(Account account) {
+        int handle = handleOf(account);
+        return handle < 0 ? 0 : cache.stampOf(handle);
+    }
+
+    /**
+     * Writes a statement and, when caching, offers it to the cache. The stamp must be read
+     * before the rows so a transaction added meanwhile keeps the statement out of the cache.
+     * The statement is always streamed to {@code out}; a copy is kept only while it could
+     * still fit in the cache, so a long statement is never held in memory.
+     */
+    private void writeCacheable(Account account, long fromDay, long toDay, long stamp, String title, int[] rows,
+                                String emptyMessage, Writer out) throws IOException {
+        int handle = handleOf(account);
+        if (handle < 0 || (long) rows.length * MIN_ROW_CHARS > cache.getMaxChars()) {
+            writeStatement(account, title, rows, emptyMessage, out);
+            return;
+        }
+        long balanceCents = TransactionStore.toCents(account.getBalance());
+        CopyingWriter copy = new CopyingWriter(out, cache.getMaxChars());
+        writeStatement(account, title, rows, emptyMessage, copy);
+        String statement = copy.copied();
+        if (statement != null) {
+            cache.put(handle, fromDay, toDay, balanceCents, stamp, statement);
+        }
+    }
+
+    /**
+     * Returns the handle of an account for caching, or -1 if statements are not cached or
+     * the account has never had a transaction.
+     */
+    private int handleOf(Account account) {
+        return cache == null ? -1 : transactionManager.getStore().getHandles().find(account.getAccountNumber());
+    }
+
+    /**
+     * Writes a statement for rows already selected by the caller, e.g. a batch run that
+     * grouped the whole ledger by account.
+     */
+    void writeStatement(Account account, String title, int[] rows, String emptyMessage, Writer out)
+            throws IOException {
+        String heavyRule = "=".repeat(70);
+        String lightRule = "-".repeat(70);
+        line(out, "\n" + heavyRule);
+        line(out, title);
+        line(out, heavyRule);
+        line(out, "");
+
+        writeAccountAndCustomerInformation(account, out, lightRule);
+
+        line(out, "TRANSACTION HISTORY");
+        line(out, lightRule);
+        TransactionStore store = transactionManager.getStore();
+        StringBuilder sb = new StringBuilder(96);
+        long depositCents = 0;
+        long withdrawalCents = 0;
+        for (int row : rows) {
+            TransactionType type = store.type(row);
+            long amountCents = store.amountCents(row);
+            if (type.isCredit()) {
+                depositCents += amountCents;
+            } else {
+                withdrawalCents += amountCents;
+            }
+            sb.setLength(0);
+            sb.append(IdGenerator.TRANSACTIONS.format(store.transactionId(row))).append(SEPARATOR)
+                    .append(CachedClock.format(store.timestamp(row))).append(SEPARATOR)
+                    .append(type).append(SEPARATOR)
+                    .append(TransactionStore.fromCents(amountCents)).append(SEPARATOR)
+                    .append(TransactionStore.fromCents(store.balanceCents(row)))
+                    .append(System.lineSeparator());
+            out.append(sb);
+        }
+        if (rows.length == 0) {
+            line(out, emptyMessage);
+        }
+        line(out, "");
+
+        double totalDeposits = TransactionStore.fromCents(depositCents);
+        double totalWithdrawals = TransactionStore.fromCents(withdrawalCents);
+        line(out, "SUMMARY STATISTICS");
+        line(out, lightRule);
+        line(out, "Total Transactions: " + rows.length);
+        line(out, "Total Deposits: $" + String.format("%.2f", totalDeposits));
+        line(out, "Total Withdrawals: $" + String.format("%.2f", totalWithdrawals));
+        line(out, "Net Change: $" + String.format("%.2f", totalDeposits - totalWithdrawals));
+        line(out, "Current Balance: $" + String.format("%.2f", account.getBalance()));
+        line(out, "");
+
+        line(out, heavyRule);
+        line(out, "END OF STATEMENT");
+        line(out, heavyRule);
+    }
+
+    private void writeAccountAndCustomerInformation(Account account, Writer out, String rule) throws IOException {
+        line(out, "ACCOUNT INFORMATION");
+        line(out, rule);
+        line(out, "Account Number: " + account.getAccountNumber());
+        line(out, "Account Type: " + account.getAccountType());
+        line(out, "Status: " + account.getStatus());
+        line(out, "Current Balance: $" + String.format("%.2f", account.getBalance()));
+        line(out, "");
+
+        line(out, "CUSTOMER INFORMATION");
+        line(out, rule);
+        line(out, "Name: " + account.getCustomer().getName());
+        line(out, "Age: " + account.getCustomer().getAge());
+        line(out, "Contact: " + account.getCustomer().getContact());
+        line(out, "Address: " + account.getCustomer().getAddress());
+        line(out, "Customer Type: " + account.getCustomer().getClass().getSimpleName());
+        line(out, "");
+    }
+
+    private static void line(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write(System.lineSeparator());
+    }
+
+    private static Writer consoleWriter() {
+        return new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 1 << 16);
+    }
+
+    /**
+     * Passes everything through to another writer and keeps a copy until it grows past a limit.
+     */
+    private static final class CopyingWriter extends Writer {
+        private final Writer out;
+        private final long maxChars;
+        private StringBuilder copy = new StringBuilder(1024);
+
+        CopyingWriter(Writer out, long maxChars) {
+            this.out = out;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            out.write(chars, offset, length);
+            if (copy != null) {
+                copy = copy.length() + length > maxChars ? null : copy.append(chars, offset, length);
+            }
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            out.write(text, offset, length);
+            if (copy != null) {
+                copy = copy.length() + length > maxChars ? null : copy.append(text, offset, offset + length);
+            }
+        }
+
+        /**
+         * Returns everything written, or null if it grew past the limit.
+         */
+        String copied() {
+            return copy == null ? null : copy.toString();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package services;
+
+/**
+ * Told about every transaction appended to a {@link TransactionManager}, including those
+ * loaded from file. Called while the manager's lock is held, so implementations must be quick.
+ */
+public interface TransactionListener {
+    void transactionAdded(int account, long epochDay);
+}
@@ -2,18 +2,31 @@ package services;
 
 import models.Account;
 import models.Transaction;
+import models.TransactionType;
 import models.exceptions.InsufficientFundsException;
 import models.exceptions.InvalidAccountException;
 import models.exceptions.InvalidAmountException;
 import models.exceptions.OverdraftExceededException;
+import utils.CachedClock;
+import utils.IdGenerator;
+import utils.IntList;
+import utils.SpaceSaving;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Stream;
 
 /**
@@ -21,7 +34,47 @@ import java.util.stream.Stream;
  * Provides functionality to add, filter, and calculate transaction statistics.
  */
 public class TransactionManager {
-    private final List<Transaction> transactions = new ArrayList<>();
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private final Path dataDir;
+    private final TransactionStore store;
+    private final AccountHandles handles;
+    private final TransactionTimeIndex timeIndex = new TransactionTimeIndex();
+    private TransactionTimeIndex[] accountTimeIndexes = new TransactionTimeIndex[16];
+    private final TransactionStatistics statistics = new TransactionStatistics();
+    private final DailyBalanceSnapshots balanceSnapshots;
+    private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object journalLock = new Object();
+    private int persistedRows;
+
+    /**
+     * Constructs a TransactionManager that stores its data file under {@code src/data}.
+     */
+    public TransactionManager() {
+        this(Paths.get("src", "data"));
+    }
+
+    /**
+     * Constructs a TransactionManager that stores its data file in the given directory.
+     *
+     * @param dataDir the directory holding transactions.txt
+     */
+    public TransactionManager(Path dataDir) {
+        this(dataDir, new AccountHandles());
+    }
+
+    /**
+     * Constructs a TransactionManager that addresses accounts through a shared handle table,
+     * so the handles in the ledger are the same ones the AccountManager uses.
+     *
+     * @param dataDir the directory holding transactions.txt
+     * @param handles the account handle table
+     */
+    public TransactionManager(Path dataDir, AccountHandles handles) {
+        this.dataDir = dataDir;
+        this.handles = handles;
+        this.store = new TransactionStore(handles);
+        this.balanceSnapshots = new DailyBalanceSnapshots();
+    }
 
     /**
      * Adds a new transaction to the manager.
@@ -30,10 +83,10 @@ public class TransactionManager {
      */
     public void addTransaction(Transaction transaction) {
         if (validateTransaction(transaction)) {
-            transactions.add(transaction);
+            appendTransaction(transaction);
         }
         try{
-            saveTransactionsToFile();
+            flushJournal();
         } catch (IOException e) {
             System.out.println("Error saving transaction to file :" + e.getMessage());
         }
@@ -51,17 +104,294 @@ public class TransactionManager {
                 && !transaction.getAccountNumber().isEmpty()
                 && transaction.getAmount() > 0;
     }
+
+    /**
+     * Adds a batch of transactions and saves the ledger once for the whole batch.
+     * Invalid transactions are skipped.
+     *
+     * @param batch the transactions to add
+     */
+    public void addTransactions(Collection<Transaction> batch) {
+        appendBatch(batch);
+        try {
+            flushJournal();
+        } catch (IOException e) {
+            System.out.println("Error saving transactions to file :" + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a batch of transactions under a single lock acquisition without saving them;
+     * the caller saves them later with {@link #flushJournal()}. Invalid transactions are skipped.
+     *
+     * @param batch the transactions to add
+     */
+    public synchronized void appendBatch(Collection<Transaction> batch) {
+        for (Transaction transaction : batch) {
+            if (validateTransaction(transaction)) {
+                appendTransaction(transaction);
+            }
+        }
+    }
+
+    /**
+     * Appends a transaction to the ledger store and records it in the time indexes.
+     *
+     * @param transaction the transaction to append
+     */
+    private synchronized void appendTransaction(Transaction transaction) {
+        int row = store.append(transaction);
+        int account = store.account(row);
+        long epochDay = store.epochDay(row);
+        timeIndex.add(row, epochDay);
+        if (account >= accountTimeIndexes.length) {
+            accountTimeIndexes = Arrays.copyOf(accountTimeIndexes, Math.max(account + 1, accountTimeIndexes.length * 2));
+        }
+        if (accountTimeIndexes[account] == null) {
+            accountTimeIndexes[account] = new TransactionTimeIndex();
+        }
+        accountTimeIndexes[account].add(row, epochDay);
+        statistics.record(account, transaction.getAmount(), store.timestamp(row));
+        balanceSnapshots.record(account, epochDay, store.balanceCents(row), store.timestamp(row));
+        for (TransactionListener listener : listeners) {
+            listener.transactionAdded(account, epochDay);
+        }
+    }
+
+    /**
+     * Registers a listener told about every transaction appended from now on.
+     *
+     * @param listener the listener
+     */
+    public void addTransactionListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
+
+    private TransactionTimeIndex accountTimeIndex(int account) {
+        return account >= 0 && account < accountTimeIndexes.length ? accountTimeIndexes[account] : null;
+    }
+
+    /**
+     * Returns an account's balance at the end of a day, from the daily balance checkpoints.
+     *
+     * @param accountNumber the account number
+     * @param date the day
+     * @return the balance, or empty if the account had no transaction on or before that day
+     */
+    public synchronized OptionalDouble getBalanceAtEndOfDay(String accountNumber, LocalDate date) {
+        long cents = balanceSnapshots.balanceAtEndOfDay(handles.find(accountNumber), date.toEpochDay());
+        return cents == Long.MIN_VALUE ? OptionalDouble.empty() : OptionalDouble.of(TransactionStore.fromCents(cents));
+    }
+
+    /**
+     * Returns an account's balance at a point in time: the checkpoint at the end of the
+     * previous day, replayed with that day's transactions up to the given time.
+     *
+     * @param accountNumber the account number
+     * @param timestampMillis the point in time, in epoch milliseconds
+     * @return the balance, or empty if the account had no transaction at or before that time
+     */
+    public synchronized OptionalDouble getBalanceAt(String accountNumber, long timestampMillis) {
+        int account = handles.find(accountNumber);
+        TransactionTimeIndex index = accountTimeIndex(account);
+        if (index == null) {
+            return OptionalDouble.empty();
+        }
+        long day = CachedClock.epochDayOf(timestampMillis);
+        long[] latest = {Long.MIN_VALUE, 0};
+        index.forEachBetween(CachedClock.startOfDayMillis(day), timestampMillis + 1, 0, Integer.MAX_VALUE,
+                store::timestamp, row -> {
+                    if (store.timestamp(row) >= latest[0]) {
+                        latest[0] = store.timestamp(row);
+                        latest[1] = store.balanceCents(row);
+                    }
+                });
+        if (latest[0] != Long.MIN_VALUE) {
+            return OptionalDouble.of(TransactionStore.fromCents(latest[1]));
+        }
+        long cents = balanceSnapshots.balanceAtEndOfDay(account, day - 1);
+        return cents == Long.MIN_VALUE ? OptionalDouble.empty() : OptionalDouble.of(TransactionStore.fromCents(cents));
+    }
+
+    /**
+     * Returns the daily balance checkpoints kept for every account.
+     *
+     * @return the balance snapshots
+     */
+    public DailyBalanceSnapshots getBalanceSnapshots() {
+        return balanceSnapshots;
+    }
+
+    /**
+     * Returns the streaming statistics (amount quantiles, active accounts per hour,
+     * busiest accounts) kept up to date as transactions are added and loaded.
+     *
+     * @return the transaction statistics
+     */
+    public TransactionStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the accounts with the most transactions, from the streaming statistics.
+     *
+     * @param limit the maximum number of accounts
+     * @return account numbers mapped to their estimated transaction counts, busiest first
+     */
+    public Map<String, Long> getBusiestAccounts(int limit) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (SpaceSaving.Entry entry : statistics.busiestAccounts(limit)) {
+            result.put(handles.accountNumberOf(entry.getKey()), entry.getCount());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ledger store backing this manager, for scans that read the columns directly.
+     *
+     * @return the transaction store
+     */
+    public TransactionStore getStore() {
+        return store;
+    }
+
     public List<Transaction> filterById(String accountNumber) {
         if (accountNumber == null || accountNumber.isEmpty()) {
             return new ArrayList<>();
         }
+        return filterByHandle(handles.find(accountNumber));
+    }
 
-        return transactions.stream()
-                .filter(transaction -> transaction.getAccountNumber().equals(accountNumber))
-                .collect(Collectors.toList());
+    /**
+     * Returns the transactions of an account, in ledger order.
+     *
+     * @param account the account handle
+     * @return the account's transactions, empty if the handle is unknown
+     */
+    public List<Transaction> filterByHandle(int account) {
+        if (account < 0) {
+            return new ArrayList<>();
+        }
+
+        int[] rows = store.rowsOf(account);
+        List<Transaction> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(store.get(row));
+        }
+        return result;
     }
 
     
+    /**
+     * Returns the transactions across all accounts with a timestamp in {@code [fromMillis, toMillis)},
+     * ordered by day.
+     *
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis the end of the range in epoch milliseconds, exclusive
+     * @param offset the number of matching transactions to skip
+     * @param limit the maximum number of transactions to return
+     * @return one page of matching transactions
+     */
+    public synchronized List<Transaction> findTransactionsBetween(long fromMillis, long toMillis, int offset, int limit) {
+        return collectBetween(timeIndex, fromMillis, toMillis, offset, limit);
+    }
+
+    /**
+     * Returns the transactions of one account with a timestamp in {@code [fromMillis, toMillis)},
+     * ordered by day.
+     *
+     * @param accountNumber the account number
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis the end of the range in epoch milliseconds, exclusive
+     * @param offset the number of matching transactions to skip
+     * @param limit the maximum number of transactions to return
+     * @return one page of matching transactions
+     */
+    public synchronized List<Transaction> findTransactionsBetween(String accountNumber, long fromMillis, long toMillis,
+                                                                  int offset, int limit) {
+        TransactionTimeIndex index = accountTimeIndex(handles.find(accountNumber));
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        return collectBetween(index, fromMillis, toMillis, offset, limit);
+    }
+
+    /**
+     * Returns the transactions of one account made between two dates, both inclusive.
+     *
+     * @param accountNumber the account number
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @param offset the number of matching transactions to skip
+     * @param limit the maximum number of transactions to return
+     * @return one page of matching transactions
+     */
+    public List<Transaction> findTransactionsBetween(String accountNumber, LocalDate from, LocalDate to,
+                                                     int offset, int limit) {
+        return findTransactionsBetween(accountNumber, CachedClock.startOfDayMillis(from.toEpochDay()),
+                CachedClock.startOfDayMillis(to.toEpochDay() + 1), offset, limit);
+    }
+
+    /**
+     * Returns the ledger rows of one account in time order. The rows can be read from
+     * {@link #getStore()} without holding any lock.
+     *
+     * @param accountNumber the account number
+     * @return the row numbers, empty if the account has no transactions
+     */
+    public synchronized int[] rowsOf(String accountNumber) {
+        TransactionTimeIndex index = accountTimeIndex(handles.find(accountNumber));
+        if (index == null) {
+            return new int[0];
+        }
+        IntList rows = new IntList(index.size());
+        index.forEach(rows::add);
+        return rows.toArray();
+    }
+
+    /**
+     * Returns the ledger rows of one account with a timestamp in {@code [fromMillis, toMillis)},
+     * in time order.
+     *
+     * @param accountNumber the account number
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis the end of the range in epoch milliseconds, exclusive
+     * @return the row numbers
+     */
+    public synchronized int[] rowsBetween(String accountNumber, long fromMillis, long toMillis) {
+        TransactionTimeIndex index = accountTimeIndex(handles.find(accountNumber));
+        if (index == null) {
+            return new int[0];
+        }
+        IntList rows = new IntList();
+        index.forEachBetween(fromMillis, toMillis, 0, Integer.MAX_VALUE, store::timestamp, rows::add);
+        return rows.toArray();
+    }
+
+    /**
+     * Counts the transactions of one account with a timestamp in {@code [fromMillis, toMillis)}.
+     *
+     * @param accountNumber the account number
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis the end of the range in epoch milliseconds, exclusive
+     * @return the number of matching transactions
+     */
+    public synchronized int countTransactionsBetween(String accountNumber, long fromMillis, long toMillis) {
+        TransactionTimeIndex index = accountTimeIndex(handles.find(accountNumber));
+        if (index == null) {
+            return 0;
+        }
+        return index.countBetween(fromMillis, toMillis, store::timestamp);
+    }
+
+    private List<Transaction> collectBetween(TransactionTimeIndex index, long fromMillis, long toMillis,
+                                             int offset, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+        index.forEachBetween(fromMillis, toMillis, offset, limit, store::timestamp,
+                row -> page.add(store.get(row)));
+        return page;
+    }
+
     /**
      * Displays all transactions for a specific account along with summary statistics.
      *
@@ -95,8 +425,9 @@ public class TransactionManager {
      * @param transactionCount the number of transactions
      */
     private void displayTransactionSummary(String accountNumber, int transactionCount) {
-        double deposit = calculateDeposits(accountNumber);
-        double withdrawal = calculateWithdrawal(accountNumber);
+        EnumMap<TransactionType, Double> totals = sumByType(accountNumber);
+        double deposit = sumCredits(totals);
+        double withdrawal = sumDebits(totals);
         double netChange = deposit - withdrawal;
 
         System.out.println("Total transactions: " + transactionCount);
@@ -105,32 +436,72 @@ public class TransactionManager {
         System.out.println("Net change: " + netChange);
     }
 
+    /**
+     * Sums the transaction amounts of an account per transaction type in a single pass.
+     * Types without transactions map to zero.
+     *
+     * @param accountNumber the account number
+     * @return the total amount per type
+     */
+    public EnumMap<TransactionType, Double> sumByType(String accountNumber) {
+        return sumByType(handles.find(accountNumber));
+    }
+
+    /**
+     * Sums the transaction amounts of an account per transaction type in a single pass.
+     *
+     * @param account the account handle
+     * @return the total amount per type
+     */
+    public EnumMap<TransactionType, Double> sumByType(int account) {
+        long[] sums = account < 0 ? new long[TYPES.length] : store.sumByType(account, 0, store.size());
+        EnumMap<TransactionType, Double> totals = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TYPES) {
+            totals.put(type, TransactionStore.fromCents(sums[type.ordinal()]));
+        }
+        return totals;
+    }
+
     /**
      * Calculates the total deposit amount for a specific account.
+     * Every credit type (deposits and incoming wire transfers) counts as a deposit.
      *
      * @param accountNumber the account number
      * @return the total deposit amount
      */
     public double calculateDeposits(String accountNumber) {
-        return filterById(accountNumber).stream()
-                .filter(transaction -> transaction.getType().equalsIgnoreCase("Deposit") 
-                        || transaction.getType().equalsIgnoreCase("WIRE_TRANSFER_IN"))
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+        return sumCredits(sumByType(accountNumber));
     }
 
     /**
      * Calculates the total withdrawal amount for a specific account.
+     * Every debit type (withdrawals and outgoing wire transfers) counts as a withdrawal.
      *
      * @param accountNumber the account number
      * @return the total withdrawal amount
      */
     public double calculateWithdrawal(String accountNumber) {
-        return filterById(accountNumber).stream()
-                .filter(transaction -> transaction.getType().equalsIgnoreCase("Withdrawal") 
-                        || transaction.getType().equalsIgnoreCase("WIRE_TRANSFER_OUT"))
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+        return sumDebits(sumByType(accountNumber));
+    }
+
+    private static double sumCredits(EnumMap<TransactionType, Double> totals) {
+        double sum = 0;
+        for (TransactionType type : TYPES) {
+            if (type.isCredit()) {
+                sum += totals.get(type);
+            }
+        }
+        return sum;
+    }
+
+    private static double sumDebits(EnumMap<TransactionType, Double> totals) {
+        double sum = 0;
+        for (TransactionType type : TYPES) {
+            if (!type.isCredit()) {
+                sum += totals.get(type);
+            }
+        }
+        return sum;
     }
 
     /**
@@ -139,41 +510,75 @@ public class TransactionManager {
      * @return the transaction count
      */
     public int getTransactionCount() {
-        return transactions.size();
+        return store.size();
     }
 
     public void saveTransactionsToFile() throws IOException {
-        Path dataDir = Paths.get("src", "data");
-        
         if (!Files.exists(dataDir)) {
             Files.createDirectories(dataDir);
         }
         
         Path transactionsFile = dataDir.resolve("transactions.txt");
-        
-        String content = transactions.stream()
-                .map(this::formatTransactionForFile)
-                .collect(Collectors.joining(System.lineSeparator()));
-        
-  
-        Files.writeString(transactionsFile, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        synchronized (journalLock) {
+            int rowCount = store.size();
+            try (BufferedWriter writer = Files.newBufferedWriter(transactionsFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int row = 0; row < rowCount; row++) {
+                    if (row > 0) {
+                        writer.write(System.lineSeparator());
+                    }
+                    writer.write(formatTransactionForFile(row));
+                }
+            }
+            persistedRows = rowCount;
+        }
     }
 
+    /**
+     * Saves the transactions added since the ledger file was last written or loaded by
+     * appending them to the file, instead of rewriting it. Falls back to a full save if the
+     * file does not hold the earlier transactions. The balance checkpoint file is derived
+     * from the ledger and is only rewritten by full saves.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flushJournal() throws IOException {
+        Path transactionsFile = dataDir.resolve("transactions.txt");
+        synchronized (journalLock) {
+            int from = persistedRows;
+            int to = store.size();
+            if (from == to) {
+                return;
+            }
+            if (from == 0 || !Files.exists(transactionsFile)) {
+                saveTransactionsToFile();
+                return;
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(transactionsFile, StandardOpenOption.APPEND)) {
+                for (int row = from; row < to; row++) {
+                    writer.write(System.lineSeparator());
+                    writer.write(formatTransactionForFile(row));
+                }
+            }
+            persistedRows = to;
+        }
+    }
 
-    private String formatTransactionForFile(Transaction transaction) {
+
+    private String formatTransactionForFile(int row) {
         return String.join("|",
-                transaction.getTransactionId(),
-                transaction.getAccountNumber(),
-                transaction.getType(),
-                String.valueOf(transaction.getAmount()),
-                String.valueOf(transaction.getBalanceAfter()),
-                transaction.getTimestamp()
+                IdGenerator.TRANSACTIONS.format(store.transactionId(row)),
+                handles.accountNumberOf(store.account(row)),
+                store.type(row).name(),
+                String.valueOf(TransactionStore.fromCents(store.amountCents(row))),
+                String.valueOf(TransactionStore.fromCents(store.balanceCents(row))),
+                String.valueOf(store.timestamp(row))
         );
     }
 
 
     public void loadTransactionsFromFile() throws IOException {
-        Path transactionsFile = Paths.get("src", "data", "transactions.txt");
+        Path transactionsFile = dataDir.resolve("transactions.txt");
         
         if (!Files.exists(transactionsFile)) {
             return;
@@ -182,34 +587,22 @@ public class TransactionManager {
         try (Stream<String> lines = Files.lines(transactionsFile)) {
             lines.filter(line -> !line.trim().isEmpty())
                     .map(this::parseTransactionFromLine)
-                    .forEach(transactions::add);
+                    .forEach(this::appendTransaction);
             
             // Restore transaction counter to highest ID found
             restoreTransactionCounter();
         }
+        synchronized (journalLock) {
+            persistedRows = store.size();
+        }
     }
 
     private void restoreTransactionCounter() {
-        if (transactions.isEmpty()) {
-            return;
+        long maxId = 0;
+        for (int row = 0; row < store.size(); row++) {
+            maxId = Math.max(maxId, store.transactionId(row));
         }
-        
-        int maxIdNumber = transactions.stream()
-                .map(Transaction::getTransactionId)
-                .filter(id -> id != null && id.startsWith("TXN"))
-                .mapToInt(id -> {
-                    try {
-                        String numberPart = id.substring(3);
-                        return Integer.parseInt(numberPart);
-                    } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-                        return 0;
-                    }
-                })
-                .max()
-                .orElse(-1);
-        
-
-        Transaction.setTransactionCounter(maxIdNumber + 1);
+        IdGenerator.TRANSACTIONS.advanceTo(maxId);
     }
 
     private Transaction parseTransactionFromLine(String line) {
@@ -218,18 +611,17 @@ public class TransactionManager {
             throw new IllegalArgumentException("Invalid transaction line format: " + line);
         }
         
-        String transactionId = parts[0];
+        long transactionId = IdGenerator.TRANSACTIONS.parse(parts[0]);
+        if (transactionId < 0) {
+            throw new IllegalArgumentException("Invalid transaction id: " + parts[0]);
+        }
         String accountNumber = parts[1];
-        String type = parts[2];
+        TransactionType type = TransactionType.fromLabel(parts[2]);
         double amount = Double.parseDouble(parts[3]);
         double balanceAfter = Double.parseDouble(parts[4]);
-        String timestamp = parts[5];
-        
-        Transaction transaction = new Transaction(accountNumber, type, amount, balanceAfter);
-        transaction.setTransactionId(transactionId);
-        transaction.setTimestamp(timestamp);
+        long timestamp = CachedClock.parse(parts[5]);
         
-        return transaction;
+        return new Transaction(transactionId, accountNumber, type, amount, balanceAfter, timestamp);
     }
 
     /**
@@ -262,31 +654,52 @@ public class TransactionManager {
             throw new InvalidAmountException("Transfer amount must be greater than zero!");
         }
 
-        boolean withdrawalSuccess = fromAccount.processTransaction(amount, "WITHDRAWAL");
+        // both legs, or the rollback, are applied before the balance totals can be read
+        boolean transferred;
+        accountManager.beginTransfer();
+        try {
+            transferred = applyWireTransfer(fromAccount, toAccount, amount);
+        } finally {
+            accountManager.endTransfer();
+        }
+        if (transferred) {
+            try {
+                flushJournal();
+            } catch (IOException e) {
+                System.out.println("Error saving transactions to file :" + e.getMessage());
+            }
+        }
+        return transferred;
+    }
+
+    private boolean applyWireTransfer(Account fromAccount, Account toAccount, double amount)
+            throws InvalidAmountException, InsufficientFundsException, OverdraftExceededException {
+        String fromAccountNumber = fromAccount.getAccountNumber();
+        String toAccountNumber = toAccount.getAccountNumber();
+        boolean withdrawalSuccess = fromAccount.processTransaction(amount, TransactionType.WITHDRAWAL);
         
         if (withdrawalSuccess) {
-            boolean depositSuccess = toAccount.processTransaction(amount, "DEPOSIT");
+            boolean depositSuccess = toAccount.processTransaction(amount, TransactionType.DEPOSIT);
             
             if (depositSuccess) {
                 Transaction withdrawalTransaction = new Transaction(
                     fromAccountNumber, 
-                    "WIRE_TRANSFER_OUT", 
+                    TransactionType.WIRE_TRANSFER_OUT,
                     amount, 
                     fromAccount.getBalance()
                 );
-                addTransaction(withdrawalTransaction);
-                
                 Transaction depositTransaction = new Transaction(
                     toAccountNumber, 
-                    "WIRE_TRANSFER_IN", 
+                    TransactionType.WIRE_TRANSFER_IN,
                     amount, 
                     toAccount.getBalance()
                 );
-                addTransaction(depositTransaction);
+                // saved once the transfer bracket is closed
+                appendBatch(List.of(withdrawalTransaction, depositTransaction));
                 
                 return true;
             } else {
-                fromAccount.processTransaction(amount, "DEPOSIT");
+                fromAccount.processTransaction(amount, TransactionType.DEPOSIT);
                 throw new InvalidAmountException("Transfer failed during deposit. Transaction rolled back.");
             }
         }
@@ -0,0 +1,170 @@
+package services;
+
+import utils.HyperLogLog;
+import utils.QuantileSketch;
+import utils.SpaceSaving;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming monitoring statistics over the ledger, updated as each transaction is
+ * appended and answered without reading the ledger:
+ * <ul>
+ *   <li>amount quantiles (p50, p99, ...) within 1% relative error,</li>
+ *   <li>distinct active accounts per hour, for the last {@value #HOURS_KEPT} hours,</li>
+ *   <li>the accounts with the most transactions.</li>
+ * </ul>
+ * Memory is fixed: about 13 KB for amounts, 4 KB per hour and a few KB for heavy hitters.
+ * Every sketch is mergeable, so statistics of separate ledgers can be combined with
+ * {@link #merge(TransactionStatistics)}.
+ */
+public class TransactionStatistics {
+    static final int HOURS_KEPT = 48;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final int HLL_PRECISION = 12;
+    private static final int HEAVY_HITTER_CAPACITY = 128;
+    // gives every instance a distinct rank, so merges lock in one global order
+    private static final AtomicLong NEXT_LOCK_RANK = new AtomicLong();
+
+    private final long lockRank = NEXT_LOCK_RANK.getAndIncrement();
+
+    private final QuantileSketch amounts = new QuantileSketch(0.01, 0.01, 1e12);
+    private final HyperLogLog[] accountsPerHour = new HyperLogLog[HOURS_KEPT];
+    private final long[] hourOfSlot = new long[HOURS_KEPT];
+    private final SpaceSaving busiestAccounts = new SpaceSaving(HEAVY_HITTER_CAPACITY);
+    private long latestHour = Long.MIN_VALUE;
+
+    public TransactionStatistics() {
+        for (int slot = 0; slot < HOURS_KEPT; slot++) {
+            accountsPerHour[slot] = new HyperLogLog(HLL_PRECISION);
+            hourOfSlot[slot] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Records one transaction.
+     *
+     * @param account the account handle
+     * @param amount the transaction amount
+     * @param timestampMillis the transaction time in epoch milliseconds
+     */
+    public synchronized void record(int account, double amount, long timestampMillis) {
+        amounts.add(amount);
+        busiestAccounts.add(account);
+        long hour = Math.floorDiv(timestampMillis, HOUR_MILLIS);
+        if (latestHour != Long.MIN_VALUE && hour <= latestHour - HOURS_KEPT) {
+            return;
+        }
+        latestHour = Math.max(latestHour, hour);
+        int slot = (int) Math.floorMod(hour, (long) HOURS_KEPT);
+        if (hourOfSlot[slot] != hour) {
+            accountsPerHour[slot].clear();
+            hourOfSlot[slot] = hour;
+        }
+        accountsPerHour[slot].add(account);
+    }
+
+    /**
+     * Returns an estimated amount quantile.
+     *
+     * @param quantile the quantile, e.g. 0.5 for the median or 0.99
+     * @return the estimated amount, within 1%
+     */
+    public synchronized double amountQuantile(double quantile) {
+        return amounts.quantile(quantile);
+    }
+
+    /**
+     * Returns the number of transactions recorded.
+     *
+     * @return the count
+     */
+    public synchronized long getTransactionCount() {
+        return amounts.count();
+    }
+
+    /**
+     * Returns the estimated number of distinct accounts with a transaction in the hour
+     * containing the given time.
+     *
+     * @param timestampMillis any time within the hour
+     * @return the estimate, 0 if the hour is older than the hours kept
+     */
+    public synchronized long distinctAccountsInHour(long timestampMillis) {
+        long hour = Math.floorDiv(timestampMillis, HOUR_MILLIS);
+        int slot = (int) Math.floorMod(hour, (long) HOURS_KEPT);
+        return hourOfSlot[slot] == hour ? accountsPerHour[slot].estimate() : 0;
+    }
+
+    /**
+     * Returns the estimated number of distinct accounts with a transaction in the
+     * given number of hours up to and including the latest hour seen.
+     *
+     * @param hours the number of hours, at most {@value #HOURS_KEPT}
+     * @return the estimate
+     */
+    public synchronized long distinctAccountsInLastHours(int hours) {
+        HyperLogLog union = new HyperLogLog(HLL_PRECISION);
+        for (int back = 0; back < Math.min(hours, HOURS_KEPT); back++) {
+            long hour = latestHour - back;
+            int slot = (int) Math.floorMod(hour, (long) HOURS_KEPT);
+            if (hourOfSlot[slot] == hour) {
+                union.merge(accountsPerHour[slot]);
+            }
+        }
+        return union.estimate();
+    }
+
+    /**
+     * Returns the accounts with the most transactions.
+     *
+     * @param limit the maximum number of accounts
+     * @return account handles with their (over-)estimated counts, busiest first
+     */
+    public synchronized List<SpaceSaving.Entry> busiestAccounts(int limit) {
+        List<SpaceSaving.Entry> result = new ArrayList<>();
+        for (SpaceSaving.Entry entry : busiestAccounts.top(limit)) {
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the statistics of another ledger, e.g. another shard, to these.
+     * Both must use the same account handle table for heavy hitters and distinct
+     * counts to refer to the same accounts.
+     *
+     * @param other the statistics to merge
+     * @throws IllegalArgumentException if other is these statistics
+     */
+    public void merge(TransactionStatistics other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot merge statistics into themselves");
+        }
+        // lock both in a fixed order so two opposite merges cannot deadlock
+        TransactionStatistics first = lockRank < other.lockRank ? this : other;
+        TransactionStatistics second = first == this ? other : this;
+        synchronized (first) {
+            synchronized (second) {
+                amounts.merge(other.amounts);
+                busiestAccounts.merge(other.busiestAccounts);
+                for (int slot = 0; slot < HOURS_KEPT; slot++) {
+                    long hour = other.hourOfSlot[slot];
+                    if (hour == Long.MIN_VALUE || (latestHour != Long.MIN_VALUE && hour <= latestHour - HOURS_KEPT)) {
+                        continue;
+                    }
+                    if (hourOfSlot[slot] != hour) {
+                        if (hourOfSlot[slot] > hour) {
+                            continue;
+                        }
+                        accountsPerHour[slot].clear();
+                        hourOfSlot[slot] = hour;
+                    }
+                    accountsPerHour[slot].merge(other.accountsPerHour[slot]);
+                }
+                latestHour = Math.max(latestHour, other.latestHour);
+            }
+        }
+    }
+}
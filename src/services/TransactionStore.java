@@ -0,0 +1,214 @@
+package services;
+
+import models.Transaction;
+import models.TransactionType;
+import java.util.Arrays;
+
+/**
+ * Columnar in-memory ledger. Each transaction is a row spread over parallel primitive
+ * columns that grow in fixed-size chunks, so a row costs about 41 bytes of heap and a
+ * scan over one column reads contiguous memory. Amounts and balances are kept in cents
+ * and the account column holds {@link AccountHandles} handles.
+ * {@link Transaction} objects are only created when a caller asks for a row.
+ *
+ * Appends are serialised; readers see every row below {@link #size()} without locking.
+ */
+public class TransactionStore {
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private long[][] ids = new long[0][];
+    private long[][] timestamps = new long[0][];
+    private long[][] amounts = new long[0][];
+    private long[][] balances = new long[0][];
+    private int[][] accounts = new int[0][];
+    private int[][] days = new int[0][];
+    private byte[][] types = new byte[0][];
+    private volatile int size;
+
+    private final AccountHandles handles;
+
+    /**
+     * Constructs a TransactionStore with its own account handle table.
+     */
+    public TransactionStore() {
+        this(new AccountHandles());
+    }
+
+    /**
+     * Constructs a TransactionStore whose account column holds handles from the given table.
+     *
+     * @param handles the account handle table, usually shared with the AccountManager
+     */
+    public TransactionStore(AccountHandles handles) {
+        this.handles = handles;
+    }
+
+    /**
+     * Appends a transaction as a new row.
+     *
+     * @param transaction the transaction to store
+     * @return the row number of the new row
+     */
+    public synchronized int append(Transaction transaction) {
+        int row = size;
+        int chunk = row >>> CHUNK_SHIFT;
+        if (chunk == ids.length) {
+            addChunk();
+        }
+        int slot = row & CHUNK_MASK;
+        ids[chunk][slot] = transaction.getTransactionNumber();
+        timestamps[chunk][slot] = transaction.getTimestampMillis();
+        amounts[chunk][slot] = toCents(transaction.getAmount());
+        balances[chunk][slot] = toCents(transaction.getBalanceAfter());
+        accounts[chunk][slot] = handleOf(transaction.getAccountNumber());
+        days[chunk][slot] = (int) transaction.getEpochDay();
+        types[chunk][slot] = (byte) transaction.getType().ordinal();
+        size = row + 1;
+        return row;
+    }
+
+    private int handleOf(String accountNumber) {
+        int handle = handles.find(accountNumber);
+        return handle >= 0 ? handle : handles.register(accountNumber);
+    }
+
+    private void addChunk() {
+        int chunks = ids.length + 1;
+        ids = Arrays.copyOf(ids, chunks);
+        timestamps = Arrays.copyOf(timestamps, chunks);
+        amounts = Arrays.copyOf(amounts, chunks);
+        balances = Arrays.copyOf(balances, chunks);
+        accounts = Arrays.copyOf(accounts, chunks);
+        days = Arrays.copyOf(days, chunks);
+        types = Arrays.copyOf(types, chunks);
+        int chunk = chunks - 1;
+        ids[chunk] = new long[CHUNK_SIZE];
+        timestamps[chunk] = new long[CHUNK_SIZE];
+        amounts[chunk] = new long[CHUNK_SIZE];
+        balances[chunk] = new long[CHUNK_SIZE];
+        accounts[chunk] = new int[CHUNK_SIZE];
+        days[chunk] = new int[CHUNK_SIZE];
+        types[chunk] = new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the account handle table used by the account column.
+     *
+     * @return the account handles
+     */
+    public AccountHandles getHandles() {
+        return handles;
+    }
+
+    /**
+     * Creates a Transaction holding a copy of the given row.
+     *
+     * @param row the row number
+     * @return the transaction
+     */
+    public Transaction get(int row) {
+        int chunk = row >>> CHUNK_SHIFT;
+        int slot = row & CHUNK_MASK;
+        return new Transaction(ids[chunk][slot], handles.accountNumberOf(accounts[chunk][slot]),
+                TYPES[types[chunk][slot]], fromCents(amounts[chunk][slot]),
+                fromCents(balances[chunk][slot]), timestamps[chunk][slot]);
+    }
+
+    public long transactionId(int row) {
+        return ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public long timestamp(int row) {
+        return timestamps[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public long amountCents(int row) {
+        return amounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public long balanceCents(int row) {
+        return balances[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public int account(int row) {
+        return accounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public int epochDay(int row) {
+        return days[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public TransactionType type(int row) {
+        return TYPES[types[row >>> CHUNK_SHIFT][row & CHUNK_MASK]];
+    }
+
+    /**
+     * Sums amounts per transaction type for one account, scanning the account and type
+     * columns chunk by chunk.
+     *
+     * @param account the account handle
+     * @param from the first row to scan
+     * @param to the row after the last row to scan
+     * @return the total in cents per type, indexed by {@link TransactionType#ordinal()}
+     */
+    public long[] sumByType(int account, int from, int to) {
+        long[] sums = new long[TYPES.length];
+        int row = from;
+        while (row < to) {
+            int chunk = row >>> CHUNK_SHIFT;
+            int start = row & CHUNK_MASK;
+            int end = Math.min(CHUNK_SIZE, start + (to - row));
+            int[] accountColumn = accounts[chunk];
+            byte[] typeColumn = types[chunk];
+            long[] amountColumn = amounts[chunk];
+            for (int slot = start; slot < end; slot++) {
+                if (accountColumn[slot] == account) {
+                    sums[typeColumn[slot]] += amountColumn[slot];
+                }
+            }
+            row += end - start;
+        }
+        return sums;
+    }
+
+    /**
+     * Collects the rows belonging to one account, in ledger order.
+     *
+     * @param account the account handle
+     * @return the matching row numbers
+     */
+    public int[] rowsOf(int account) {
+        int[] rows = new int[16];
+        int count = 0;
+        int total = size;
+        for (int row = 0; row < total; row++) {
+            if (accounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK] == account) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+}
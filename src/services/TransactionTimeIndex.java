@@ -0,0 +1,145 @@
+package services;
+
+import utils.CachedClock;
+import utils.IntList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Time-ordered index over ledger rows, bucketed by epoch day.
+ * Rows are identified by their position in the ledger. A range query walks only the
+ * buckets inside the range; individual timestamps are checked only in the first and
+ * last bucket, where the range may cover part of a day.
+ */
+public class TransactionTimeIndex {
+    private final NavigableMap<Long, IntList> buckets = new TreeMap<>();
+    private int size;
+
+    /**
+     * Adds a ledger row to the index.
+     *
+     * @param row the row position in the ledger
+     * @param epochDay the day the transaction happened on
+     */
+    public void add(int row, long epochDay) {
+        buckets.computeIfAbsent(epochDay, day -> new IntList()).add(row);
+        size++;
+    }
+
+    /**
+     * Removes every row from the index.
+     */
+    public void clear() {
+        buckets.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of rows in the index.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every row in the index, in day order.
+     *
+     * @param sink receives each row
+     */
+    public void forEach(IntConsumer sink) {
+        for (IntList rows : buckets.values()) {
+            for (int i = 0; i < rows.size(); i++) {
+                sink.accept(rows.get(i));
+            }
+        }
+    }
+
+    /**
+     * Visits the rows whose timestamp is in {@code [fromMillis, toMillis)}, in day order.
+     *
+     * @param fromMillis the start of the range, inclusive
+     * @param toMillis the end of the range, exclusive
+     * @param offset the number of matching rows to skip
+     * @param limit the maximum number of rows to visit
+     * @param timestampOf looks up the timestamp of a row
+     * @param sink receives each matching row
+     * @return the number of rows visited
+     */
+    public int forEachBetween(long fromMillis, long toMillis, int offset, int limit,
+                              IntToLongFunction timestampOf, IntConsumer sink) {
+        if (fromMillis >= toMillis || limit <= 0) {
+            return 0;
+        }
+        long fromDay = CachedClock.epochDayOf(fromMillis);
+        long toDay = CachedClock.epochDayOf(toMillis - 1);
+        int toSkip = Math.max(0, offset);
+        int visited = 0;
+
+        for (Map.Entry<Long, IntList> entry : buckets.subMap(fromDay, true, toDay, true).entrySet()) {
+            long day = entry.getKey();
+            IntList rows = entry.getValue();
+            boolean partial = day == fromDay || day == toDay;
+
+            if (!partial && toSkip >= rows.size()) {
+                toSkip -= rows.size();
+                continue;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                int row = rows.get(i);
+                if (partial) {
+                    long timestamp = timestampOf.applyAsLong(row);
+                    if (timestamp < fromMillis || timestamp >= toMillis) {
+                        continue;
+                    }
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                sink.accept(row);
+                if (++visited == limit) {
+                    return visited;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Counts the rows whose timestamp is in {@code [fromMillis, toMillis)}.
+     *
+     * @param fromMillis the start of the range, inclusive
+     * @param toMillis the end of the range, exclusive
+     * @param timestampOf looks up the timestamp of a row
+     * @return the number of matching rows
+     */
+    public int countBetween(long fromMillis, long toMillis, IntToLongFunction timestampOf) {
+        if (fromMillis >= toMillis) {
+            return 0;
+        }
+        long fromDay = CachedClock.epochDayOf(fromMillis);
+        long toDay = CachedClock.epochDayOf(toMillis - 1);
+        int count = 0;
+
+        for (Map.Entry<Long, IntList> entry : buckets.subMap(fromDay, true, toDay, true).entrySet()) {
+            long day = entry.getKey();
+            IntList rows = entry.getValue();
+            if (day != fromDay && day != toDay) {
+                count += rows.size();
+                continue;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                long timestamp = timestampOf.applyAsLong(rows.get(i));
+                if (timestamp >= fromMillis && timestamp < toMillis) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
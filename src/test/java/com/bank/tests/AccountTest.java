@@ -11,6 +11,9 @@ import models.exceptions.InvalidAmountException;
 import models.exceptions.OverdraftExceededException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import services.AccountManager;
+import services.CustomerManager;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AccountTest {
@@ -257,5 +260,92 @@ public class AccountTest {
         assertEquals(initialBalance - withdrawalAmount, checkingAccount.getBalance(), 0.01,
                 "Balance should be updated after processing withdrawal transaction");
     }
+
+    // ========== Customer Registry Tests ==========
+
+    @Test
+    void testAddAccount_SameEmail_SharesCustomer() {
+        AccountManager accountManager = new AccountManager();
+        Customer duplicate = new RegularCustomer("John Doe", 30, "TEST@gmail.com", "123-456-7890", "123 Main St");
+        SavingsAccount secondAccount = new SavingsAccount(duplicate, 800.0, "Active");
+
+        accountManager.addAccount(checkingAccount);
+        accountManager.addAccount(secondAccount);
+
+        assertSame(checkingAccount.getCustomer(), secondAccount.getCustomer(),
+                "Accounts of the same email should reference the same customer");
+        assertEquals(1, accountManager.getCustomerManager().getCustomerCount(),
+                "Only one customer should be registered");
+        assertEquals(2, accountManager.getAccountsOfCustomer(regularCustomer).size(),
+                "Customer should own both accounts");
+    }
+
+    @Test
+    void testRegister_SameEmailDifferentCustomer_IsRejected() {
+        CustomerManager customerManager = new CustomerManager();
+        customerManager.register(regularCustomer);
+        Customer otherName = new RegularCustomer("Mallory Doe", 30, "test@gmail.com", "123-456-7890", "123 Main St");
+        Customer otherType = new PremiumCustomer("John Doe", 30, "Test@gmail.com", "123-456-7890", "123 Main St");
+
+        assertThrows(IllegalArgumentException.class, () -> customerManager.register(otherName),
+                "A different name under a registered email should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> customerManager.register(otherType),
+                "A different customer type under a registered email should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> customerManager.findOrCreate("John Doe", 30,
+                        "test@gmail.com", "123-456-7890", "123 Main St", "Premium"),
+                "A loaded record with a different customer type should be rejected");
+        assertFalse(customerManager.findByEmail("test@gmail.com").hasWaivedFees(),
+                "The registered customer should keep its type");
+    }
+
+    @Test
+    void testSearchCustomers_PrefixAndTypo_FindsCustomer() {
+        AccountManager accountManager = new AccountManager();
+        accountManager.addAccount(checkingAccount);
+        accountManager.addAccount(savingsAccount);
+
+        assertEquals(regularCustomer, accountManager.getCustomerManager().search("jo", 10).get(0),
+                "Name prefix should find the customer");
+        assertEquals(premiumCustomer, accountManager.getCustomerManager().search("Jane Smyth", 10).get(0),
+                "Misspelled name should still find the customer");
+        assertEquals(premiumCustomer, accountManager.getCustomerManager().search("987-654", 10).get(0),
+                "Phone prefix should ignore separators");
+        assertTrue(accountManager.getCustomerManager().search("zebra", 10).isEmpty(),
+                "Unknown name should find nothing");
+    }
+
+    @Test
+    void testSearchCustomers_OneWordMatchesNothing_FindsNobody() {
+        AccountManager accountManager = new AccountManager();
+        accountManager.addAccount(checkingAccount);
+        accountManager.addAccount(savingsAccount);
+
+        assertTrue(accountManager.getCustomerManager().search("john zebra", 10).isEmpty(),
+                "A word matching no customer should rule out every customer");
+        assertTrue(accountManager.getCustomerManager().search("jane doe", 10).isEmpty(),
+                "Words matching different customers should find nobody");
+        assertEquals(List.of(regularCustomer), accountManager.getCustomerManager().search("doe jo", 10),
+                "Words can be typed in any order");
+    }
+
+    // ========== Balance Totals Tests ==========
+
+    @Test
+    void testTotalBalance_UpdatedOnBalanceChanges() throws Exception {
+        AccountManager accountManager = new AccountManager();
+        accountManager.addAccount(checkingAccount);
+        accountManager.addAccount(savingsAccount);
+
+        checkingAccount.deposit(250.0);
+        savingsAccount.withdraw(100.0);
+
+        assertEquals(2150.0, accountManager.getTotalBalance(), 0.001,
+                "Total should follow deposits and withdrawals");
+        assertEquals(1250.0, accountManager.getBalanceTotals().getTotal("Checking"), 0.001,
+                "Checking total should include the deposit");
+        assertEquals(900.0, accountManager.getBalanceTotals().getTotal("Savings"), 0.001,
+                "Savings total should include the withdrawal");
+        assertTrue(accountManager.verifyBalanceTotals(), "Maintained totals should match a recomputation");
+    }
 }
 
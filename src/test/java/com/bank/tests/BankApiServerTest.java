@@ -0,0 +1,143 @@
+package com.bank.tests;
+
+import api.BankApiServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.HoldManager;
+import services.StatementGenerator;
+import services.TransactionManager;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankApiServerTest {
+    private static final String NEW_ACCOUNT = "{\"name\":\"Grace \\\"G\\\" Uwase\",\"age\":30,"
+            + "\"email\":\"grace@mail.com\",\"contact\":\"0788\",\"address\":\"Kigali\","
+            + "\"customerType\":\"Regular\",\"accountType\":\"Checking\",\"initialDeposit\":1000}";
+
+    @TempDir
+    Path dataDir;
+    private BankApiServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        AccountManager accountManager = bank.accountManager;
+        TransactionManager transactionManager = bank.transactionManager;
+        server = new BankApiServer(accountManager, transactionManager,
+                new StatementGenerator(accountManager, transactionManager),
+                new HoldManager(accountManager, transactionManager, dataDir), new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String accountNumberOf(String json) {
+        int start = json.indexOf("\"accountNumber\":\"") + "\"accountNumber\":\"".length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    // ========== Endpoint Tests ==========
+
+    @Test
+    void testAccountLifecycle_CreateDepositWithdrawTransferStatement() throws Exception {
+        HttpResponse<String> created = send("POST", "/accounts", NEW_ACCOUNT);
+        assertEquals(201, created.statusCode(), "Account creation should answer 201");
+        assertTrue(created.body().contains("\"name\":\"Grace \\\"G\\\" Uwase\""), "Names should be JSON-escaped");
+        assertTrue(created.body().contains("\"balance\":1000.00"), "The initial deposit should be the balance");
+        String first = accountNumberOf(created.body());
+        String second = accountNumberOf(send("POST", "/accounts", NEW_ACCOUNT).body());
+
+        HttpResponse<String> deposit = send("POST", "/accounts/" + first + "/deposit", "{\"amount\": 250.5}");
+        assertEquals(200, deposit.statusCode(), "A deposit should succeed");
+        assertTrue(deposit.body().contains("\"type\":\"DEPOSIT\""), "The deposit transaction should be returned");
+        assertTrue(deposit.body().contains("\"balanceAfter\":1250.50"), "The new balance should be returned");
+
+        HttpResponse<String> transfer = send("POST", "/transfers",
+                "{\"from\":\"" + first + "\",\"to\":\"" + second + "\",\"amount\":50}");
+        assertEquals(200, transfer.statusCode(), "A transfer should succeed");
+        assertTrue(transfer.body().contains("\"toBalance\":1050.00"), "The destination balance should be returned");
+
+        HttpResponse<String> overdraft = send("POST", "/accounts/" + first + "/withdraw", "{\"amount\":5000}");
+        assertEquals(422, overdraft.statusCode(), "Breaking the overdraft limit should answer 422");
+        assertTrue(overdraft.body().startsWith("{\"error\":"), "Errors should be JSON");
+
+        HttpResponse<String> lookup = send("GET", "/accounts/" + first, null);
+        assertTrue(lookup.body().contains("\"balance\":1200.50"), "A failed withdrawal should not change the balance");
+        HttpResponse<String> statement = send("GET", "/accounts/" + first + "/statement", null);
+        assertEquals(200, statement.statusCode(), "The statement should be served");
+        assertTrue(statement.body().contains(first), "The statement should name the account");
+    }
+
+    @Test
+    void testHolds_PlaceCaptureRelease() throws Exception {
+        String account = accountNumberOf(send("POST", "/accounts", NEW_ACCOUNT).body());
+
+        HttpResponse<String> placed = send("POST", "/holds",
+                "{\"account\":\"" + account + "\",\"amount\":300,\"expiresInSeconds\":3600}");
+        assertEquals(201, placed.statusCode(), "Placing a hold should answer 201");
+        assertTrue(placed.body().contains("\"availableBalance\":700.00"), "The hold should reduce the available balance");
+        String holdId = placed.headers().firstValue("Location").orElseThrow().substring("/holds/".length());
+
+        HttpResponse<String> captured = send("POST", "/holds/" + holdId + "/capture", "{\"amount\":250}");
+        assertEquals(200, captured.statusCode(), "Capturing an open hold should succeed");
+        assertTrue(captured.body().contains("\"balanceAfter\":750.00"), "The captured amount should be debited");
+        assertEquals(404, send("POST", "/holds/" + holdId + "/capture", "{\"amount\":50}").statusCode(),
+                "A captured hold should no longer be open");
+        assertEquals(404, send("DELETE", "/holds/" + holdId, null).statusCode(),
+                "A captured hold cannot be released");
+        assertEquals(422, send("POST", "/holds", "{\"account\":\"" + account
+                + "\",\"amount\":5000,\"expiresInSeconds\":3600}").statusCode(),
+                "A hold beyond the overdraft limit should answer 422");
+    }
+
+    @Test
+    void testErrors_MapToHttpStatusCodes() throws Exception {
+        assertEquals(404, send("GET", "/accounts/ACC999", null).statusCode(), "Unknown accounts should answer 404");
+        assertEquals(405, send("DELETE", "/accounts/ACC999", null).statusCode(), "Wrong methods should answer 405");
+        assertEquals(400, send("POST", "/accounts", "{\"name\":").statusCode(), "Malformed JSON should answer 400");
+        String account = accountNumberOf(send("POST", "/accounts", NEW_ACCOUNT).body());
+        assertEquals(400, send("POST", "/accounts/" + account + "/deposit", "{\"amount\":-5}").statusCode(),
+                "Invalid amounts should answer 400");
+        assertEquals(400, send("GET", "/accounts/" + account + "/statement?from=2025-01-01", null).statusCode(),
+                "A half-open statement period should answer 400");
+    }
+
+    @Test
+    void testErrors_NonFiniteAndSubCentAmountsAreRejected() throws Exception {
+        String first = accountNumberOf(send("POST", "/accounts", NEW_ACCOUNT).body());
+        String second = accountNumberOf(send("POST", "/accounts", NEW_ACCOUNT).body());
+
+        for (String amount : new String[] {"NaN", "Infinity", "-Infinity", "1.005"}) {
+            assertEquals(400, send("POST", "/accounts/" + first + "/deposit", "{\"amount\":" + amount + "}")
+                    .statusCode(), "A deposit of " + amount + " should answer 400");
+            assertEquals(400, send("POST", "/transfers", "{\"from\":\"" + first + "\",\"to\":\"" + second
+                    + "\",\"amount\":" + amount + "}").statusCode(), "A transfer of " + amount + " should answer 400");
+        }
+        assertTrue(send("GET", "/accounts/" + first, null).body().contains("\"balance\":1000.00"),
+                "Rejected amounts should not touch the account");
+        assertTrue(send("GET", "/accounts/" + first + "/statement", null).body().contains("Total Transactions: 0"),
+                "Rejected amounts should not reach the ledger");
+    }
+}
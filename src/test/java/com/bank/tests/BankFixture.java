@@ -0,0 +1,56 @@
+package com.bank.tests;
+
+import models.Account;
+import models.CheckingAccount;
+import models.Customer;
+import models.RegularCustomer;
+import models.SavingsAccount;
+import services.AccountHandles;
+import services.AccountManager;
+import services.TransactionManager;
+import java.nio.file.Path;
+
+/**
+ * Account and transaction managers over one data directory, with the sample customers the
+ * service tests share. Tests pass a JUnit {@code @TempDir}, so each test starts with an empty
+ * bank and the directory is deleted afterwards; opening a second fixture on the same directory
+ * simulates a restart.
+ */
+final class BankFixture {
+    final AccountManager accountManager;
+    final TransactionManager transactionManager;
+
+    BankFixture(Path dataDir) {
+        AccountHandles handles = new AccountHandles();
+        accountManager = new AccountManager(dataDir, handles);
+        transactionManager = new TransactionManager(dataDir, handles);
+    }
+
+    /**
+     * Resets the account and customer counters, so account numbers start from ACC001 in every test.
+     */
+    static void resetCounters() {
+        Account.setAccountCounter(0);
+        Customer.setCustomerCounter(0);
+    }
+
+    static Customer alice() {
+        return new RegularCustomer("Alice Johnson", 28, "test@gmail.com", "555-0101", "789 Elm St");
+    }
+
+    static Customer bob() {
+        return new RegularCustomer("Bob Williams", 32, "test2@gmail.com", "555-0102", "321 Pine St");
+    }
+
+    CheckingAccount addChecking(Customer customer, double balance) {
+        CheckingAccount account = new CheckingAccount(customer, balance, "Active");
+        accountManager.addAccount(account);
+        return account;
+    }
+
+    SavingsAccount addSavings(Customer customer, double balance) {
+        SavingsAccount account = new SavingsAccount(customer, balance, "Active");
+        accountManager.addAccount(account);
+        return account;
+    }
+}
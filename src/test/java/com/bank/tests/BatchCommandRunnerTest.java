@@ -0,0 +1,136 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.BatchCommandRunner;
+import services.StatementGenerator;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchCommandRunnerTest {
+    @TempDir
+    Path dataDir;
+    private AccountManager accountManager;
+    private TransactionManager transactionManager;
+    private CheckingAccount checking;
+    private SavingsAccount savings;
+    private StringWriter statements;
+    private ByteArrayOutputStream errors;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        accountManager = bank.accountManager;
+        transactionManager = bank.transactionManager;
+        checking = bank.addChecking(BankFixture.alice(), 2000.0);
+        savings = bank.addSavings(BankFixture.bob(), 1000.0);
+        statements = new StringWriter();
+        errors = new ByteArrayOutputStream();
+    }
+
+    private BatchCommandRunner.Result run(String... lines) throws IOException {
+        return new BatchCommandRunner(accountManager, transactionManager,
+                new StatementGenerator(accountManager, transactionManager))
+                .run(new BufferedReader(new StringReader(String.join("\n", lines))), statements,
+                        new PrintStream(errors, true));
+    }
+
+    @Test
+    void testRun_ReplaysCommands() throws Exception {
+        BatchCommandRunner.Result result = run(
+                "# a day of operations",
+                "CREATE|Checking|Regular|Carol Smith|40|carol@mail.com|555-0103|12 Oak St|600",
+                "DEPOSIT|ACC003|150.50",
+                "",
+                "TRANSFER|" + checking.getAccountNumber() + "|ACC003|250");
+
+        assertEquals(3, result.getTotalExecuted(), "Every command should run");
+        assertEquals(1, result.getExecuted(BatchCommandRunner.Command.CREATE), "The account should be created");
+        assertEquals(1000.50, accountManager.findAccount("ACC003").getBalance(), 0.001,
+                "The deposit and transfer should reach the new account");
+        assertEquals(1750.0, checking.getBalance(), 0.001, "The transfer should debit the source");
+        assertEquals(3, transactionManager.getTransactionCount(), "The deposit and both transfer legs should be recorded");
+    }
+
+    @Test
+    void testRun_CreateWithEmailOfAnotherCustomerFailsThatLine() throws Exception {
+        BatchCommandRunner.Result result = run(
+                "CREATE|Savings|Premium|Mallory Jones|40|test@gmail.com|555-0104|1 Elm St|20000",
+                "CREATE|Checking|Regular|Carol Smith|40|carol@mail.com|555-0103|12 Oak St|600");
+
+        assertEquals(1, result.getExecuted(BatchCommandRunner.Command.CREATE), "Only the valid account should be created");
+        assertTrue(errors.toString().startsWith("Line 1:"), "The conflicting line should be reported");
+        assertEquals(3, accountManager.getAccountCount(), "The other account in the batch should still be saved");
+        assertFalse(checking.getCustomer().hasWaivedFees(), "The registered customer should keep its type");
+    }
+
+    @Test
+    void testRun_ReportsFailuresWithLineNumbers() throws Exception {
+        BatchCommandRunner.Result result = run(
+                "withdraw|" + savings.getAccountNumber() + "|600",
+                "REFUND|" + checking.getAccountNumber() + "|10");
+
+        assertEquals(0, result.getTotalExecuted(), "No command should run");
+        assertEquals(2, result.getFailed(), "The failed withdrawal and the unknown command should be counted");
+        assertEquals(1000.0, savings.getBalance(), 0.001, "A withdrawal below the minimum should fail");
+        String errorText = errors.toString(StandardCharsets.UTF_8);
+        assertTrue(errorText.contains("Line 1:") && errorText.contains("Line 2: Unknown command: REFUND"),
+                "Failures should be reported with their line numbers");
+    }
+
+    @Test
+    void testRun_WritesStatements() throws Exception {
+        run("DEPOSIT|" + checking.getAccountNumber() + "|100", "STATEMENT|" + checking.getAccountNumber());
+
+        assertTrue(statements.toString().contains(checking.getAccountNumber()), "The statement should be written");
+        assertTrue(statements.toString().contains("Total Deposits: $100.00"),
+                "The statement should include the earlier deposit");
+    }
+
+    @Test
+    void testRun_LedgerKeepsExecutionOrder() throws Exception {
+        String source = checking.getAccountNumber();
+        run("DEPOSIT|" + source + "|100", "TRANSFER|" + source + "|" + savings.getAccountNumber() + "|50");
+
+        List<Transaction> rows = transactionManager.filterById(source);
+        assertEquals(TransactionType.DEPOSIT, rows.get(0).getType(), "The deposit ran first");
+        assertEquals(TransactionType.WIRE_TRANSFER_OUT, rows.get(1).getType(), "The transfer ran second");
+        assertEquals(2050.0, transactionManager.getBalanceAtEndOfDay(source,
+                LocalDate.ofEpochDay(CachedClock.currentEpochDay())).getAsDouble(), 0.001,
+                "The end-of-day balance should be the balance after the last command");
+        List<String> saved = Files.readAllLines(dataDir.resolve("transactions.txt"));
+        assertEquals(3, saved.size(), "Every row should be saved");
+        assertTrue(saved.get(0).contains("DEPOSIT"), "The ledger file should keep execution order too");
+    }
+
+    @Test
+    void testRun_RejectsNonFiniteAndSubCentAmounts() throws Exception {
+        BatchCommandRunner.Result result = run(
+                "DEPOSIT|" + checking.getAccountNumber() + "|NaN",
+                "DEPOSIT|" + checking.getAccountNumber() + "|Infinity",
+                "WITHDRAW|" + checking.getAccountNumber() + "|1.005");
+
+        assertEquals(3, result.getFailed(), "Every amount should be rejected");
+        assertEquals(2000.0, checking.getBalance(), 0.001, "Rejected amounts should not touch the account");
+        assertEquals(0, transactionManager.getTransactionCount(), "Rejected amounts should not reach the ledger");
+    }
+}
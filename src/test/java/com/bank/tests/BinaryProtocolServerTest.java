@@ -0,0 +1,97 @@
+package com.bank.tests;
+
+import api.BinaryProtocol;
+import api.BinaryProtocolServer;
+import models.CheckingAccount;
+import models.Customer;
+import models.SavingsAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.TransactionManager;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryProtocolServerTest {
+    @TempDir
+    Path dataDir;
+    private TransactionManager transactionManager;
+    private BinaryProtocolServer server;
+    private CheckingAccount checking;
+    private SavingsAccount savings;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        transactionManager = bank.transactionManager;
+        Customer customer = BankFixture.alice();
+        checking = bank.addChecking(customer, 2000.0);
+        savings = bank.addSavings(customer, 1000.0);
+        server = new BinaryProtocolServer(bank.accountManager, transactionManager, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop();
+    }
+
+    // ========== Pipelining Tests ==========
+
+    @Test
+    void testPipelinedCommands_AnsweredInOrderAndSavedAsOneBatch() throws Exception {
+        long from = checking.getAccountId();
+        long to = savings.getAccountId();
+        ByteBuffer requests = ByteBuffer.allocate(8 * BinaryProtocol.MAX_REQUEST_SIZE);
+        BinaryProtocol.putRequest(requests, BinaryProtocol.DEPOSIT, 1, from, 50_025, 0);
+        BinaryProtocol.putRequest(requests, BinaryProtocol.WITHDRAW, 2, to, 60_000, 0);
+        BinaryProtocol.putRequest(requests, BinaryProtocol.TRANSFER, 3, from, 100_000, to);
+        BinaryProtocol.putRequest(requests, BinaryProtocol.BALANCE, 4, to, 0, 0);
+        BinaryProtocol.putRequest(requests, BinaryProtocol.BALANCE, 5, 999, 0, 0);
+        BinaryProtocol.putRequest(requests, BinaryProtocol.DEPOSIT, 6, from, -5, 0);
+        requests.flip();
+
+        ByteBuffer responses = ByteBuffer.allocate(6 * BinaryProtocol.RESPONSE_SIZE);
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+            // split the frames across writes to exercise reassembly
+            ByteBuffer head = requests.duplicate().limit(7);
+            channel.write(head);
+            requests.position(7);
+            Thread.sleep(50);
+            while (requests.hasRemaining()) {
+                channel.write(requests);
+            }
+            while (responses.hasRemaining()) {
+                assertTrue(channel.read(responses) >= 0, "The server should not close the connection");
+            }
+        }
+        responses.flip();
+
+        int[] expectedIds = {1, 2, 3, 4, 5, 6};
+        byte[] expectedStatus = {BinaryProtocol.OK, BinaryProtocol.INSUFFICIENT_FUNDS, BinaryProtocol.OK,
+                BinaryProtocol.OK, BinaryProtocol.UNKNOWN_ACCOUNT, BinaryProtocol.INVALID_AMOUNT};
+        long[] balances = new long[6];
+        for (int i = 0; i < 6; i++) {
+            assertEquals(BinaryProtocol.RESPONSE_SIZE - 4, responses.getInt(), "Responses should be length-prefixed");
+            assertEquals(expectedIds[i], responses.getInt(), "Responses should come back in request order");
+            assertEquals(expectedStatus[i], responses.get(), "Response " + expectedIds[i] + " has the wrong status");
+            balances[i] = responses.getLong();
+        }
+        assertEquals(250_025, balances[0], "A deposit should answer the new balance in cents");
+        assertEquals(150_025, balances[2], "A transfer should answer the source balance");
+        assertEquals(200_000, balances[3], "The transfer should be visible to a later command");
+        assertEquals(3, transactionManager.getTransactionCount(), "The deposit and both transfer legs should be recorded");
+        List<String> saved = Files.readAllLines(dataDir.resolve("transactions.txt"));
+        assertEquals(3, saved.size(), "The batch should be saved to the ledger file before the responses are sent");
+        assertTrue(saved.get(0).contains("DEPOSIT") && saved.get(1).contains("WIRE_TRANSFER_OUT"),
+                "Ledger rows should be in the order the commands ran");
+    }
+}
@@ -246,6 +246,18 @@ public class ExceptionTest {
                 "Exception should store null as account number");
     }
 
+    @Test
+    void testFindAccount_LowerCaseAccountNumber_ReturnsSameAccount() throws InvalidAccountException {
+        String accountNumber = checkingAccount.getAccountNumber();
+
+        assertSame(checkingAccount, accountManager.findAccount(accountNumber.toLowerCase()),
+                "Account lookup should ignore letter case");
+        assertEquals(accountManager.getHandle(accountNumber), accountManager.getHandle(accountNumber.toLowerCase()),
+                "Both spellings should resolve to the same handle");
+        assertSame(checkingAccount, accountManager.getAccount(accountManager.getHandle(accountNumber)),
+                "The handle should address the account's slot");
+    }
+
     // ========== Exception Message Content Tests ==========
     
     @Test
@@ -0,0 +1,107 @@
+package com.bank.tests;
+
+import models.Account;
+import models.CheckingAccount;
+import models.Customer;
+import models.Hold;
+import models.SavingsAccount;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAmountException;
+import models.exceptions.OverdraftExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.HoldManager;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HoldManagerTest {
+    @TempDir
+    Path dataDir;
+    private AccountManager accountManager;
+    private TransactionManager transactionManager;
+    private HoldManager holds;
+    private CheckingAccount checking;
+    private SavingsAccount savings;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        accountManager = bank.accountManager;
+        transactionManager = bank.transactionManager;
+        Customer customer = BankFixture.alice();
+        checking = bank.addChecking(customer, 2000.0);
+        savings = bank.addSavings(customer, 1000.0);
+        holds = new HoldManager(accountManager, transactionManager, dataDir);
+        now = CachedClock.currentTimeMillis();
+    }
+
+    @Test
+    void testPlaceHold_ReducesAvailableButNotLedgerBalance() throws Exception {
+        holds.placeHold(checking.getAccountNumber(), 2500.0, now + 86_400_000);
+
+        assertEquals(2000.0, checking.getBalance(), 0.001, "A hold should not change the ledger balance");
+        assertEquals(-500.0, checking.getAvailableBalance(), 0.001, "A hold should reduce the available balance");
+    }
+
+    @Test
+    void testPlaceHold_HeldFundsCountAgainstLimits() throws Exception {
+        holds.placeHold(checking.getAccountNumber(), 2500.0, now + 86_400_000);
+        holds.placeHold(savings.getAccountNumber(), 400.0, now + 60_000);
+
+        assertThrows(OverdraftExceededException.class, () -> transactionManager.wireTransfer(accountManager,
+                checking.getAccountNumber(), savings.getAccountNumber(), 600.0),
+                "Held funds should count against the overdraft limit");
+        assertThrows(InsufficientFundsException.class, () -> holds.placeHold(savings.getAccountNumber(),
+                200.0, now + 60_000), "Held funds should count against the minimum balance");
+    }
+
+    @Test
+    void testCapture_DebitsOnceAndReleasesTheRest() throws Exception {
+        Hold card = holds.placeHold(checking.getAccountNumber(), 2500.0, now + 86_400_000);
+
+        assertThrows(InvalidAmountException.class, () -> holds.capture(card.getHoldId(), 3000.0),
+                "Capturing more than was held should fail");
+        assertNotNull(holds.capture(card.getHoldId(), 1500.0), "An open hold should be captured");
+        assertNull(holds.capture(card.getHoldId(), 1500.0), "A hold should be captured only once");
+        assertEquals(500.0, checking.getBalance(), 0.001, "The captured amount should be debited");
+        assertEquals(0.0, checking.getHeldAmount(), 0.001, "The rest of a captured hold should be released");
+    }
+
+    @Test
+    void testExpireDue_ReleasesHoldAtDeadline() throws Exception {
+        Hold hold = holds.placeHold(savings.getAccountNumber(), 400.0, now + 60_000);
+
+        assertEquals(0, holds.expireDue(now + 30_000), "A hold should not expire early");
+        assertEquals(1, holds.expireDue(now + 61_000), "A hold should expire at its deadline");
+        assertFalse(holds.release(hold.getHoldId()), "An expired hold cannot be released");
+        assertEquals(1000.0, savings.getAvailableBalance(), 0.001, "Expired funds should be available again");
+        assertEquals(0, holds.getOpenCount(), "No holds should remain open");
+    }
+
+    @Test
+    void testLoad_OpenHoldsSurviveRestart() throws Exception {
+        Hold card = holds.placeHold(checking.getAccountNumber(), 500.0, now + 86_400_000);
+        Hold released = holds.placeHold(checking.getAccountNumber(), 300.0, now + 86_400_000);
+        holds.placeHold(savings.getAccountNumber(), 100.0, now + 60_000);
+        holds.release(released.getHoldId());
+
+        BankFixture bank = new BankFixture(dataDir);
+        AccountManager reloaded = bank.accountManager;
+        reloaded.loadAccountsFromFile();
+        HoldManager restarted = new HoldManager(reloaded, bank.transactionManager, dataDir);
+        restarted.load();
+        Account account = reloaded.findAccount(checking.getAccountNumber());
+
+        assertEquals(2, restarted.getOpenCount(), "Open holds should be restored, released ones should not");
+        assertEquals(1500.0, account.getAvailableBalance(), 0.001, "Restored holds should stay unavailable");
+        assertNotNull(restarted.capture(card.getHoldId(), 450.0), "A hold placed before the restart should be captured");
+        assertEquals(1550.0, account.getBalance(), 0.001, "The captured amount should be debited");
+        assertEquals(1, restarted.expireDue(now + 61_000), "Restored holds should still expire");
+    }
+}
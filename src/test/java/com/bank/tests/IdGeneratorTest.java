@@ -0,0 +1,96 @@
+package com.bank.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.IdGenerator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdGeneratorTest {
+    private IdGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new IdGenerator("TXN", 3, 16);
+    }
+
+    // ========== Allocation Tests ==========
+
+    @Test
+    void testNextId_SingleThread_IsSequential() {
+        assertEquals(1, generator.nextId(), "First id should be 1");
+        assertEquals(2, generator.nextId(), "Ids should increase by one on the same thread");
+        assertEquals(3, generator.nextId(), "Ids should increase by one on the same thread");
+    }
+
+    @Test
+    void testNextId_ConcurrentThreads_NoDuplicates() throws InterruptedException {
+        int numThreads = 8;
+        int idsPerThread = 1000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        for (int i = 0; i < numThreads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < idsPerThread; j++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Workers should finish");
+
+        assertEquals(numThreads * idsPerThread, ids.size(),
+                "Every id handed out concurrently should be unique");
+    }
+
+    // ========== Recovery Tests ==========
+
+    @Test
+    void testAdvanceTo_SkipsPersistedIds() {
+        generator.nextId();
+        generator.advanceTo(41);
+
+        assertTrue(generator.nextId() > 41,
+                "Ids after recovery should be greater than the persisted high-water mark");
+    }
+
+    @Test
+    void testAdvanceTo_DiscardsBlockReservedBeforeLoad() {
+        IdGenerator wideBlocks = new IdGenerator("TXN", 3, 256);
+        wideBlocks.nextId();
+        wideBlocks.advanceTo(40);
+
+        assertTrue(wideBlocks.nextId() > 40,
+                "A block reserved before the load should not hand out ids that were loaded");
+    }
+
+    @Test
+    void testReset_RestartsAfterLastId() {
+        generator.nextId();
+        generator.nextId();
+        generator.reset(0);
+
+        assertEquals(1, generator.nextId(), "Reset should discard the thread's reserved block");
+    }
+
+    // ========== Formatting Tests ==========
+
+    @Test
+    void testFormat_PadsToMinimumDigits() {
+        assertEquals("TXN007", generator.format(7), "Small ids should be zero padded");
+        assertEquals("TXN12345", generator.format(12345), "Large ids should not be truncated");
+    }
+
+    @Test
+    void testParse_RoundTripsFormattedId() {
+        assertEquals(12, generator.parse("TXN012"), "Formatted id should parse back");
+        assertEquals(12, generator.parse("txn012"), "Prefix should match case-insensitively");
+        assertEquals(-1, generator.parse("ACC012"), "Other prefixes should be rejected");
+        assertEquals(-1, generator.parse("TXN"), "Missing digits should be rejected");
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.Customer;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.InterestAccrualEngine;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterestAccrualEngineTest {
+    @TempDir
+    Path dataDir;
+    private AccountManager accountManager;
+    private TransactionManager transactionManager;
+    private CheckingAccount checking;
+    private SavingsAccount savings;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        accountManager = bank.accountManager;
+        transactionManager = bank.transactionManager;
+        Customer customer = BankFixture.bob();
+        checking = bank.addChecking(customer, 2000.0);
+        savings = bank.addSavings(customer, 1000.0);
+        savings.setLastAccrualDay(CachedClock.currentEpochDay() - 365);
+    }
+
+    @Test
+    void testAccrual_BalanceReadCreditsInterestOnce() {
+        assertEquals(1035.0, savings.getBalance(), 0.001, "Reading the balance should credit a year at 3.5% on $1000");
+        assertEquals(1035.0, savings.getBalance(), 0.001, "Interest should be credited only once");
+        assertEquals(2000.0, checking.getBalance(), 0.001, "Checking accounts should earn no interest");
+        assertEquals(3035.0, accountManager.getTotalBalance(), 0.001,
+                "Running totals should include the credited interest");
+    }
+
+    @Test
+    void testPost_RecordsCreditedInterestOnce() throws Exception {
+        InterestAccrualEngine.Result result = new InterestAccrualEngine(accountManager, transactionManager).post();
+        InterestAccrualEngine.Result second = new InterestAccrualEngine(accountManager, transactionManager).post();
+        List<Transaction> recorded = transactionManager.filterById(savings.getAccountNumber());
+
+        assertEquals(1, result.getSavingsAccounts(), "Only savings accounts should be processed");
+        assertEquals(35.0, result.getTotalInterest(), 0.001, "Posting should record the interest credited");
+        assertEquals(0, second.getCredited(), "Interest should be posted only once");
+        assertEquals(1, transactionManager.getTransactionCount(), "One transaction should be recorded");
+        assertEquals(TransactionType.INTEREST, recorded.get(0).getType(),
+                "The recorded transaction should be an interest credit");
+    }
+
+    @Test
+    void testAccrual_SubCentCarrySurvivesRestart() throws Exception {
+        savings.setLastAccrualDay(CachedClock.currentEpochDay() - 1);
+        savings.getBalance();
+        double carry = savings.getAccruedCents();
+        accountManager.saveAccountsToFile();
+
+        AccountManager reloaded = new BankFixture(dataDir).accountManager;
+        reloaded.loadAccountsFromFile();
+        SavingsAccount loaded = (SavingsAccount) reloaded.findAccount(savings.getAccountNumber());
+
+        assertTrue(carry > 0, "One day at 3.5% on $1000 should leave a fraction of a cent");
+        assertEquals(carry, loaded.getAccruedCents(), 1e-9, "The sub-cent carry should be saved and loaded");
+        assertEquals(savings.getBalance(), loaded.getBalance(), 0.001, "The credited interest should be saved");
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.Customer;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.LedgerExporter;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerExporterTest {
+    @TempDir
+    Path dataDir;
+    private String accountNumber;
+    private LedgerExporter exporter;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        TransactionManager transactionManager = bank.transactionManager;
+        Customer customer = BankFixture.alice();
+        CheckingAccount checking = bank.addChecking(customer, 2000.0);
+        SavingsAccount savings = bank.addSavings(customer, 1000.0);
+        accountNumber = checking.getAccountNumber();
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.DEPOSIT, 300.0, 2300.0));
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.WITHDRAWAL, 120.5, 2179.5));
+        transactionManager.addTransaction(new Transaction(savings.getAccountNumber(), TransactionType.DEPOSIT, 75.0, 1075.0));
+        exporter = new LedgerExporter(transactionManager);
+        today = LocalDate.ofEpochDay(CachedClock.currentEpochDay());
+    }
+
+    @Test
+    void testExportLedger_CsvHasHeaderAndTwoDecimalAmounts() throws Exception {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long records = exporter.exportLedger(today, today, LedgerExporter.Format.CSV, Channels.newChannel(csv));
+
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, records, "Ledger export should include every account");
+        assertEquals(4, lines.length, "CSV should have a header and one line per transaction");
+        assertTrue(lines[2].startsWith("TXN") && lines[2].endsWith(",WITHDRAWAL,120.50,2179.50"),
+                "CSV amounts should have two decimals");
+    }
+
+    @Test
+    void testExportAccount_JsonIncludesOnlyThatAccount() throws Exception {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        long records = exporter.exportAccount(accountNumber, today, today, LedgerExporter.Format.JSON,
+                Channels.newChannel(json));
+
+        String jsonText = json.toString(StandardCharsets.UTF_8);
+        assertEquals(2, records, "Account export should include only that account");
+        assertTrue(jsonText.contains("\"account\":\"" + accountNumber + "\""), "JSON should name the account");
+        assertTrue(jsonText.trim().endsWith("\"count\":2}"), "JSON should end with the record count");
+    }
+
+    @Test
+    void testExportLedger_EmptyPeriodIsCompleteJsonDocument() throws Exception {
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        long records = exporter.exportLedger(today.minusDays(7), today.minusDays(1), LedgerExporter.Format.JSON,
+                Channels.newChannel(empty));
+
+        assertEquals(0, records, "A period without transactions should export nothing");
+        assertEquals("{\"from\":\"" + today.minusDays(7) + "\",\"to\":\"" + today.minusDays(1)
+                + "\",\"transactions\":[],\"count\":0}", empty.toString(StandardCharsets.UTF_8).trim(),
+                "An empty JSON export should still be a complete document");
+    }
+
+    @Test
+    void testExportAccount_OutsidePeriodOrUnknownAccountIsEmpty() throws Exception {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        assertEquals(0, exporter.exportAccount(accountNumber, today.minusDays(7), today.minusDays(1),
+                LedgerExporter.Format.CSV, Channels.newChannel(csv)), "Rows outside the period should not be exported");
+        assertEquals(0, exporter.exportAccount("ACC999", today, today, LedgerExporter.Format.CSV,
+                Channels.newChannel(csv)), "An unknown account should export nothing");
+    }
+
+    @Test
+    void testExportLedgerToFile_FailedExportLeavesNoPartFile() throws Exception {
+        Path target = dataDir.resolve("export.csv");
+        Files.createDirectories(target.resolve("occupied"));
+
+        assertThrows(IOException.class, () -> exporter.exportLedger(today, today, LedgerExporter.Format.CSV, target),
+                "Replacing a non-empty directory should fail");
+        assertFalse(Files.exists(dataDir.resolve("export.csv.part")), "The temporary file should be deleted");
+    }
+}
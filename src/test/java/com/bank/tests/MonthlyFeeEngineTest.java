@@ -0,0 +1,90 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.PremiumCustomer;
+import models.Transaction;
+import models.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.MonthlyFeeEngine;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonthlyFeeEngineTest {
+    private static final YearMonth MONTH = YearMonth.of(2025, 1);
+
+    @TempDir
+    Path dataDir;
+    private TransactionManager transactionManager;
+    private MonthlyFeeEngine engine;
+    private CheckingAccount regular;
+    private CheckingAccount overdrawn;
+    private CheckingAccount premium;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        transactionManager = bank.transactionManager;
+        regular = bank.addChecking(BankFixture.alice(), 2000.0);
+        overdrawn = bank.addChecking(BankFixture.bob(), -365.0);
+        premium = bank.addChecking(new PremiumCustomer("Carol Davis", 45, "carol@gmail.com", "555-0103", "12 Oak St"),
+                5000.0);
+        engine = new MonthlyFeeEngine(bank.accountManager, transactionManager);
+    }
+
+    @Test
+    void testRun_RegularPaysFeeAndPremiumIsWaived() throws Exception {
+        MonthlyFeeEngine.Result result = engine.run(MONTH);
+
+        assertEquals(3, result.getCheckingAccounts(), "Every checking account should be processed");
+        assertEquals(2, result.getFeesCharged(), "Regular customers should pay the monthly fee");
+        assertEquals(1, result.getFeesWaived(), "Premium customers should have the fee waived");
+        assertEquals(1990.0, regular.getBalance(), 0.001, "The monthly fee should be deducted");
+        assertEquals(5000.0, premium.getBalance(), 0.001, "A waived fee should not be deducted");
+    }
+
+    @Test
+    void testRun_ChargesOverdraftInterest() throws Exception {
+        MonthlyFeeEngine.Result result = engine.run(MONTH);
+
+        assertEquals(5.58, result.getTotalOverdraftInterest(), 0.001, "31 days at 18% on $365 overdrawn");
+        assertEquals(-380.58, overdrawn.getBalance(), 0.001, "Fee and overdraft interest should be deducted");
+    }
+
+    @Test
+    void testRun_OverdraftInterestUsesMonthEndBalance() throws Exception {
+        long endOfMonth = CachedClock.startOfDayMillis(MONTH.atEndOfMonth().toEpochDay()) + 3_600_000L;
+        transactionManager.addTransactions(List.of(new Transaction(9001, overdrawn.getAccountNumber(),
+                TransactionType.WITHDRAWAL, 365.0, -730.0, endOfMonth)));
+
+        MonthlyFeeEngine.Result result = engine.run(MONTH);
+
+        assertEquals(11.16, result.getTotalOverdraftInterest(), 0.001,
+                "Interest should be charged on the $730 overdrawn at month end, not the current balance");
+        assertEquals(-386.16, overdrawn.getBalance(), 0.001, "Charges should be deducted from the current balance");
+    }
+
+    @Test
+    void testRun_MonthIsChargedOnlyOnce() throws Exception {
+        engine.run(MONTH);
+        MonthlyFeeEngine.Result again = engine.run(MONTH);
+
+        assertEquals(0, again.getFeesCharged() + again.getOverdrawnCharged(), "A month should be charged only once");
+        assertEquals(-380.58, overdrawn.getBalance(), 0.001, "A second run should not deduct anything");
+    }
+
+    @Test
+    void testRun_ChargesAreRecordedAsFees() throws Exception {
+        engine.run(MONTH);
+
+        assertEquals(3, transactionManager.getTransactionCount(), "Each charge should be a FEE transaction");
+        assertEquals(TransactionType.FEE, transactionManager.filterById(overdrawn.getAccountNumber()).get(0).getType(),
+                "Charges should be recorded as fees");
+    }
+}
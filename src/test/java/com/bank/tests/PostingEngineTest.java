@@ -0,0 +1,158 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.Customer;
+import models.SavingsAccount;
+import models.Transaction;
+import models.TransactionType;
+import models.exceptions.InsufficientFundsException;
+import models.exceptions.InvalidAmountException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.PostingEngine;
+import services.TransactionManager;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostingEngineTest {
+    @TempDir
+    Path dataDir;
+    private AccountManager accountManager;
+    private TransactionManager transactionManager;
+    private PostingEngine engine;
+    private CheckingAccount checking;
+    private SavingsAccount savings;
+    private CheckingAccount feeAccount;
+    private String source;
+    private String destination;
+    private String fees;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        accountManager = bank.accountManager;
+        transactionManager = bank.transactionManager;
+        Customer customer = BankFixture.alice();
+        checking = bank.addChecking(customer, 2000.0);
+        savings = bank.addSavings(customer, 1000.0);
+        feeAccount = bank.addChecking(customer, 0.0);
+        engine = new PostingEngine(accountManager, transactionManager);
+        source = checking.getAccountNumber();
+        destination = savings.getAccountNumber();
+        fees = feeAccount.getAccountNumber();
+    }
+
+    @Test
+    void testPost_AppliesBalancedLegs() throws Exception {
+        List<Transaction> legs = engine.post(List.of(PostingEngine.Leg.debit(source, 510.0),
+                PostingEngine.Leg.credit(destination, 500.0), PostingEngine.Leg.credit(fees, 10.0)));
+
+        assertEquals(3, legs.size(), "Every leg should be recorded");
+        assertEquals(TransactionType.WIRE_TRANSFER_OUT, legs.get(0).getType(), "A debit leg should be a transfer out");
+        assertEquals(3, transactionManager.getTransactionCount(), "All legs should be in the ledger");
+        assertEquals(1490.0, checking.getBalance(), 0.001, "The debit should apply");
+        assertEquals(10.0, feeAccount.getBalance(), 0.001, "The fee leg should apply");
+    }
+
+    @Test
+    void testPost_RejectsUnbalancedLegs() {
+        assertThrows(InvalidAmountException.class, () -> engine.post(List.of(PostingEngine.Leg.debit(source, 100.0),
+                PostingEngine.Leg.credit(destination, 99.99))), "Unbalanced legs should be rejected");
+        assertEquals(0, transactionManager.getTransactionCount(), "A rejected posting should not reach the ledger");
+    }
+
+    @Test
+    void testPost_FailingLegAppliesNothing() {
+        assertThrows(InsufficientFundsException.class, () -> engine.post(List.of(
+                PostingEngine.Leg.debit(fees, 5.0), PostingEngine.Leg.debit(destination, 1200.0),
+                PostingEngine.Leg.credit(source, 1205.0))), "A leg breaking an account rule should fail the posting");
+
+        assertEquals(2000.0, checking.getBalance(), 0.001, "A failed posting should not move money");
+        assertEquals(0.0, feeAccount.getBalance(), 0.001, "A failed posting should not apply any leg");
+        assertEquals(0, transactionManager.getTransactionCount(), "A failed posting should not reach the ledger");
+    }
+
+    @Test
+    void testPost_SameAccountInDifferentCaseIsRejected() {
+        String lowerCase = fees.toLowerCase();
+
+        assertThrows(InvalidAmountException.class, () -> engine.post(List.of(PostingEngine.Leg.debit(fees, 600.0),
+                PostingEngine.Leg.debit(lowerCase, 600.0), PostingEngine.Leg.credit(source, 1200.0))),
+                "Two legs on the same account should be rejected whatever the case of the number");
+        assertEquals(0.0, feeAccount.getBalance(), 0.001, "No leg should be applied");
+        assertEquals(2000.0, checking.getBalance(), 0.001, "No leg should be applied");
+        assertEquals(0, transactionManager.getTransactionCount(), "A rejected posting should not reach the ledger");
+    }
+
+    @Test
+    void testPost_RejectsFractionsOfACent() {
+        assertThrows(InvalidAmountException.class, () -> engine.post(List.of(PostingEngine.Leg.debit(source, 10.004),
+                PostingEngine.Leg.credit(destination, 10.0))), "A leg must be a whole number of cents");
+        assertEquals(2000.0, checking.getBalance(), 0.001, "A rejected posting should not move money");
+    }
+
+    @Test
+    void testPost_RecordsCanonicalAccountNumber() throws Exception {
+        List<Transaction> legs = engine.post(List.of(PostingEngine.Leg.debit(source.toLowerCase(), 10.0),
+                PostingEngine.Leg.credit(destination, 10.0)));
+
+        assertEquals(source, legs.get(0).getAccountNumber(), "The ledger should use the account's own number");
+    }
+
+    @Test
+    void testPost_OppositeDirectionsDoNotDeadlock() throws Exception {
+        Thread first = new Thread(() -> postRepeatedly(source, destination));
+        Thread second = new Thread(() -> postRepeatedly(destination, source));
+        first.start();
+        second.start();
+        first.join(10_000);
+        second.join(10_000);
+
+        assertFalse(first.isAlive() || second.isAlive(), "Concurrent postings should not deadlock");
+        assertEquals(400 * 0.5, feeAccount.getBalance(), 0.001, "Every posting should pay its fee");
+        assertEquals(3000.0, checking.getBalance() + savings.getBalance() + feeAccount.getBalance(),
+                0.001, "Balanced postings should conserve money");
+        assertEquals(400 * 3, transactionManager.getTransactionCount(), "Every leg of every posting should be recorded");
+    }
+
+    private void postRepeatedly(String from, String to) {
+        for (int i = 0; i < 200; i++) {
+            try {
+                engine.post(List.of(PostingEngine.Leg.debit(from, 1.0), PostingEngine.Leg.credit(to, 0.5),
+                        PostingEngine.Leg.credit(fees, 0.5)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    void testBalanceTotals_NeverSeeHalfATransfer() throws Exception {
+        Thread mover = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5000; i++) {
+                    engine.post(List.of(PostingEngine.Leg.debit(source, 1.0), PostingEngine.Leg.credit(destination, 1.0)),
+                            false);
+                    transactionManager.wireTransfer(accountManager, destination, source, 1.0);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        mover.start();
+        int snapshots = 0;
+        while (mover.isAlive()) {
+            assertEquals(3000.0, accountManager.getBalanceTotals().getTotal(), 0.001,
+                    "A snapshot should include both legs of a transfer or neither");
+            snapshots++;
+        }
+        mover.join();
+
+        assertTrue(snapshots > 0, "Snapshots should have been taken while money was moving");
+        assertEquals(3000.0, accountManager.getTotalBalance(), 0.001, "Transfers should not change the total");
+    }
+}
@@ -0,0 +1,89 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.Customer;
+import models.SavingsAccount;
+import models.StandingOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.StandingOrderScheduler;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StandingOrderSchedulerTest {
+    @TempDir
+    Path dataDir;
+    private AccountManager accountManager;
+    private TransactionManager transactionManager;
+    private StandingOrderScheduler scheduler;
+    private CheckingAccount checking;
+    private SavingsAccount savings;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        accountManager = bank.accountManager;
+        transactionManager = bank.transactionManager;
+        Customer customer = BankFixture.alice();
+        checking = bank.addChecking(customer, 2000.0);
+        savings = bank.addSavings(customer, 1000.0);
+        scheduler = new StandingOrderScheduler(accountManager, transactionManager, dataDir, 2);
+        now = CachedClock.currentTimeMillis();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void testRunDue_RunsOnlyDueOrdersOnce() throws Exception {
+        scheduler.schedule(checking.getAccountNumber(), savings.getAccountNumber(), 100.0,
+                StandingOrder.Frequency.MONTHLY, now - 1000);
+        scheduler.schedule(null, checking.getAccountNumber(), 50.0, StandingOrder.Frequency.WEEKLY, now + 3_600_000);
+
+        assertEquals(1, scheduler.runDue(now + 1000), "Only the transfer should be due");
+        assertEquals(0, scheduler.runDue(now + 2000), "A transfer should run once per due time");
+        assertEquals(1900.0, checking.getBalance(), 0.001, "The transfer should be debited");
+        assertEquals(1100.0, savings.getBalance(), 0.001, "The transfer should be credited");
+    }
+
+    @Test
+    void testRunDue_MonthlyOrderMovesToNextMonth() throws Exception {
+        StandingOrder transfer = scheduler.schedule(checking.getAccountNumber(), savings.getAccountNumber(), 100.0,
+                StandingOrder.Frequency.MONTHLY, now - 1000);
+
+        scheduler.runDue(now + 1000);
+
+        assertTrue(transfer.getNextRunMillis() > now + 27L * 86_400_000, "A monthly order should move to next month");
+    }
+
+    @Test
+    void testLoad_OrdersSurviveRestart() throws Exception {
+        StandingOrder transfer = scheduler.schedule(checking.getAccountNumber(), savings.getAccountNumber(), 100.0,
+                StandingOrder.Frequency.MONTHLY, now - 1000);
+        scheduler.schedule(null, checking.getAccountNumber(), 50.0, StandingOrder.Frequency.WEEKLY, now + 3_600_000);
+        scheduler.runDue(now + 1000);
+        scheduler.stop();
+
+        StandingOrderScheduler restarted = new StandingOrderScheduler(accountManager, transactionManager, dataDir, 1);
+        restarted.load();
+        List<StandingOrder> restored = restarted.getOrders(savings.getAccountNumber());
+        int laterRun = restarted.runDue(now + 3_601_000);
+        restarted.stop();
+
+        assertEquals(2, restarted.getOrderCount(), "Orders should survive a restart");
+        assertEquals(transfer.getNextRunMillis(), restored.get(0).getNextRunMillis(),
+                "The next due time should survive a restart");
+        assertEquals(1, laterRun, "The deposit should run when due after the restart");
+        assertEquals(1950.0, checking.getBalance(), 0.001, "The deposit should apply after the restart");
+    }
+}
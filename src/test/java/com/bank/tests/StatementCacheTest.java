@@ -0,0 +1,105 @@
+package com.bank.tests;
+
+import models.CheckingAccount;
+import models.Transaction;
+import models.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountManager;
+import services.StatementCache;
+import services.StatementGenerator;
+import services.TransactionManager;
+import utils.CachedClock;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTest {
+    @TempDir
+    Path dataDir;
+    private AccountManager accountManager;
+    private TransactionManager transactionManager;
+    private String accountNumber;
+    private StatementCache cache;
+    private StatementGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        BankFixture.resetCounters();
+        BankFixture bank = new BankFixture(dataDir);
+        accountManager = bank.accountManager;
+        transactionManager = bank.transactionManager;
+        CheckingAccount account = bank.addChecking(BankFixture.alice(), 2000.0);
+        accountNumber = account.getAccountNumber();
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.DEPOSIT, 300.0, 2300.0));
+        cache = new StatementCache(1 << 20);
+        generator = new StatementGenerator(accountManager, transactionManager, cache);
+    }
+
+    private String statement() throws Exception {
+        StringWriter out = new StringWriter();
+        generator.writeAccountStatement(accountNumber, out);
+        return out.toString();
+    }
+
+    @Test
+    void testCache_RepeatedStatementIsAHit() throws Exception {
+        String first = statement();
+        String second = statement();
+
+        assertEquals(first, second, "A cached statement should be identical");
+        assertEquals(1, cache.getHitCount(), "The repeated statement should hit");
+        assertEquals(1, cache.getMissCount(), "Only the first render should miss");
+    }
+
+    @Test
+    void testCache_NewTransactionInvalidatesStatement() throws Exception {
+        statement();
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.WITHDRAWAL, 50.0, 2250.0));
+        String updated = statement();
+
+        assertTrue(updated.contains("Total Transactions: 2"), "A new transaction should invalidate the statement");
+        assertEquals(1, cache.getInvalidationCount(), "The statement covering today should be invalidated");
+        assertEquals(2, cache.getMissCount(), "The invalidated statement should miss");
+    }
+
+    @Test
+    void testCache_TransactionOutsidePeriodKeepsStatement() throws Exception {
+        LocalDate yesterday = LocalDate.ofEpochDay(CachedClock.currentEpochDay() - 1);
+        generator.writePeriodStatement(accountNumber, yesterday, yesterday, new StringWriter());
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.WITHDRAWAL, 50.0, 2250.0));
+        generator.writePeriodStatement(accountNumber, yesterday, yesterday, new StringWriter());
+
+        assertEquals(1, cache.getHitCount(), "A statement not covering today should still hit");
+        assertEquals(0, cache.getInvalidationCount(), "Nothing should be invalidated");
+    }
+
+    @Test
+    void testCache_StatementLongerThanCacheIsStreamedButNotCached() throws Exception {
+        String full = statement();
+        StatementCache small = new StatementCache(full.length() - 1);
+        StatementGenerator smallGenerator = new StatementGenerator(accountManager, transactionManager, small);
+        StringWriter out = new StringWriter();
+        smallGenerator.writeAccountStatement(accountNumber, out);
+
+        assertEquals(full, out.toString(), "The whole statement should still be written");
+        assertEquals(0, small.size(), "A statement longer than the cache should not be cached");
+    }
+
+    @Test
+    void testPut_RejectedStatementEvictsNothing() {
+        StatementCache small = new StatementCache(20);
+        small.put(1, 0, 0, 100, 0, "a".repeat(10));
+        small.put(2, 0, 0, 100, 0, "b".repeat(10));
+        for (int i = 0; i < 3; i++) {
+            small.get(2, 0, 0, 100);
+        }
+        small.put(3, 0, 0, 100, 0, "c".repeat(20));
+
+        assertEquals(2, small.size(), "A statement that loses admission should not evict anything");
+        assertEquals(0, small.getEvictionCount(), "No entry should be counted as evicted");
+        assertNotNull(small.get(1, 0, 0, 100), "The least recently used statement should still be cached");
+    }
+}
@@ -6,13 +6,27 @@ import models.Customer;
 import models.RegularCustomer;
 import models.SavingsAccount;
 import models.Transaction;
+import models.TransactionType;
 import models.exceptions.InsufficientFundsException;
 import models.exceptions.InvalidAmountException;
 import models.exceptions.OverdraftExceededException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.AccountHandles;
 import services.AccountManager;
+import services.BatchStatementJob;
+import services.ReportingEngine;
+import services.StatementGenerator;
 import services.TransactionManager;
+import services.TransactionStatistics;
+import utils.CachedClock;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -151,13 +165,13 @@ public class TransactionManagerTest {
         List<Transaction> sourceTransactions = transactionManager.filterById(sourceAccount.getAccountNumber());
         assertEquals(1, sourceTransactions.size(),
                 "Should find 1 transaction for source account");
-        assertEquals("Withdrawal", sourceTransactions.get(0).getType(),
+        assertEquals(TransactionType.WITHDRAWAL, sourceTransactions.get(0).getType(),
                 "Transaction type should be Withdrawal");
 
         List<Transaction> destinationTransactions = transactionManager.filterById(destinationAccount.getAccountNumber());
         assertEquals(1, destinationTransactions.size(),
                 "Should find 1 transaction for destination account");
-        assertEquals("Deposit", destinationTransactions.get(0).getType(),
+        assertEquals(TransactionType.DEPOSIT, destinationTransactions.get(0).getType(),
                 "Transaction type should be Deposit");
     }
 
@@ -233,5 +247,192 @@ public class TransactionManagerTest {
         assertEquals(initialCount, transactionManager.getTransactionCount(),
                 "Null transaction should not be added");
     }
-}
 
+    // ========== Time Range Query Tests ==========
+
+    private Transaction transactionOn(String accountNumber, LocalDate day, double amount) {
+        Transaction transaction = new Transaction(accountNumber, "Deposit", amount, amount);
+        transaction.setTimestampMillis(CachedClock.startOfDayMillis(day.toEpochDay()) + 3_600_000L);
+        return transaction;
+    }
+
+    @Test
+    void testFindTransactionsBetween_ReturnsOnlyTransactionsInPeriod() {
+        String accountNumber = sourceAccount.getAccountNumber();
+        transactionManager.addTransaction(transactionOn(accountNumber, LocalDate.of(2025, 1, 10), 100.0));
+        transactionManager.addTransaction(transactionOn(accountNumber, LocalDate.of(2025, 1, 15), 200.0));
+        transactionManager.addTransaction(transactionOn(accountNumber, LocalDate.of(2025, 1, 20), 300.0));
+        transactionManager.addTransaction(transactionOn(destinationAccount.getAccountNumber(), LocalDate.of(2025, 1, 15), 400.0));
+
+        List<Transaction> result = transactionManager.findTransactionsBetween(
+                accountNumber, LocalDate.of(2025, 1, 11), LocalDate.of(2025, 1, 20), 0, 10);
+
+        assertEquals(2, result.size(), "Should find the 2 transactions of the account inside the period");
+        assertEquals(200.0, result.get(0).getAmount(), 0.01, "Results should be ordered by day");
+        assertEquals(300.0, result.get(1).getAmount(), 0.01, "End date should be inclusive");
+    }
+
+    @Test
+    void testFindTransactionsBetween_Pagination() {
+        String accountNumber = sourceAccount.getAccountNumber();
+        for (int day = 1; day <= 5; day++) {
+            transactionManager.addTransaction(transactionOn(accountNumber, LocalDate.of(2025, 2, day), day));
+        }
+
+        List<Transaction> secondPage = transactionManager.findTransactionsBetween(
+                accountNumber, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28), 2, 2);
+
+        assertEquals(2, secondPage.size(), "Page should hold at most the requested number of transactions");
+        assertEquals(3.0, secondPage.get(0).getAmount(), 0.01, "Page should start after the offset");
+        assertEquals(4.0, secondPage.get(1).getAmount(), 0.01, "Page should continue in day order");
+    }
+
+    @Test
+    void testFindTransactionsBetween_AllAccounts() {
+        long from = CachedClock.startOfDayMillis(LocalDate.of(2025, 3, 1).toEpochDay());
+        long to = CachedClock.startOfDayMillis(LocalDate.of(2025, 3, 2).toEpochDay());
+        transactionManager.addTransaction(transactionOn(sourceAccount.getAccountNumber(), LocalDate.of(2025, 3, 1), 10.0));
+        transactionManager.addTransaction(transactionOn(destinationAccount.getAccountNumber(), LocalDate.of(2025, 3, 1), 20.0));
+        transactionManager.addTransaction(transactionOn(destinationAccount.getAccountNumber(), LocalDate.of(2025, 3, 2), 30.0));
+
+        assertEquals(2, transactionManager.findTransactionsBetween(from, to, 0, 10).size(),
+                "Bank-wide query should include every account but respect the end of the range");
+        assertEquals(1, transactionManager.countTransactionsBetween(sourceAccount.getAccountNumber(), from, to),
+                "Count should match the account's transactions in the range");
+    }
+
+    // ========== Reporting Tests ==========
+
+    @Test
+    void testReportingEngine_VolumeByAccountAndTransactionType() {
+        transactionManager.addTransaction(new Transaction(sourceAccount.getAccountNumber(), TransactionType.DEPOSIT, 100.0, 2100.0));
+        transactionManager.addTransaction(new Transaction(sourceAccount.getAccountNumber(), TransactionType.WITHDRAWAL, 40.0, 2060.0));
+        transactionManager.addTransaction(new Transaction(destinationAccount.getAccountNumber(), TransactionType.DEPOSIT, 25.5, 1025.5));
+
+        ReportingEngine reportingEngine = new ReportingEngine(accountManager, transactionManager);
+
+        assertEquals(2, reportingEngine.volumeByAccountType().get("Checking").getCount(),
+                "Checking account should have two transactions");
+        assertEquals(25.5, reportingEngine.volumeByAccountType().get("Savings").getTotal(), 0.001,
+                "Savings volume should be the single deposit");
+        assertEquals(125.5, reportingEngine.volumeByTransactionType().get(TransactionType.DEPOSIT).getTotal(), 0.001,
+                "Deposit volume should cover both accounts");
+        LocalDate today = LocalDate.ofEpochDay(CachedClock.currentEpochDay());
+        assertEquals(2, reportingEngine.creditsPerDay(today, today).get(today).getCount(),
+                "Two credits should be reported for today");
+    }
+
+    // ========== Streaming Statistics Tests ==========
+
+    @Test
+    void testStatistics_UpdatedOnAddTransaction() {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            batch.add(new Transaction(sourceAccount.getAccountNumber(), TransactionType.DEPOSIT, i, 2000.0 + i));
+        }
+        batch.add(new Transaction(destinationAccount.getAccountNumber(), TransactionType.DEPOSIT, 5000.0, 6000.0));
+        transactionManager.addTransactions(batch);
+
+        double median = transactionManager.getStatistics().amountQuantile(0.5);
+        assertEquals(51.0, median, 51.0 * 0.02, "Median amount should be within the sketch accuracy");
+        assertEquals(sourceAccount.getAccountNumber(), transactionManager.getBusiestAccounts(1).keySet().iterator().next(),
+                "Source account should be the busiest");
+        assertEquals(2, transactionManager.getStatistics().distinctAccountsInLastHours(2),
+                "Two accounts should be active in the last hours");
+    }
+
+    @Test
+    void testStatisticsMerge_CombinesCountsAndRejectsSelf() {
+        TransactionStatistics first = new TransactionStatistics();
+        TransactionStatistics second = new TransactionStatistics();
+        long now = CachedClock.currentTimeMillis();
+        first.record(1, 100.0, now);
+        second.record(2, 200.0, now);
+        second.record(2, 300.0, now);
+
+        first.merge(second);
+
+        assertEquals(3, first.getTransactionCount(), "Merged statistics should count both ledgers");
+        assertEquals(2, first.distinctAccountsInHour(now), "Accounts from both ledgers should be counted");
+        assertThrows(IllegalArgumentException.class, () -> first.merge(first),
+                "Merging statistics into themselves should be rejected");
+    }
+
+    // ========== Daily Balance Snapshot Tests ==========
+
+    @Test
+    void testBalanceSnapshots_EndOfDayAndPointInTime() throws Exception {
+        String accountNumber = sourceAccount.getAccountNumber();
+        LocalDate day = LocalDate.of(2024, 3, 10);
+        long start = CachedClock.startOfDayMillis(day.toEpochDay());
+        List<Transaction> batch = new ArrayList<>();
+        batch.add(new Transaction(9001, accountNumber, TransactionType.DEPOSIT, 100.0, 2100.0, start + 3_600_000L));
+        batch.add(new Transaction(9002, accountNumber, TransactionType.WITHDRAWAL, 50.0, 2050.0, start + 7_200_000L));
+        batch.add(new Transaction(9003, accountNumber, TransactionType.DEPOSIT, 500.0, 2550.0, start + 86_400_000L + 60_000L));
+        transactionManager.addTransactions(batch);
+
+        assertEquals(2050.0, transactionManager.getBalanceAtEndOfDay(accountNumber, day).getAsDouble(), 0.001,
+                "End of day balance should be the day's last balance");
+        assertEquals(2550.0, transactionManager.getBalanceAtEndOfDay(accountNumber, day.plusDays(1)).getAsDouble(), 0.001,
+                "Next day should include the later deposit");
+        assertEquals(2100.0, transactionManager.getBalanceAt(accountNumber, start + 5_400_000L).getAsDouble(), 0.001,
+                "Point in time should replay the day up to that time");
+        assertEquals(2050.0, transactionManager.getBalanceAt(accountNumber, start + 86_400_000L).getAsDouble(), 0.001,
+                "Start of next day should fall back to the previous checkpoint");
+        assertFalse(transactionManager.getBalanceAtEndOfDay(accountNumber, day.minusDays(1)).isPresent(),
+                "No balance should be known before the first transaction");
+    }
+
+    @Test
+    void testBalanceSnapshots_RebuiltWhenLedgerLoads(@TempDir Path dataDir) throws Exception {
+        String accountNumber = sourceAccount.getAccountNumber();
+        LocalDate day = LocalDate.of(2024, 3, 10);
+        long start = CachedClock.startOfDayMillis(day.toEpochDay());
+        TransactionManager saved = new TransactionManager(dataDir, new AccountHandles());
+        saved.addTransactions(List.of(
+                new Transaction(9001, accountNumber, TransactionType.DEPOSIT, 100.0, 2100.0, start + 3_600_000L),
+                new Transaction(9002, accountNumber, TransactionType.WITHDRAWAL, 50.0, 2050.0, start + 7_200_000L)));
+
+        TransactionManager loaded = new TransactionManager(dataDir, new AccountHandles());
+        loaded.loadTransactionsFromFile();
+
+        assertEquals(2050.0, loaded.getBalanceAtEndOfDay(accountNumber, day).getAsDouble(), 0.001,
+                "Checkpoints should be rebuilt from the loaded ledger");
+    }
+
+    // ========== Statement Tests ==========
+
+    @Test
+    void testWriteAccountStatement_SinglePassSummary() throws Exception {
+        String accountNumber = sourceAccount.getAccountNumber();
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.DEPOSIT, 300.0, 2300.0));
+        transactionManager.addTransaction(new Transaction(accountNumber, TransactionType.WITHDRAWAL, 120.5, 2179.5));
+        transactionManager.addTransaction(new Transaction(destinationAccount.getAccountNumber(), TransactionType.DEPOSIT, 75.0, 1075.0));
+
+        StringWriter out = new StringWriter();
+        new StatementGenerator(accountManager, transactionManager).writeAccountStatement(accountNumber, out);
+        String statement = out.toString();
+
+        assertTrue(statement.contains("Total Transactions: 2"), "Statement should count only this account");
+        assertTrue(statement.contains("Total Deposits: $300.00"), "Statement should total deposits");
+        assertTrue(statement.contains("Total Withdrawals: $120.50"), "Statement should total withdrawals");
+        assertTrue(statement.contains("WITHDRAWAL  |  120.5  |  2179.5"), "Statement should list each transaction");
+    }
+
+    @Test
+    void testBatchStatementJob_WritesAllAccountsAndResumes(@TempDir Path outputDir) throws Exception {
+        transactionManager.addTransaction(new Transaction(sourceAccount.getAccountNumber(), TransactionType.DEPOSIT, 300.0, 2300.0));
+        YearMonth month = YearMonth.from(LocalDate.ofEpochDay(CachedClock.currentEpochDay()));
+        BatchStatementJob job = new BatchStatementJob(accountManager, transactionManager, 2);
+
+        BatchStatementJob.Result first = job.run(month, outputDir, line -> { });
+        Path sourceStatement = outputDir.resolve(month.toString()).resolve(sourceAccount.getAccountNumber() + ".txt");
+        String statement = Files.readString(sourceStatement);
+        BatchStatementJob.Result second = job.run(month, outputDir, line -> { });
+
+        assertEquals(2, first.getWritten(), "Every account should get a statement");
+        assertTrue(statement.contains("Total Deposits: $300.00"), "Statement should include the month's deposit");
+        assertEquals(2, second.getSkipped(), "A second run should skip finished statements");
+        assertEquals(0, second.getWritten(), "A second run should write nothing");
+    }
+}
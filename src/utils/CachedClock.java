@@ -0,0 +1,128 @@
+package utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Wall clock with the current day cached, so reading the time or the day does not
+ * allocate. The time is read from {@link System#currentTimeMillis()}, which is cheap;
+ * the day is recomputed lazily by the first read after midnight, so no background
+ * thread is needed.
+ * Timestamps are epoch milliseconds; days are epoch days in the system time zone.
+ */
+public final class CachedClock {
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static volatile Day today = new Day(computeEpochDay(System.currentTimeMillis()));
+
+    private CachedClock() {
+    }
+
+    /**
+     * Returns the current time.
+     *
+     * @return epoch milliseconds
+     */
+    public static long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the current day, from the cache unless the day has changed since the last read.
+     *
+     * @return the epoch day in the system time zone
+     */
+    public static long currentEpochDay() {
+        return currentDay().epochDay;
+    }
+
+    private static Day currentDay() {
+        Day day = today;
+        long now = System.currentTimeMillis();
+        if (now >= day.endMillis || now < day.startMillis) {
+            // racing readers may each build the new day; they all build the same one
+            day = new Day(computeEpochDay(now));
+            today = day;
+        }
+        return day;
+    }
+
+    /**
+     * Converts a timestamp to its epoch day in the system time zone.
+     * Timestamps from the current day are answered from the cache without allocating.
+     *
+     * @param epochMillis the timestamp
+     * @return the epoch day
+     */
+    public static long epochDayOf(long epochMillis) {
+        Day day = today;
+        if (epochMillis >= day.startMillis && epochMillis < day.endMillis) {
+            return day.epochDay;
+        }
+        return computeEpochDay(epochMillis);
+    }
+
+    private static long computeEpochDay(long epochMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE).toEpochDay();
+    }
+
+    /**
+     * Returns the first millisecond of the given day in the system time zone.
+     *
+     * @param epochDay the epoch day
+     * @return the epoch milliseconds at the start of that day
+     */
+    public static long startOfDayMillis(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Formats a timestamp for display, e.g. "2025-12-18 14:03:27".
+     *
+     * @param epochMillis the timestamp
+     * @return the formatted timestamp
+     */
+    public static String format(long epochMillis) {
+        return DISPLAY_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE));
+    }
+
+    /**
+     * Parses a timestamp as written to the data files. Accepts epoch milliseconds,
+     * the display format, or a plain ISO date (read as the start of that day).
+     *
+     * @param text the timestamp text
+     * @return the epoch milliseconds
+     * @throws IllegalArgumentException if the text is not a recognised timestamp
+     */
+    public static long parse(String text) {
+        String value = text.trim();
+        try {
+            if (value.indexOf('-') < 0) {
+                return Long.parseLong(value);
+            }
+            if (value.length() == 10) {
+                return startOfDayMillis(LocalDate.parse(value).toEpochDay());
+            }
+            return LocalDateTime.parse(value, DISPLAY_FORMAT).atZone(ZONE).toInstant().toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp: " + text);
+        }
+    }
+
+    private static final class Day {
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Day(long epochDay) {
+            this.epochDay = epochDay;
+            this.startMillis = startOfDayMillis(epochDay);
+            this.endMillis = startOfDayMillis(epochDay + 1);
+        }
+    }
+}
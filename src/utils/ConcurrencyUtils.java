@@ -2,6 +2,7 @@ package utils;
 
 import models.Account;
 import models.Transaction;
+import models.TransactionType;
 import models.exceptions.InsufficientFundsException;
 import models.exceptions.InvalidAccountException;
 import models.exceptions.InvalidAmountException;
@@ -57,7 +58,7 @@ public class ConcurrencyUtils {
                         try {
                             boolean success = account.processTransaction(
                                 amount, 
-                                isDeposit ? "DEPOSIT" : "WITHDRAWAL"
+                                isDeposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL
                             );
                             
                             if (success) {
@@ -67,7 +68,7 @@ public class ConcurrencyUtils {
                                 synchronized (transactionLock) {
                                     Transaction transaction = new Transaction(
                                         accountNumber,
-                                        isDeposit ? "DEPOSIT" : "WITHDRAWAL",
+                                        isDeposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL,
                                         amount,
                                         newBalance
                                     );
@@ -155,7 +156,7 @@ public class ConcurrencyUtils {
                         try {
                             boolean success = account.processTransaction(
                                 amount, 
-                                isDeposit ? "DEPOSIT" : "WITHDRAWAL"
+                                isDeposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL
                             );
                             
                             if (success) {
@@ -170,7 +171,7 @@ public class ConcurrencyUtils {
                                 synchronized (transactionLock) {
                                     Transaction transaction = new Transaction(
                                         accountNumber,
-                                        isDeposit ? "DEPOSIT" : "WITHDRAWAL",
+                                        isDeposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL,
                                         amount,
                                         newBalance
                                     );
@@ -0,0 +1,174 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates unique, increasing numeric identifiers for accounts and transactions.
+ * Platform threads reserve ids in blocks from a shared high-water mark and hand them
+ * out from a thread-local block, so the shared counter is only touched once per block.
+ * Ids are kept as primitive longs; the human-readable form (e.g. "TXN007") is rendered
+ * only when a caller asks for it.
+ */
+public class IdGenerator {
+    public static final IdGenerator ACCOUNTS = new IdGenerator("ACC", 3, 1);
+    public static final IdGenerator TRANSACTIONS = new IdGenerator("TXN", 3, 256);
+    public static final IdGenerator CUSTOMERS = new IdGenerator("CUS", 3, 1);
+    public static final IdGenerator STANDING_ORDERS = new IdGenerator("ORD", 3, 1);
+    public static final IdGenerator HOLDS = new IdGenerator("HLD", 3, 256);
+
+    private final String prefix;
+    private final int minDigits;
+    private final int blockSize;
+    private final AtomicLong highWaterMark = new AtomicLong();
+    private volatile int epoch;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Constructs an IdGenerator.
+     *
+     * @param prefix the prefix used when rendering ids (e.g. "TXN")
+     * @param minDigits the minimum number of digits, zero padded, when rendering ids
+     * @param blockSize the number of ids a thread reserves at a time
+     */
+    public IdGenerator(String prefix, int minDigits, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.prefix = prefix;
+        this.minDigits = minDigits;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next unique id.
+     * Virtual threads are short-lived, so they take ids straight from the shared counter
+     * instead of reserving a block they would mostly throw away.
+     *
+     * @return a new id, always greater than zero
+     */
+    public long nextId() {
+        if (blockSize == 1 || Thread.currentThread().isVirtual()) {
+            return highWaterMark.incrementAndGet();
+        }
+        Block block = blocks.get();
+        int currentEpoch = epoch;
+        if (block.epoch != currentEpoch || block.next > block.limit) {
+            long end = highWaterMark.addAndGet(blockSize);
+            block.next = end - blockSize + 1;
+            block.limit = end;
+            block.epoch = currentEpoch;
+        }
+        return block.next++;
+    }
+
+    /**
+     * Returns the next unique id rendered with this generator's prefix.
+     *
+     * @return the formatted id
+     */
+    public String nextFormattedId() {
+        return format(nextId());
+    }
+
+    /**
+     * Makes sure every id handed out from now on is greater than the given id.
+     * Used after loading persisted data so new ids do not collide with stored ones.
+     * Blocks already reserved by other threads are discarded.
+     *
+     * @param id the highest id already in use
+     */
+    public void advanceTo(long id) {
+        highWaterMark.getAndAccumulate(id, Math::max);
+        // a block reserved before the load can still hold ids at or below the persisted
+        // one even when the high-water mark is past it, so no reserved block is kept
+        epoch++;
+    }
+
+    /**
+     * Resets the generator so the next id handed out is {@code lastId + 1}.
+     * Blocks already reserved by other threads are discarded.
+     *
+     * @param lastId the last id considered used
+     */
+    public void reset(long lastId) {
+        highWaterMark.set(lastId);
+        epoch++;
+    }
+
+    /**
+     * Returns the highest id reserved so far. Ids reserved in thread-local blocks
+     * are counted even if they have not been handed out yet.
+     *
+     * @return the high-water mark
+     */
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getMinDigits() {
+        return minDigits;
+    }
+
+    /**
+     * Renders an id with this generator's prefix, zero padded to the minimum width.
+     *
+     * @param id the id to render
+     * @return the formatted id, e.g. "ACC004"
+     */
+    public String format(long id) {
+        char[] digits = new char[20];
+        int pos = digits.length;
+        long value = id;
+        do {
+            digits[--pos] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        while (digits.length - pos < minDigits) {
+            digits[--pos] = '0';
+        }
+        StringBuilder sb = new StringBuilder(prefix.length() + digits.length - pos);
+        sb.append(prefix).append(digits, pos, digits.length - pos);
+        return sb.toString();
+    }
+
+    /**
+     * Parses a formatted id back into its numeric value. The prefix is matched
+     * case-insensitively.
+     *
+     * @param formattedId the formatted id, e.g. "TXN012"
+     * @return the numeric id, or -1 if the text is not an id of this generator
+     */
+    public long parse(CharSequence formattedId) {
+        if (formattedId == null) {
+            return -1;
+        }
+        int length = formattedId.length();
+        if (length <= prefix.length() || length - prefix.length() > 18) {
+            return -1;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toUpperCase(formattedId.charAt(i)) != prefix.charAt(i)) {
+                return -1;
+            }
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < length; i++) {
+            char c = formattedId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static final class Block {
+        private long next = 1;
+        private long limit = 0;
+        private int epoch = -1;
+    }
+}
@@ -0,0 +1,107 @@
+package utils;
+
+/**
+ * Mergeable quantile sketch for positive values with a fixed relative error.
+ * Values are counted in logarithmic buckets, bucket {@code i} covering
+ * {@code (gamma^(i-1), gamma^i]}, so every quantile is answered within
+ * {@code relativeAccuracy} of a value actually recorded. Memory is one long per bucket,
+ * fixed when the sketch is created, and recording a value is a single array increment.
+ * Values below the minimum are counted in the first bucket, values above the maximum in
+ * the last one.
+ */
+public class QuantileSketch {
+    private final double gamma;
+    private final double logGamma;
+    private final double minValue;
+    private final int offset;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * Constructs a QuantileSketch.
+     *
+     * @param relativeAccuracy the relative error of reported quantiles, e.g. 0.01 for 1%
+     * @param minValue the smallest value told apart from zero
+     * @param maxValue the largest value told apart from larger ones
+     */
+    public QuantileSketch(double relativeAccuracy, double minValue, double maxValue) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1 || minValue <= 0 || maxValue <= minValue) {
+            throw new IllegalArgumentException("Invalid sketch parameters");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.minValue = minValue;
+        this.offset = rawIndex(minValue);
+        this.counts = new long[rawIndex(maxValue) - offset + 1];
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param value the value; zero and negative values count as the minimum
+     */
+    public void add(double value) {
+        counts[indexOf(value)]++;
+        total++;
+    }
+
+    /**
+     * Adds the counts of another sketch with the same parameters to this one.
+     *
+     * @param other the sketch to merge
+     */
+    public void merge(QuantileSketch other) {
+        if (other.counts.length != counts.length || other.gamma != gamma || other.minValue != minValue) {
+            throw new IllegalArgumentException("Sketches have different parameters");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Returns an estimate of the given quantile.
+     *
+     * @param quantile the quantile, between 0 and 1 (0.5 for the median)
+     * @return the estimated value, or 0 if nothing has been recorded
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(quantile * (total - 1));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // the middle of the bucket, in relative terms, is within the accuracy of every value in it
+                return 2 * Math.pow(gamma, i + offset) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, counts.length - 1 + offset) / (gamma + 1);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count
+     */
+    public long count() {
+        return total;
+    }
+
+    private int indexOf(double value) {
+        if (value <= minValue) {
+            return 0;
+        }
+        return Math.min(rawIndex(value) - offset, counts.length - 1);
+    }
+
+    private int rawIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+}
@@ -0,0 +1,216 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Space-Saving heavy-hitter sketch over int keys. It monitors at most {@code capacity}
+ * keys; a key that is not monitored replaces the one with the smallest count and
+ * inherits that count as its possible overestimate. Any key whose true count exceeds
+ * {@code total / capacity} is guaranteed to be monitored.
+ *
+ * Counters are kept in a binary min-heap with a key-to-position table, so an update
+ * costs O(log capacity) and the memory is fixed.
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final int[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+    private final int[] tableKeys;
+    private final int[] tablePositions;
+    private final int tableMask;
+
+    /**
+     * Constructs a SpaceSaving sketch.
+     *
+     * @param capacity the number of keys monitored
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.keys = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        int tableSize = Integer.highestOneBit(capacity * 4 - 1) << 1;
+        this.tableKeys = new int[tableSize];
+        this.tablePositions = new int[tableSize];
+        this.tableMask = tableSize - 1;
+        Arrays.fill(tablePositions, -1);
+    }
+
+    /**
+     * Counts one occurrence of a key.
+     *
+     * @param key the key, e.g. an account handle
+     */
+    public void add(int key) {
+        add(key, 1);
+    }
+
+    /**
+     * Counts a weighted occurrence of a key.
+     *
+     * @param key the key
+     * @param weight the weight, at least 1
+     */
+    public void add(int key, long weight) {
+        int position = find(key);
+        if (position >= 0) {
+            counts[position] += weight;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            position = size++;
+            keys[position] = key;
+            counts[position] = weight;
+            errors[position] = 0;
+            tableInsert(key, position);
+            siftUp(position);
+            return;
+        }
+        // replace the smallest counter, which sits at the root of the heap
+        tableRemove(keys[0]);
+        long floor = counts[0];
+        keys[0] = key;
+        errors[0] = floor;
+        counts[0] = floor + weight;
+        tableInsert(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * Returns the monitored keys with the highest counts.
+     *
+     * @param limit the maximum number of keys to return
+     * @return the heavy hitters, largest count first
+     */
+    public Entry[] top(int limit) {
+        Entry[] entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry(keys[i], counts[i], errors[i]);
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(b.count, a.count));
+        return Arrays.copyOf(entries, Math.min(limit, entries.length));
+    }
+
+    /**
+     * Folds another sketch into this one by re-adding its counters.
+     *
+     * @param other the sketch to merge
+     */
+    public void merge(SpaceSaving other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.keys[i], other.counts[i]);
+        }
+    }
+
+    /**
+     * A monitored key with its count. The true count lies between
+     * {@code count - error} and {@code count}.
+     */
+    public static final class Entry {
+        private final int key;
+        private final long count;
+        private final long error;
+
+        Entry(int key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public int getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        tableUpdate(keys[a], a);
+        tableUpdate(keys[b], b);
+    }
+
+    private int slotOf(int key) {
+        int i = (key * 0x9E3779B9) >>> 1 & tableMask;
+        while (tablePositions[i] >= 0 && tableKeys[i] != key) {
+            i = (i + 1) & tableMask;
+        }
+        return i;
+    }
+
+    private int find(int key) {
+        return tablePositions[slotOf(key)];
+    }
+
+    private void tableInsert(int key, int position) {
+        int slot = slotOf(key);
+        tableKeys[slot] = key;
+        tablePositions[slot] = position;
+    }
+
+    private void tableUpdate(int key, int position) {
+        tablePositions[slotOf(key)] = position;
+    }
+
+    private void tableRemove(int key) {
+        int slot = slotOf(key);
+        tablePositions[slot] = -1;
+        // re-place the entries after the removed slot so linear probing still finds them
+        for (int i = (slot + 1) & tableMask; tablePositions[i] >= 0; i = (i + 1) & tableMask) {
+            int movedKey = tableKeys[i];
+            int movedPosition = tablePositions[i];
+            tablePositions[i] = -1;
+            tableInsert(movedKey, movedPosition);
+        }
+    }
+}
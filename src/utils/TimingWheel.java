@@ -0,0 +1,211 @@
+package utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: a timer queue for very many entries with constant-time
+ * insert, cancel and per-tick work.
+ *
+ * Time is divided into ticks. Level 0 has one slot per tick for the next
+ * {@code slotsPerLevel} ticks, level 1 one slot per {@code slotsPerLevel} ticks, and so on.
+ * An entry goes into the level matching how far away its deadline is; whenever a lower
+ * level completes a turn, the next slot of the level above is emptied and its entries are
+ * moved down, so every entry moves at most once per level before it expires.
+ * Deadlines further away than the wheel covers wait in the top level and are moved again
+ * until they fit.
+ *
+ * Not thread-safe.
+ *
+ * @param <T> the type of the scheduled items
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Node<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Constructs a TimingWheel.
+     *
+     * @param tickMillis the length of one tick, in milliseconds
+     * @param slotsPerLevel the number of slots per level, rounded up to a power of two
+     * @param levels the number of levels
+     * @param startMillis the current time, in epoch milliseconds
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levels, long startMillis) {
+        if (tickMillis < 1 || slotsPerLevel < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = 32 - Integer.numberOfLeadingZeros(slotsPerLevel - 1);
+        if ((long) bits * levels > 62) {
+            throw new IllegalArgumentException("Timing wheel covers too many ticks");
+        }
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.slots = new Node[levels][1 << bits];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules an item. An item whose deadline has already passed expires at the next tick.
+     *
+     * @param deadlineMillis when the item is due, in epoch milliseconds
+     * @param item the item
+     * @return a handle for {@link #cancel(Handle)}
+     */
+    public Handle schedule(long deadlineMillis, T item) {
+        Node<T> node = new Node<>(Math.max(Math.floorDiv(deadlineMillis, tickMillis), currentTick + 1), item);
+        insert(node);
+        size++;
+        return node;
+    }
+
+    /**
+     * Removes a scheduled item before it expires.
+     *
+     * @param handle the handle returned by {@link #schedule}
+     * @return true if the item was still scheduled
+     */
+    public boolean cancel(Handle handle) {
+        Node<?> node = (Node<?>) handle;
+        if (node.level < 0) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time and hands every item that became due to the sink,
+     * in deadline order tick by tick.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @param expired receives the due items
+     * @return the number of items that expired
+     */
+    public int advanceTo(long nowMillis, Consumer<? super T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        int count = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bits * level)) & mask));
+                }
+            }
+            int index = (int) (currentTick & mask);
+            Node<T> node = slots[0][index];
+            slots[0][index] = null;
+            while (node != null) {
+                Node<T> next = node.next;
+                node.level = -1;
+                node.next = null;
+                node.previous = null;
+                size--;
+                count++;
+                expired.accept(node.item);
+                node = next;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of scheduled items.
+     *
+     * @return the item count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the time up to which the wheel has advanced.
+     *
+     * @return the start of the current tick, in epoch milliseconds
+     */
+    public long currentTimeMillis() {
+        return currentTick * tickMillis;
+    }
+
+    private void cascade(int level, int index) {
+        Node<T> node = slots[level][index];
+        slots[level][index] = null;
+        while (node != null) {
+            Node<T> next = node.next;
+            node.next = null;
+            node.previous = null;
+            insert(node);
+            node = next;
+        }
+    }
+
+    private void insert(Node<T> node) {
+        long delta = node.deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        int index;
+        if (delta >= 1L << (bits * levels)) {
+            // beyond the wheel: park in the top slot that is cascaded last
+            index = (int) (((currentTick >>> (bits * level)) - 1) & mask);
+        } else {
+            index = (int) ((node.deadlineTick >>> (bits * level)) & mask);
+        }
+        node.level = level;
+        node.index = index;
+        Node<T> head = slots[level][index];
+        node.next = head;
+        if (head != null) {
+            head.previous = node;
+        }
+        slots[level][index] = node;
+    }
+
+    private void unlink(Node<?> node) {
+        @SuppressWarnings("unchecked")
+        Node<T> typed = (Node<T>) node;
+        if (typed.previous != null) {
+            typed.previous.next = typed.next;
+        } else {
+            slots[typed.level][typed.index] = typed.next;
+        }
+        if (typed.next != null) {
+            typed.next.previous = typed.previous;
+        }
+        typed.level = -1;
+        typed.next = null;
+        typed.previous = null;
+    }
+
+    /**
+     * Identifies a scheduled item.
+     */
+    public interface Handle {
+    }
+
+    private static final class Node<T> implements Handle {
+        private final long deadlineTick;
+        private final T item;
+        private Node<T> next;
+        private Node<T> previous;
+        private int level;
+        private int index;
+
+        private Node(long deadlineTick, T item) {
+            this.deadlineTick = deadlineTick;
+            this.item = item;
+        }
+    }
+}
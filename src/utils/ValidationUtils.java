@@ -1,5 +1,7 @@
 package utils;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Scanner;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
@@ -57,6 +59,18 @@ public class ValidationUtils {
         }
     }
 
+    public LocalDate readDate(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = sc.nextLine().trim();
+            try {
+                return LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format! Please use YYYY-MM-DD (e.g., 2025-12-18)");
+            }
+        }
+    }
+
     public String readAccountNumber(String prompt) {
         return readValidatedString(prompt, this::isValidAccountNumber, 
             "Invalid account number format! Account number must match pattern: ACC### (e.g., ACC001)");
@@ -79,6 +93,21 @@ public class ValidationUtils {
         }
     }
 
+    /**
+     * Checks that an amount is a finite number of whole cents, e.g. before it is applied to
+     * an account. NaN, infinities and fractions of a cent are rejected.
+     *
+     * @param amount the amount
+     * @return true if the amount can be represented exactly in cents
+     */
+    public static boolean isWholeCents(double amount) {
+        if (!Double.isFinite(amount)) {
+            return false;
+        }
+        double cents = amount * 100;
+        return Math.abs(cents - Math.rint(cents)) < 1e-6;
+    }
+
     private boolean isValidAccountNumber(String accountNumber) {
         if (accountNumber == null || accountNumber.isEmpty()) {
             return false;